@@ -0,0 +1,163 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import sdk.sample.model.ModelCapacityPool;
+import sdk.sample.model.ModelExportPolicyRule;
+import sdk.sample.model.ModelNetAppAccount;
+import sdk.sample.model.ModelVolume;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Builds the account/capacity pool/volume trees used as benchmark input, shaped like the ones in appsettings.json
+final class BenchmarkData
+{
+    static final String SUBNET_ID = "/subscriptions/00000000-0000-0000-0000-000000000000/resourceGroups/anf-benchmark-rg/providers/Microsoft.Network/virtualNetworks/anf-vnet/subnets/anf-sn";
+
+    private static final long TIB = 1024L * 1024L * 1024L * 1024L;
+    private static final long GIB = 1024L * 1024L * 1024L;
+
+    private BenchmarkData()
+    {
+    }
+
+    /**
+     * Creates an account tree
+     * @param accounts Number of accounts
+     * @param poolsPerAccount Number of capacity pools of every account
+     * @param volumesPerPool Number of volumes of every capacity pool
+     * @param rulesPerVolume Number of export policy rules of every volume
+     * @return Accounts, as they would be read from appsettings.json
+     */
+    static List<ModelNetAppAccount> accounts(int accounts, int poolsPerAccount, int volumesPerPool, int rulesPerVolume)
+    {
+        List<ModelNetAppAccount> result = new ArrayList<>();
+        for (int a = 0; a < accounts; a++)
+        {
+            ModelNetAppAccount account = new ModelNetAppAccount();
+            account.setName("anf-account-" + a);
+            account.setLocation("westcentralus");
+
+            List<ModelCapacityPool> pools = new ArrayList<>();
+            for (int p = 0; p < poolsPerAccount; p++)
+            {
+                ModelCapacityPool pool = new ModelCapacityPool();
+                pool.setName("pool-" + p);
+                pool.setServiceLevel("Premium");
+                pool.setSize(4 * TIB);
+
+                List<ModelVolume> volumes = new ArrayList<>();
+                for (int v = 0; v < volumesPerPool; v++)
+                {
+                    volumes.add(volume(account.getName() + "-pool-" + p + "-vol-" + v, rulesPerVolume));
+                }
+                pool.setVolumes(volumes);
+                pools.add(pool);
+            }
+            account.setCapacityPools(pools);
+            result.add(account);
+        }
+
+        return result;
+    }
+
+    /**
+     * Creates a NFSv3 volume
+     * @param name Volume name, also used as creation token
+     * @param rules Number of export policy rules
+     * @return Volume, as it would be read from appsettings.json
+     */
+    static ModelVolume volume(String name, int rules)
+    {
+        List<ModelExportPolicyRule> exportPolicies = new ArrayList<>();
+        for (int r = 0; r < rules; r++)
+        {
+            ModelExportPolicyRule rule = new ModelExportPolicyRule();
+            rule.setRuleIndex(r + 1);
+            rule.setAllowedClients("10.0." + r + ".0/24");
+            rule.setNfsv3(true);
+            rule.setUnixReadWrite(true);
+            exportPolicies.add(rule);
+        }
+
+        ModelVolume volume = new ModelVolume();
+        volume.setName(name);
+        volume.setCreationToken(name);
+        volume.setUsageThreshold(100 * GIB);
+        volume.setType("NFSv3");
+        volume.setSubnetId(SUBNET_ID);
+        volume.setExportPolicies(exportPolicies);
+
+        return volume;
+    }
+
+    /**
+     * Serializes accounts with the name and other properties of every account and capacity pool ahead of its children,
+     * as in the sample appsettings.json, so that ConfigurationStream can stream them
+     */
+    private static JsonArray accountsTree(Gson gson, List<ModelNetAppAccount> accounts)
+    {
+        JsonArray accountsArray = new JsonArray();
+        for (ModelNetAppAccount account : accounts)
+        {
+            JsonArray poolsArray = new JsonArray();
+            for (ModelCapacityPool pool : account.getCapacityPools())
+            {
+                JsonObject poolObject = new JsonObject();
+                poolObject.addProperty("name", pool.getName());
+                poolObject.addProperty("serviceLevel", pool.getServiceLevel());
+                poolObject.addProperty("size", pool.getSize());
+                poolObject.add("volumes", gson.toJsonTree(pool.getVolumes()));
+                poolsArray.add(poolObject);
+            }
+
+            JsonObject accountObject = new JsonObject();
+            accountObject.addProperty("name", account.getName());
+            accountObject.addProperty("location", account.getLocation());
+            accountObject.add("capacityPools", poolsArray);
+            accountsArray.add(accountObject);
+        }
+
+        return accountsArray;
+    }
+
+    /**
+     * Writes an appsettings.json file describing the given accounts
+     * @param path Destination file
+     * @param accounts Accounts to be written
+     */
+    static void writeAppSettings(Path path, List<ModelNetAppAccount> accounts)
+    {
+        Gson gson = new Gson();
+
+        JsonObject general = new JsonObject();
+        general.addProperty("subscriptionId", "00000000-0000-0000-0000-000000000000");
+        general.addProperty("resourceGroup", "anf-benchmark-rg");
+
+        JsonObject appSettings = new JsonObject();
+        appSettings.add("general", general);
+        appSettings.add("accounts", accountsTree(gson, accounts));
+
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8))
+        {
+            gson.toJson(appSettings, writer);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Unable to write benchmark configuration " + path, e);
+        }
+    }
+}
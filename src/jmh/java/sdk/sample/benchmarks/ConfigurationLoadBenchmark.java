@@ -0,0 +1,95 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import sdk.sample.common.ConfigurationStream;
+import sdk.sample.common.ProjectConfiguration;
+import sdk.sample.model.ModelCapacityPool;
+import sdk.sample.model.ModelNetAppAccount;
+import sdk.sample.model.ModelVolume;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Measures loading appsettings.json files describing large fleets
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConfigurationLoadBenchmark
+{
+    // Total number of volumes in the file, spread over 10 accounts of 10 capacity pools
+    @Param({"100", "1000", "10000"})
+    public int volumes;
+
+    private Path appSettings;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        appSettings = Files.createTempFile("appsettings-", ".json");
+        BenchmarkData.writeAppSettings(appSettings, BenchmarkData.accounts(10, 10, Math.max(1, volumes / 100), 2));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        Files.deleteIfExists(appSettings);
+    }
+
+    @Benchmark
+    public ProjectConfiguration readFromJsonFile()
+    {
+        return ProjectConfiguration.readFromJsonFile(appSettings.toString());
+    }
+
+    // Same file read by ConfigurationStream, every resource being handed to the visitor and dropped right away
+    @Benchmark
+    public void stream(Blackhole blackhole)
+    {
+        try (ConfigurationStream stream = ConfigurationStream.open(appSettings.toString()))
+        {
+            blackhole.consume(stream.readHeader());
+            stream.readAccounts(new ConfigurationStream.Visitor()
+            {
+                @Override
+                public void onAccount(ModelNetAppAccount account)
+                {
+                    blackhole.consume(account);
+                }
+
+                @Override
+                public void onCapacityPool(ModelNetAppAccount account, ModelCapacityPool pool)
+                {
+                    blackhole.consume(pool);
+                }
+
+                @Override
+                public void onVolume(ModelNetAppAccount account, ModelCapacityPool pool, ModelVolume volume)
+                {
+                    blackhole.consume(volume);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,88 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.benchmarks;
+
+import com.azure.resourcemanager.netapp.fluent.NetAppManagementClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import sdk.sample.Cleanup;
+import sdk.sample.Creation;
+import sdk.sample.common.ProjectConfiguration;
+import sdk.sample.model.ModelExecutionSettings;
+import sdk.sample.model.ModelSimulatorSettings;
+import sdk.sample.simulator.AnfSimulator;
+
+import java.util.concurrent.TimeUnit;
+
+// Measures a full provisioning round trip, creation followed by cleanup, through the real management client against
+// the local Resource Provider simulator. Operations complete synchronously so the score reflects the client side cost
+// (serialization, pipeline, orchestration) rather than polling intervals.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ProvisioningBenchmark
+{
+    // Number of volumes of each of the 2 capacity pools of each of the 2 accounts
+    @Param({"1", "8"})
+    public int volumesPerPool;
+
+    @Param({"platform", "virtual"})
+    public String mode;
+
+    // Simulated Resource Provider latency per request
+    @Param({"0", "20"})
+    public int requestLatencyMs;
+
+    private AnfSimulator simulator;
+    private NetAppManagementClient anfClient;
+    private ProjectConfiguration config;
+
+    @Setup
+    public void setUp()
+    {
+        ModelSimulatorSettings simulatorSettings = new ModelSimulatorSettings();
+        simulatorSettings.setRequestLatencyMs(requestLatencyMs);
+        simulatorSettings.setOperationDurationMs(0);
+        simulator = AnfSimulator.start(simulatorSettings);
+        anfClient = simulator.connect().serviceClient();
+
+        ModelExecutionSettings executionSettings = new ModelExecutionSettings();
+        executionSettings.setMode(mode);
+
+        config = new ProjectConfiguration();
+        config.setSubscriptionId(AnfSimulator.SUBSCRIPTION_ID);
+        config.setResourceGroup("anf-benchmark-rg");
+        config.setAccounts(BenchmarkData.accounts(2, 2, volumesPerPool, 1));
+        config.setExecutionSettings(executionSettings);
+        config.setSimulatorSettings(simulatorSettings);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        simulator.close();
+    }
+
+    @Benchmark
+    public void createAndCleanUp()
+    {
+        Creation.runCreationSample(config, anfClient);
+        Cleanup.runCleanupTasksSample(config, anfClient);
+    }
+}
@@ -0,0 +1,90 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import sdk.sample.common.AnfResourceId;
+import sdk.sample.common.ResourceUriUtils;
+
+import java.util.concurrent.TimeUnit;
+
+// Measures resource id parsing, which runs for every listed resource and every deletion probe
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResourceUriUtilsBenchmark
+{
+    private final String snapshotId = "/subscriptions/00000000-0000-0000-0000-000000000000/resourceGroups/anf-rg/providers/Microsoft.NetApp/netAppAccounts/anf-account/capacityPools/pool01/volumes/vol01/snapshots/snap01";
+
+    // Resource group sharing its name with a resource type, which goes through the special case of getResourceValue
+    private final String ambiguousId = "/subscriptions/00000000-0000-0000-0000-000000000000/resourceGroups/volumes/providers/Microsoft.NetApp/netAppAccounts/anf-account/capacityPools/pool01/volumes/vol01";
+
+    @Benchmark
+    public String resourceGroup()
+    {
+        return ResourceUriUtils.getResourceGroup(snapshotId);
+    }
+
+    @Benchmark
+    public String snapshot()
+    {
+        return ResourceUriUtils.getAnfSnapshot(snapshotId);
+    }
+
+    @Benchmark
+    public String resourceValue()
+    {
+        return ResourceUriUtils.getResourceValue(snapshotId, "capacityPools");
+    }
+
+    @Benchmark
+    public String ambiguousResourceValue()
+    {
+        return ResourceUriUtils.getResourceValue(ambiguousId, "volumes");
+    }
+
+    // All names of a snapshot id, as needed to delete it, through the per-name helpers
+    @Benchmark
+    public void allNamesPerLookup(Blackhole blackhole)
+    {
+        blackhole.consume(ResourceUriUtils.getResourceGroup(snapshotId));
+        blackhole.consume(ResourceUriUtils.getAnfAccount(snapshotId));
+        blackhole.consume(ResourceUriUtils.getAnfCapacityPool(snapshotId));
+        blackhole.consume(ResourceUriUtils.getAnfVolume(snapshotId));
+        blackhole.consume(ResourceUriUtils.getAnfSnapshot(snapshotId));
+    }
+
+    // All names of a snapshot id through a single parsed id, served from the interning cache after the first call
+    @Benchmark
+    public void allNamesParsed(Blackhole blackhole)
+    {
+        AnfResourceId id = AnfResourceId.parse(snapshotId);
+        blackhole.consume(id.getResourceGroup());
+        blackhole.consume(id.getAccountName());
+        blackhole.consume(id.getCapacityPoolName());
+        blackhole.consume(id.getVolumeName());
+        blackhole.consume(id.getSnapshotName());
+    }
+
+    // Lookup of a single name without going through the parsed id
+    @Benchmark
+    public String findValue()
+    {
+        return AnfResourceId.findValue(snapshotId, "capacityPools");
+    }
+}
@@ -0,0 +1,58 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.benchmarks;
+
+import com.azure.resourcemanager.netapp.fluent.models.VolumeInner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sdk.sample.common.CommonSdk;
+import sdk.sample.model.ModelCapacityPool;
+import sdk.sample.model.ModelNetAppAccount;
+import sdk.sample.model.ModelVolume;
+
+import java.util.concurrent.TimeUnit;
+
+// Measures the mapping of a volume from appsettings.json, export policy rules included, to the request body sent by
+// CommonSdk.createOrUpdateVolume
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VolumeBodyBenchmark
+{
+    // Number of export policy rules of the volume, the service allows up to 5
+    @Param({"1", "5"})
+    public int rules;
+
+    private ModelNetAppAccount account;
+    private ModelCapacityPool pool;
+    private ModelVolume volume;
+
+    @Setup
+    public void setUp()
+    {
+        account = BenchmarkData.accounts(1, 1, 0, 0).get(0);
+        pool = account.getCapacityPools().get(0);
+        volume = BenchmarkData.volume("anf-benchmark-volume", rules);
+    }
+
+    @Benchmark
+    public VolumeInner buildVolumeBody()
+    {
+        return CommonSdk.buildVolumeBody(account, pool, volume);
+    }
+}
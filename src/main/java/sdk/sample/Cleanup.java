@@ -10,180 +10,252 @@ import com.azure.resourcemanager.netapp.fluent.models.CapacityPoolInner;
 import com.azure.resourcemanager.netapp.fluent.models.NetAppAccountInner;
 import com.azure.resourcemanager.netapp.fluent.models.SnapshotInner;
 import com.azure.resourcemanager.netapp.fluent.models.VolumeInner;
+import sdk.sample.common.AnfResourceId;
+import sdk.sample.common.AnfResourceType;
 import sdk.sample.common.CommonSdk;
+import sdk.sample.common.OperationJournal;
+import sdk.sample.common.OperationLimit;
 import sdk.sample.common.ProjectConfiguration;
-import sdk.sample.common.ResourceUriUtils;
+import sdk.sample.common.ProvisioningEngine;
+import sdk.sample.common.ResourceInventory;
 import sdk.sample.common.Utils;
 import sdk.sample.model.ModelCapacityPool;
+import sdk.sample.model.ModelCleanupSettings;
 import sdk.sample.model.ModelNetAppAccount;
-import sdk.sample.model.ModelVolume;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 public class Cleanup
 {
     /**
-     * Deletes all created resources
+     * Deletes all created resources. Volumes and snapshots are found with a single inventory of the resource group,
+     * then deletions are pipelined: a volume is deleted as soon as its own snapshots are gone,
+     * a capacity pool as soon as its own volumes are gone and an account as soon as its own capacity pools are gone.
      * @param config Project Configuration
      * @param anfClient Azure NetApp Files Management Client
      */
     public static void runCleanupTasksSample(ProjectConfiguration config, NetAppManagementClient anfClient)
     {
-        /*
-          Clean up snapshots
-         */
-        Utils.writeConsoleMessage("Cleaning up Snapshot(s)...");
-        for (ModelNetAppAccount account : config.getAccounts())
+        if (config.getAccounts() == null)
+        {
+            return;
+        }
+
+        String resourceGroup = config.getResourceGroup();
+        ModelCleanupSettings limits = config.getExecutionSettings().getCleanup();
+        OperationLimit snapshotPermits = new OperationLimit(limits.getSnapshots());
+        OperationLimit volumePermits = new OperationLimit(limits.getVolumes());
+        OperationLimit poolPermits = new OperationLimit(limits.getCapacityPools());
+        OperationLimit accountPermits = new OperationLimit(limits.getAccounts());
+
+        // Enough workers for every level to reach its own limit while the others are busy
+        int workers = Math.max(config.getExecutionSettings().getMaxParallelism(), Math.max(1, limits.getSnapshots()) + Math.max(1, limits.getVolumes())
+                + Math.max(1, limits.getCapacityPools()) + Math.max(1, limits.getAccounts()));
+
+        try (ProvisioningEngine engine = ProvisioningEngine.forSettings(config.getExecutionSettings(), workers))
         {
-            if (account.getCapacityPools() != null)
+            /*
+              Listing volumes and snapshots of the capacity pools of appsettings.json at once
+              Volumes are listed instead of being read from appsettings.json so that volumes created from snapshots are removed too
+             */
+            Set<AnfResourceId> pools = new HashSet<>();
+            for (ModelNetAppAccount account : config.getAccounts())
             {
-                for (ModelCapacityPool pool : account.getCapacityPools())
+                for (ModelCapacityPool pool : Objects.requireNonNullElse(account.getCapacityPools(), List.<ModelCapacityPool>of()))
                 {
-                    if (pool.getVolumes() != null)
+                    pools.add(AnfResourceId.of(anfClient.getSubscriptionId(), resourceGroup, account.getName(), pool.getName()));
+                }
+            }
+            Utils.writeConsoleMessage("Listing Volume(s) and Snapshot(s) to clean up...");
+            ResourceInventory inventory = ResourceInventory.crawl(anfClient, resourceGroup, AnfResourceType.SNAPSHOT, pools, config.getExecutionSettings());
+
+            /*
+              Clean up snapshots, volumes, capacity pools and accounts
+              Note: Volume deletion operations at the RP level are executed serially, therefore volumes of the same
+              capacity pool are deleted one after the other while their snapshots are deleted concurrently
+             */
+            Utils.writeConsoleMessage("Cleaning up Snapshot(s), Volume(s), Capacity Pool(s) and Account(s)...");
+            for (ModelNetAppAccount account : config.getAccounts())
+            {
+                List<CompletableFuture<?>> poolTasks = new ArrayList<>();
+                if (account.getCapacityPools() != null)
+                {
+                    for (ModelCapacityPool pool : account.getCapacityPools())
                     {
-                        for (ModelVolume volume : pool.getVolumes())
+                        CompletableFuture<Void> previousVolumeTask = CompletableFuture.completedFuture(null);
+                        if (pool.getVolumes() == null)
                         {
-                            String[] parameters = {config.getResourceGroup(), account.getName(), pool.getName(), volume.getName()};
-
-                            List<Object> snapshotList = CommonSdk.listResource(anfClient, parameters, SnapshotInner.class);
-                            snapshotList.forEach(o -> {
-                                /*
-                                  Snapshot name property (and other ANF's related nested resources) return a relative path up to the name
-                                  and to use this property in delete for example, the argument needs to be sanitized and just the
-                                  actual name needs to be used.
-                                  Snapshot name property example: "johndoe-anf01/pool01/johndoe-anf01-pool01-vol01/test-a"
-                                  "test-a" is the actual name that needs to be used. Below is a sample function that parses the name
-                                  from snapshot resource id
-                                */
-                                SnapshotInner snapshot = (SnapshotInner) o;
-                                try
-                                {
-                                    anfClient.getSnapshots().beginDelete(
-                                            config.getResourceGroup(),
-                                            account.getName(),
-                                            pool.getName(),
-                                            volume.getName(),
-                                            ResourceUriUtils.getAnfSnapshot(snapshot.id())).getFinalResult();
-                                }
-                                catch (Exception e)
+                            Utils.writeConsoleMessage("No Volumes defined for Account: " + account.getName() + ", Capacity Pool: " + pool.getName());
+                        }
+                        else
+                        {
+                            AnfResourceId poolId = AnfResourceId.of(anfClient.getSubscriptionId(), resourceGroup, account.getName(), pool.getName());
+                            for (VolumeInner volume : inventory.list(AnfResourceType.VOLUME, poolId))
+                            {
+                                List<CompletableFuture<?>> volumeDependencies = new ArrayList<>();
+                                volumeDependencies.add(previousVolumeTask);
+                                for (SnapshotInner snapshot : inventory.list(AnfResourceType.SNAPSHOT, AnfResourceId.parse(volume.id())))
                                 {
-                                    Utils.writeErrorMessage("An error occurred while deleting Snapshot: " + snapshot.id());
-                                    Utils.writeConsoleMessage("Error: " + e);
-                                    throw e;
+                                    volumeDependencies.add(engine.submit(snapshotPermits, () -> deleteSnapshot(anfClient, snapshot)));
                                 }
 
-                                // Adding a final verification if the resource completed deletion since it may take a few seconds between ARM Cache and the Resource Provider to be fully in sync
-                                CommonSdk.waitForNoANFResource(anfClient, snapshot.id(), SnapshotInner.class);
-                                Utils.writeSuccessMessage("Successfully deleted Snapshot: " + snapshot.id());
-                            });
+                                previousVolumeTask = engine.submit(volumePermits, () -> deleteVolume(anfClient, volume),
+                                        volumeDependencies.toArray(new CompletableFuture<?>[0]));
+                            }
                         }
+
+                        poolTasks.add(engine.submit(poolPermits, () -> deleteCapacityPool(anfClient, resourceGroup, account, pool), previousVolumeTask));
                     }
                 }
+
+                engine.submit(accountPermits, () -> deleteAccount(anfClient, resourceGroup, account), poolTasks.toArray(new CompletableFuture<?>[0]));
             }
+
+            engine.awaitCompletion();
         }
+    }
 
+    /**
+     * Deletes a snapshot and waits until the Resource Provider no longer returns it
+     * @param anfClient Azure NetApp Files Management Client
+     * @param snapshot Snapshot to be deleted
+     */
+    private static void deleteSnapshot(NetAppManagementClient anfClient, SnapshotInner snapshot)
+    {
         /*
-          Clean up all volumes
-          Note: Volume deletion operations at the RP level are executed serially
-         */
-        Utils.writeConsoleMessage("Cleaning up Volume(s)...");
-        for (ModelNetAppAccount account : config.getAccounts())
+          Snapshot name property (and other ANF's related nested resources) return a relative path up to the name
+          and to use this property in delete for example, the argument needs to be sanitized and just the
+          actual name needs to be used.
+          Snapshot name property example: "johndoe-anf01/pool01/johndoe-anf01-pool01-vol01/test-a"
+          "test-a" is the actual name that needs to be used. Below is a sample function that parses the name
+          from snapshot resource id
+        */
+        AnfResourceId id = AnfResourceId.parse(snapshot.id());
+        try
         {
-            if (account.getCapacityPools() != null)
-            {
-                for (ModelCapacityPool pool : account.getCapacityPools())
-                {
-                    if (pool.getVolumes() != null)
-                    {
-                        String[] parameters = {config.getResourceGroup(), account.getName(), pool.getName()};
+            CommonSdk.runOperation(AnfResourceType.SNAPSHOT, "delete", id, () -> anfClient.getSnapshots().beginDelete(
+                    id.getResourceGroup(),
+                    id.getAccountName(),
+                    id.getCapacityPoolName(),
+                    id.getVolumeName(),
+                    id.getSnapshotName()).getFinalResult());
+        }
+        catch (Exception e)
+        {
+            Utils.writeErrorMessage("An error occurred while deleting Snapshot: " + snapshot.id());
+            Utils.writeConsoleMessage("Error: " + e);
+            throw e;
+        }
 
-                        List<Object> volumeList = CommonSdk.listResource(anfClient, parameters, VolumeInner.class);
-                        volumeList.forEach(o -> {
-                            VolumeInner volume = (VolumeInner) o;
-                            try
-                            {
-                                anfClient.getVolumes().beginDelete(config.getResourceGroup(), account.getName(), pool.getName(), ResourceUriUtils.getAnfVolume(volume.id())).getFinalResult();
+        // Adding a final verification if the resource completed deletion since it may take a few seconds between ARM Cache and the Resource Provider to be fully in sync
+        CommonSdk.waitForDeletion(anfClient, AnfResourceType.SNAPSHOT, AnfResourceId.parse(snapshot.id()));
+        Utils.writeSuccessMessage("Successfully deleted Snapshot: " + snapshot.id());
+    }
 
-                                CommonSdk.waitForNoANFResource(anfClient, volume.id(), VolumeInner.class);
-                                Utils.writeSuccessMessage("Successfully deleted Volume: " + volume.id());
-                            }
-                            catch (Exception e)
-                            {
-                                Utils.writeErrorMessage("An error occurred while deleting Volume: " + volume.id());
-                                Utils.writeConsoleMessage("Error: " + e);
-                                throw e;
-                            }
-                        });
-                    }
-                    else
-                    {
-                        Utils.writeConsoleMessage("No Volumes defined for Account: " + account.getName() + ", Capacity Pool: " + pool.getName());
-                    }
-                }
-            }
+    /**
+     * Deletes a volume and waits until the Resource Provider no longer returns it
+     * @param anfClient Azure NetApp Files Management Client
+     * @param volume Volume to be deleted
+     */
+    private static void deleteVolume(NetAppManagementClient anfClient, VolumeInner volume)
+    {
+        AnfResourceId id = AnfResourceId.parse(volume.id());
+        try
+        {
+            CommonSdk.runOperation(AnfResourceType.VOLUME, "delete", id, () -> anfClient.getVolumes().beginDelete(
+                    id.getResourceGroup(),
+                    id.getAccountName(),
+                    id.getCapacityPoolName(),
+                    id.getVolumeName()).getFinalResult());
+
+            CommonSdk.waitForDeletion(anfClient, AnfResourceType.VOLUME, AnfResourceId.parse(volume.id()));
+            Utils.writeSuccessMessage("Successfully deleted Volume: " + volume.id());
         }
+        catch (Exception e)
+        {
+            Utils.writeErrorMessage("An error occurred while deleting Volume: " + volume.id());
+            Utils.writeConsoleMessage("Error: " + e);
+            throw e;
+        }
+    }
 
-        /*
-          Clean up capacity pools
-         */
-        Utils.writeConsoleMessage("Cleaning up Capacity Pool(s)...");
-        for (ModelNetAppAccount account : config.getAccounts())
+    /**
+     * Deletes a capacity pool, if it exists, and waits until the Resource Provider no longer returns it
+     * @param anfClient Azure NetApp Files Management Client
+     * @param resourceGroup Resource Group name where the Capacity Pool was created
+     * @param account ModelNetAppAccount object that describes the ANF Account, populated with data from appsettings.json
+     * @param pool ModelCapacityPool object that describes the Capacity Pool, populated with data from appsettings.json
+     */
+    private static void deleteCapacityPool(NetAppManagementClient anfClient, String resourceGroup, ModelNetAppAccount account, ModelCapacityPool pool)
+    {
+        // A capacity pool deleted by an interrupted run is not looked up again
+        AnfResourceId id = AnfResourceId.of(anfClient.getSubscriptionId(), resourceGroup, account.getName(), pool.getName());
+        if (OperationJournal.current().isCompleted("delete", id))
         {
-            if (account.getCapacityPools() != null)
-            {
-                for (ModelCapacityPool pool : account.getCapacityPools())
-                {
-                    String[] parameters = {config.getResourceGroup(), account.getName(), pool.getName()};
+            Utils.writeConsoleMessage("Capacity Pool already deleted by a previous run, resource id: " + id);
+            return;
+        }
 
-                    CapacityPoolInner capacityPool = (CapacityPoolInner) CommonSdk.getResource(anfClient, parameters, CapacityPoolInner.class);
-                    if (capacityPool != null)
-                    {
-                        try
-                        {
-                            anfClient.getPools().beginDelete(config.getResourceGroup(), account.getName(), ResourceUriUtils.getAnfCapacityPool(capacityPool.id())).getFinalResult();
-                        }
-                        catch (Exception e)
-                        {
-                            Utils.writeErrorMessage("An error occurred while deleting Capacity Pool: " + capacityPool.id());
-                            Utils.writeConsoleMessage("Error: " + e);
-                            throw e;
-                        }
+        String[] parameters = {resourceGroup, account.getName(), pool.getName()};
 
-                        CommonSdk.waitForNoANFResource(anfClient, capacityPool.id(), CapacityPoolInner.class);
-                        Utils.writeSuccessMessage("Successfully deleted Capacity Pool: " + capacityPool.id());
-                    }
-                }
+        CapacityPoolInner capacityPool = CommonSdk.getResource(anfClient, parameters, CapacityPoolInner.class);
+        if (capacityPool != null)
+        {
+            try
+            {
+                CommonSdk.runOperation(AnfResourceType.CAPACITY_POOL, "delete", id, () -> anfClient.getPools().beginDelete(resourceGroup, account.getName(), AnfResourceId.parse(capacityPool.id()).getCapacityPoolName()).getFinalResult());
             }
+            catch (Exception e)
+            {
+                Utils.writeErrorMessage("An error occurred while deleting Capacity Pool: " + capacityPool.id());
+                Utils.writeConsoleMessage("Error: " + e);
+                throw e;
+            }
+
+            CommonSdk.waitForDeletion(anfClient, AnfResourceType.CAPACITY_POOL, AnfResourceId.parse(capacityPool.id()));
+            Utils.writeSuccessMessage("Successfully deleted Capacity Pool: " + capacityPool.id());
         }
+    }
 
-        /*
-          Clean up accounts
-         */
-        Utils.writeConsoleMessage("Cleaning up Account(s)...");
-        if (config.getAccounts() != null)
+    /**
+     * Deletes an account, if it exists, and waits until the Resource Provider no longer returns it
+     * @param anfClient Azure NetApp Files Management Client
+     * @param resourceGroup Resource Group name where the ANF Account was created
+     * @param account ModelNetAppAccount object that describes the ANF Account, populated with data from appsettings.json
+     */
+    private static void deleteAccount(NetAppManagementClient anfClient, String resourceGroup, ModelNetAppAccount account)
+    {
+        // An account deleted by an interrupted run is not looked up again
+        AnfResourceId id = AnfResourceId.of(anfClient.getSubscriptionId(), resourceGroup, account.getName());
+        if (OperationJournal.current().isCompleted("delete", id))
         {
-            for (ModelNetAppAccount account : config.getAccounts())
-            {
-                String[] parameters = {config.getResourceGroup(), account.getName()};
+            Utils.writeConsoleMessage("Account already deleted by a previous run, resource id: " + id);
+            return;
+        }
 
-                NetAppAccountInner anfAccount = (NetAppAccountInner) CommonSdk.getResource(anfClient, parameters, NetAppAccountInner.class);
-                if (anfAccount != null)
-                {
-                    try
-                    {
-                        anfClient.getAccounts().beginDelete(config.getResourceGroup(), anfAccount.name()).getFinalResult();
-                    }
-                    catch (Exception e)
-                    {
-                        Utils.writeErrorMessage("An error occurred while deleting Account: " + anfAccount.id());
-                        Utils.writeConsoleMessage("Error: " + e);
-                        throw e;
-                    }
+        String[] parameters = {resourceGroup, account.getName()};
 
-                    CommonSdk.waitForNoANFResource(anfClient, anfAccount.id(), NetAppAccountInner.class);
-                    Utils.writeSuccessMessage("Successfully deleted Account: " + anfAccount.id());
-                }
+        NetAppAccountInner anfAccount = CommonSdk.getResource(anfClient, parameters, NetAppAccountInner.class);
+        if (anfAccount != null)
+        {
+            try
+            {
+                CommonSdk.runOperation(AnfResourceType.ACCOUNT, "delete", id, () -> anfClient.getAccounts().beginDelete(resourceGroup, anfAccount.name()).getFinalResult());
             }
+            catch (Exception e)
+            {
+                Utils.writeErrorMessage("An error occurred while deleting Account: " + anfAccount.id());
+                Utils.writeConsoleMessage("Error: " + e);
+                throw e;
+            }
+
+            CommonSdk.waitForDeletion(anfClient, AnfResourceType.ACCOUNT, AnfResourceId.parse(anfAccount.id()));
+            Utils.writeSuccessMessage("Successfully deleted Account: " + anfAccount.id());
         }
     }
 }
@@ -9,15 +9,27 @@ import com.azure.resourcemanager.netapp.fluent.NetAppManagementClient;
 import com.azure.resourcemanager.netapp.fluent.models.CapacityPoolInner;
 import com.azure.resourcemanager.netapp.fluent.models.NetAppAccountInner;
 import com.azure.resourcemanager.netapp.fluent.models.VolumeInner;
+import sdk.sample.common.AnfResourceId;
+import sdk.sample.common.AnfResourceType;
 import sdk.sample.common.CommonSdk;
+import sdk.sample.common.ConfigurationStream;
+import sdk.sample.common.OperationJournal;
 import sdk.sample.common.ProjectConfiguration;
+import sdk.sample.common.ProvisioningEngine;
+import sdk.sample.common.ResourceInventory;
 import sdk.sample.common.Utils;
 import sdk.sample.model.ModelCapacityPool;
 import sdk.sample.model.ModelNetAppAccount;
 import sdk.sample.model.ModelVolume;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+
 public class Creation
 {
+    // Operations queued per worker thread before parsing of a streamed configuration pauses
+    private static final int MAX_QUEUED_PER_WORKER = 4;
+
     /**
      * Executes basic CRUD operations using Azure NetApp files SDK
      * @param config Project Configuration
@@ -25,50 +37,60 @@ public class Creation
      */
     public static void runCreationSample(ProjectConfiguration config, NetAppManagementClient anfClient)
     {
-        /*
-          Creating ANF Accounts
-         */
-        Utils.writeConsoleMessage("Creating Azure NetApp Files Account(s)...");
-        if (!config.getAccounts().isEmpty())
-        {
-            config.getAccounts().forEach(account -> createAccount(anfClient, config.getResourceGroup(), account));
-        }
-        else
+        if (config.getAccounts().isEmpty())
         {
             Utils.writeConsoleMessage("No ANF accounts defined within appsettings.json file. Exiting.");
+            return;
         }
 
         /*
-          Creating Capacity Pools
+          Listing the existing accounts, capacity pools and volumes of the resource group once, so that checking whether
+          each resource already exists is answered from memory instead of a request per resource
          */
-        Utils.writeConsoleMessage("Creating Capacity Pool(s)...");
-        for (ModelNetAppAccount modelAccount : config.getAccounts())
+        try
         {
-            if (!modelAccount.getCapacityPools().isEmpty())
-            {
-                modelAccount.getCapacityPools().forEach(pool -> createCapacityPool(anfClient, config.getResourceGroup(), modelAccount, pool));
-            }
-            else
-            {
-                Utils.writeConsoleMessage("No capacity pool defined for account " + modelAccount.getName());
-            }
+            ResourceInventory.crawl(anfClient, config.getResourceGroup(), AnfResourceType.VOLUME, config.getExecutionSettings());
+        }
+        catch (Exception e)
+        {
+            Utils.writeWarningMessage("Unable to list existing resources, each resource will be looked up individually - " + e.getMessage());
         }
 
         /*
-          Creating Volumes
-          Note: Volume creation operations at the RP level are executed serially
+          Creating ANF Accounts, Capacity Pools and Volumes
+          Each resource only waits for its parent, so different accounts and capacity pools are provisioned concurrently
          */
-        Utils.writeConsoleMessage("Creating Volume(s)...");
-        for (ModelNetAppAccount modelAccount : config.getAccounts())
+        Utils.writeConsoleMessage("Creating Azure NetApp Files Account(s), Capacity Pool(s) and Volume(s)...");
+        try (ProvisioningEngine engine = ProvisioningEngine.forSettings(config.getExecutionSettings()))
         {
-            if (!modelAccount.getCapacityPools().isEmpty())
+            for (ModelNetAppAccount modelAccount : config.getAccounts())
             {
+                CompletableFuture<Void> accountTask = engine.submit(() -> createAccount(anfClient, config.getResourceGroup(), modelAccount));
+
+                if (modelAccount.getCapacityPools().isEmpty())
+                {
+                    Utils.writeConsoleMessage("No capacity pool defined for account " + modelAccount.getName());
+                    continue;
+                }
+
                 for (ModelCapacityPool capacityPool : modelAccount.getCapacityPools())
                 {
-                    if (!capacityPool.getVolumes().isEmpty())
+                    CompletableFuture<Void> poolTask = engine.submit(() -> createCapacityPool(anfClient, config.getResourceGroup(), modelAccount, capacityPool), accountTask);
+
+                    if (capacityPool.getVolumes().isEmpty())
                     {
-                        for (ModelVolume modelVolume : capacityPool.getVolumes())
-                        {
+                        Utils.writeConsoleMessage("No volumes defined for Account: " + modelAccount.getName() + ", Capacity Pool: " + capacityPool.getName());
+                        continue;
+                    }
+
+                    /*
+                      Note: Volume creation operations at the RP level are executed serially within a Capacity Pool,
+                      therefore each volume waits for the previous one of the same pool
+                     */
+                    CompletableFuture<Void> previousTask = poolTask;
+                    for (ModelVolume modelVolume : capacityPool.getVolumes())
+                    {
+                        previousTask = engine.submit(() -> {
                             try
                             {
                                 createVolume(anfClient, config.getResourceGroup(), modelAccount, capacityPool, modelVolume);
@@ -79,14 +101,83 @@ public class Creation
                                         capacityPool.getName() + " " + modelVolume.getName() + ".\nError message: " + e.getMessage());
                                 throw e;
                             }
-                        }
+                        }, previousTask);
                     }
-                    else
+                }
+            }
+
+            engine.awaitCompletion();
+        }
+    }
+
+    /**
+     * Creates the resources of appsettings.json while the file is being read. An operation is submitted as soon as its
+     * resource is parsed, so the first account is being created while the rest of the file is still read. Parsing
+     * pauses while too many operations are queued, which bounds memory regardless of the file size.
+     * @param config Project Configuration, as returned by ConfigurationStream.readHeader
+     * @param stream Configuration stream positioned at the accounts array
+     * @param anfClient Azure NetApp Files Management Client
+     */
+    public static void runStreamingCreationSample(ProjectConfiguration config, ConfigurationStream stream, NetAppManagementClient anfClient)
+    {
+        Utils.writeConsoleMessage("Creating Azure NetApp Files Account(s), Capacity Pool(s) and Volume(s) while reading appsettings.json...");
+        int maxParallelism = Math.max(1, config.getExecutionSettings().getMaxParallelism());
+        Semaphore queuedOperations = new Semaphore(maxParallelism * MAX_QUEUED_PER_WORKER);
+
+        try (ProvisioningEngine engine = ProvisioningEngine.forSettings(config.getExecutionSettings()))
+        {
+            stream.readAccounts(new ConfigurationStream.Visitor()
+            {
+                // Only the tasks of the account and capacity pool being read are kept
+                private CompletableFuture<Void> accountTask;
+                private CompletableFuture<Void> previousTask;
+
+                @Override
+                public void onAccount(ModelNetAppAccount account)
+                {
+                    accountTask = submit(() -> createAccount(anfClient, config.getResourceGroup(), account));
+                }
+
+                @Override
+                public void onCapacityPool(ModelNetAppAccount account, ModelCapacityPool pool)
+                {
+                    previousTask = submit(() -> createCapacityPool(anfClient, config.getResourceGroup(), account, pool), accountTask);
+                }
+
+                @Override
+                public void onVolume(ModelNetAppAccount account, ModelCapacityPool pool, ModelVolume volume)
+                {
+                    // Volumes of the same capacity pool are created serially, see runCreationSample
+                    previousTask = submit(() -> {
+                        try
+                        {
+                            createVolume(anfClient, config.getResourceGroup(), account, pool, volume);
+                        }
+                        catch (Exception e)
+                        {
+                            Utils.writeErrorMessage("An error occurred while creating volume " + account.getName() + " " +
+                                    pool.getName() + " " + volume.getName() + ".\nError message: " + e.getMessage());
+                            throw e;
+                        }
+                    }, previousTask);
+                }
+
+                private CompletableFuture<Void> submit(Runnable action, CompletableFuture<?>... dependencies)
+                {
+                    // Stop reading the file once an operation failed, the error is rethrown by awaitCompletion
+                    if (engine.hasFailed())
                     {
-                        Utils.writeConsoleMessage("No volumes defined for Account: " + modelAccount.getName() + ", Capacity Pool: " + capacityPool.getName());
+                        engine.awaitCompletion();
                     }
+
+                    queuedOperations.acquireUninterruptibly();
+                    CompletableFuture<Void> task = engine.submit(action, dependencies);
+                    task.whenComplete((result, error) -> queuedOperations.release());
+                    return task;
                 }
-            }
+            });
+
+            engine.awaitCompletion();
         }
     }
 
@@ -100,9 +191,14 @@ public class Creation
      */
     private static void createVolume(NetAppManagementClient anfClient, String resourceGroup, ModelNetAppAccount account, ModelCapacityPool pool, ModelVolume volume)
     {
+        if (isCreatedByPreviousRun(anfClient, "Volume", resourceGroup, account.getName(), pool.getName(), volume.getName()))
+        {
+            return;
+        }
+
         String[] params = {resourceGroup, account.getName(), pool.getName(), volume.getName()};
 
-        VolumeInner anfVolume = (VolumeInner) CommonSdk.getResource(anfClient, params, VolumeInner.class);
+        VolumeInner anfVolume = CommonSdk.getResource(anfClient, params, VolumeInner.class);
         if (anfVolume == null)
         {
             VolumeInner newVolume = CommonSdk.createOrUpdateVolume(anfClient, resourceGroup, account, pool, volume);
@@ -123,9 +219,14 @@ public class Creation
      */
     private static void createCapacityPool(NetAppManagementClient anfClient, String resourceGroup, ModelNetAppAccount account, ModelCapacityPool pool)
     {
+        if (isCreatedByPreviousRun(anfClient, "Capacity Pool", resourceGroup, account.getName(), pool.getName()))
+        {
+            return;
+        }
+
         String[] params = {resourceGroup, account.getName(), pool.getName()};
 
-        CapacityPoolInner capacityPool = (CapacityPoolInner) CommonSdk.getResource(anfClient, params, CapacityPoolInner.class);
+        CapacityPoolInner capacityPool = CommonSdk.getResource(anfClient, params, CapacityPoolInner.class);
         if (capacityPool == null)
         {
             CapacityPoolInner newCapacityPool = CommonSdk.createOrUpdateCapacityPool(anfClient, resourceGroup, account.getName(), account.getLocation(), pool);
@@ -145,9 +246,14 @@ public class Creation
      */
     private static void createAccount(NetAppManagementClient anfClient, String resourceGroup, ModelNetAppAccount account)
     {
+        if (isCreatedByPreviousRun(anfClient, "Account", resourceGroup, account.getName()))
+        {
+            return;
+        }
+
         String[] params = {resourceGroup, account.getName()};
 
-        NetAppAccountInner anfAccount = (NetAppAccountInner) CommonSdk.getResource(anfClient, params, NetAppAccountInner.class);
+        NetAppAccountInner anfAccount = CommonSdk.getResource(anfClient, params, NetAppAccountInner.class);
         if (anfAccount == null)
         {
             NetAppAccountInner newAccount = CommonSdk.createOrUpdateAccount(anfClient, resourceGroup, account);
@@ -158,4 +264,31 @@ public class Creation
             Utils.writeConsoleMessage("Account already exists, resource id: " + anfAccount.id());
         }
     }
+
+    /**
+     * Checks the operation journal for a resource created by an interrupted run. The resource is looked up once to make
+     * sure it was not deleted since, the lookup being cached for the creation that follows otherwise.
+     * @param anfClient Azure NetApp Files Management Client
+     * @param label Resource type name used in messages
+     * @param resourceGroup Resource Group name
+     * @param names Account, capacity pool and volume names, as deep as needed
+     * @return True if the resource was created by an interrupted run and still exists
+     */
+    private static boolean isCreatedByPreviousRun(NetAppManagementClient anfClient, String label, String resourceGroup, String... names)
+    {
+        AnfResourceId id = AnfResourceId.of(anfClient.getSubscriptionId(), resourceGroup, names);
+        if (!OperationJournal.current().isCompleted("create", id))
+        {
+            return false;
+        }
+
+        if (CommonSdk.getResource(anfClient, AnfResourceType.of(id), id) == null)
+        {
+            Utils.writeWarningMessage(label + " created by a previous run no longer exists, creating it again, resource id: " + id);
+            return false;
+        }
+
+        Utils.writeConsoleMessage(label + " already created by a previous run, resource id: " + id);
+        return true;
+    }
 }
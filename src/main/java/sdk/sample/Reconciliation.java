@@ -0,0 +1,42 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample;
+
+import com.azure.resourcemanager.netapp.fluent.NetAppManagementClient;
+import sdk.sample.common.AnfResourceType;
+import sdk.sample.common.ProjectConfiguration;
+import sdk.sample.common.ProvisioningPlan;
+import sdk.sample.common.ResourceInventory;
+import sdk.sample.common.Utils;
+
+// Contains the plan and apply phases, which bring the resource group in line with appsettings.json
+public class Reconciliation
+{
+    /**
+     * Compares appsettings.json with the resources of the resource group and applies only the differences:
+     * missing resources are created, drifted capacity pools and volumes are patched with the changed properties and,
+     * when pruning, resources that are no longer configured are deleted
+     * @param config Project Configuration, describing the desired state
+     * @param anfClient Azure NetApp Files Management Client
+     * @param apply False to only print the plan
+     * @param prune True to delete accounts, capacity pools and volumes missing from appsettings.json
+     */
+    public static void runReconciliationSample(ProjectConfiguration config, NetAppManagementClient anfClient, boolean apply, boolean prune)
+    {
+        Utils.writeConsoleMessage("Computing changes between appsettings.json and resource group " + config.getResourceGroup() + "...");
+        ResourceInventory inventory = ResourceInventory.crawl(anfClient, config.getResourceGroup(), AnfResourceType.VOLUME, config.getExecutionSettings());
+        ProvisioningPlan plan = ProvisioningPlan.compute(config, inventory, anfClient, prune);
+        plan.print();
+
+        if (!apply || plan.isEmpty())
+        {
+            return;
+        }
+
+        Utils.writeConsoleMessage("Applying " + plan.getOperations().size() + " change(s)...");
+        plan.execute(config.getExecutionSettings());
+    }
+}
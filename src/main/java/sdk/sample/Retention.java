@@ -0,0 +1,186 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample;
+
+import com.azure.resourcemanager.netapp.fluent.NetAppManagementClient;
+import com.azure.resourcemanager.netapp.fluent.models.CapacityPoolInner;
+import com.azure.resourcemanager.netapp.fluent.models.NetAppAccountInner;
+import com.azure.resourcemanager.netapp.fluent.models.SnapshotInner;
+import com.azure.resourcemanager.netapp.fluent.models.VolumeInner;
+import sdk.sample.common.AnfResourceId;
+import sdk.sample.common.AnfResourceType;
+import sdk.sample.common.CommonSdk;
+import sdk.sample.common.OperationJournal;
+import sdk.sample.common.ProjectConfiguration;
+import sdk.sample.common.ProvisioningEngine;
+import sdk.sample.common.ResourceInventory;
+import sdk.sample.common.RetentionPolicy;
+import sdk.sample.common.SnapshotSet;
+import sdk.sample.common.Utils;
+import sdk.sample.model.ModelRetentionSettings;
+
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class Retention
+{
+    private static final DateTimeFormatter SNAPSHOT_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmm");
+
+    /**
+     * Runs snapshot retention cycles until the process is stopped, or a single cycle when no interval is set. Every
+     * cycle optionally snapshots every volume of appsettings.json, lists the snapshots of every volume of the resource
+     * group once and deletes the snapshots expired by the retention policy concurrently.
+     * @param config Project Configuration
+     * @param anfClient Azure NetApp Files Management Client
+     */
+    public static void runRetentionSample(ProjectConfiguration config, NetAppManagementClient anfClient)
+    {
+        ModelRetentionSettings retention = config.getExecutionSettings().getRetention();
+        RetentionPolicy policy = new RetentionPolicy(retention.getHourly(), retention.getDaily());
+        Duration interval = Duration.ofMinutes(Math.max(0, retention.getIntervalMinutes()));
+
+        Utils.writeConsoleMessage("Snapshot retention: keeping " + retention.getHourly() + " hourly and " + retention.getDaily()
+                + " daily snapshot(s) per volume" + (interval.isZero() ? "" : ", every " + interval.toMinutes() + " minute(s)"));
+        while (true)
+        {
+            long start = System.nanoTime();
+            try
+            {
+                runCycle(config, anfClient, retention, policy);
+            }
+            catch (RuntimeException e)
+            {
+                Utils.writeErrorMessage("An error occurred during the retention cycle.\nError message: " + e.getMessage());
+                if (interval.isZero())
+                {
+                    throw e;
+                }
+            }
+
+            if (interval.isZero())
+            {
+                return;
+            }
+
+            // Operations of finished cycles are never resumed, the journal only keeps those still in flight
+            OperationJournal.current().compact();
+
+            long remainingMs = interval.toMillis() - (System.nanoTime() - start) / 1_000_000;
+            if (remainingMs > 0)
+            {
+                Utils.writeConsoleMessage("Next retention cycle in " + Duration.ofMillis(remainingMs).toMinutes() + " minute(s)");
+                try
+                {
+                    Thread.sleep(remainingMs);
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs a single retention cycle
+     */
+    private static void runCycle(ProjectConfiguration config, NetAppManagementClient anfClient, ModelRetentionSettings retention, RetentionPolicy policy)
+    {
+        long start = System.nanoTime();
+        String prefix = retention.getNamePrefix() != null ? retention.getNamePrefix() : "";
+
+        if (retention.isTakeSnapshots() && config.getAccounts() != null)
+        {
+            SnapshotSet.take(config, anfClient, prefix + ZonedDateTime.now(ZoneOffset.UTC).format(SNAPSHOT_TIME));
+        }
+
+        // A single list of snapshots per volume, volumes of different accounts are listed concurrently
+        ResourceInventory inventory = ResourceInventory.crawl(anfClient, config.getResourceGroup(), AnfResourceType.SNAPSHOT, config.getExecutionSettings());
+
+        List<SnapshotInner> expired = new ArrayList<>();
+        int managed = 0;
+        for (NetAppAccountInner account : inventory.list(AnfResourceType.ACCOUNT, AnfResourceId.of(anfClient.getSubscriptionId(), config.getResourceGroup())))
+        {
+            for (CapacityPoolInner pool : inventory.list(AnfResourceType.CAPACITY_POOL, AnfResourceId.parse(account.id())))
+            {
+                for (VolumeInner volume : inventory.list(AnfResourceType.VOLUME, AnfResourceId.parse(pool.id())))
+                {
+                    List<SnapshotInner> snapshots = new ArrayList<>();
+                    for (SnapshotInner snapshot : inventory.list(AnfResourceType.SNAPSHOT, AnfResourceId.parse(volume.id())))
+                    {
+                        if (AnfResourceId.parse(snapshot.id()).getSnapshotName().startsWith(prefix))
+                        {
+                            snapshots.add(snapshot);
+                        }
+                    }
+
+                    managed += snapshots.size();
+                    expired.addAll(policy.selectExpired(snapshots));
+                }
+            }
+        }
+
+        int failed = deleteSnapshots(anfClient, expired, retention.getMaxConcurrentDeletes());
+
+        String message = "Retention cycle: " + managed + " snapshot(s) managed, " + (expired.size() - failed) + " deleted, "
+                + failed + " failed in " + (System.nanoTime() - start) / 1_000_000 + "ms";
+        if (failed == 0)
+        {
+            Utils.writeSuccessMessage(message);
+        }
+        else
+        {
+            Utils.writeWarningMessage(message + ", failed deletions are retried next cycle");
+        }
+    }
+
+    /**
+     * Deletes snapshots concurrently. A failed deletion does not stop the others, the snapshot is still expired at the
+     * next cycle.
+     * @return Number of failed deletions
+     */
+    private static int deleteSnapshots(NetAppManagementClient anfClient, List<SnapshotInner> snapshots, int maxConcurrentDeletes)
+    {
+        if (snapshots.isEmpty())
+        {
+            return 0;
+        }
+
+        Utils.writeConsoleMessage("Deleting " + snapshots.size() + " expired snapshot(s)...");
+        int parallelism = Math.max(1, Math.min(maxConcurrentDeletes, snapshots.size()));
+        AtomicInteger failed = new AtomicInteger();
+
+        // Deletions block their thread until the snapshot is gone, the engine gets one thread per concurrent deletion
+        try (ProvisioningEngine engine = new ProvisioningEngine(parallelism))
+        {
+            for (SnapshotInner snapshot : snapshots)
+            {
+                engine.submit(() -> {
+                    try
+                    {
+                        CommonSdk.deleteResource(anfClient, AnfResourceType.SNAPSHOT, AnfResourceId.parse(snapshot.id()));
+                        Utils.writeSuccessMessage("Successfully deleted expired Snapshot: " + snapshot.id());
+                    }
+                    catch (RuntimeException e)
+                    {
+                        failed.incrementAndGet();
+                        Utils.writeErrorMessage("An error occurred while deleting Snapshot: " + snapshot.id() + ".\nError message: " + e.getMessage());
+                    }
+                });
+            }
+
+            engine.awaitCompletion();
+        }
+
+        return failed.get();
+    }
+}
@@ -7,9 +7,12 @@ package sdk.sample;
 
 import com.azure.resourcemanager.netapp.fluent.NetAppManagementClient;
 import com.azure.resourcemanager.netapp.fluent.models.SnapshotInner;
-import com.azure.resourcemanager.netapp.fluent.models.VolumeInner;
+import sdk.sample.common.AnfResourceId;
+import sdk.sample.common.AnfResourceType;
+import sdk.sample.common.CloneEngine;
+import sdk.sample.common.CommonSdk;
 import sdk.sample.common.ProjectConfiguration;
-import sdk.sample.common.ResourceUriUtils;
+import sdk.sample.common.SnapshotSet;
 import sdk.sample.common.Utils;
 import sdk.sample.model.ModelCapacityPool;
 import sdk.sample.model.ModelNetAppAccount;
@@ -27,32 +30,60 @@ public class Snapshots
      */
     public static void runSnapshotOperationsSample(ProjectConfiguration config, NetAppManagementClient anfClient)
     {
+        Utils.writeConsoleMessage("Performing snapshot operations");
+        String snapshotName = "Snapshot-" + UUID.randomUUID();
+
         /*
-          Creating snapshot from first volume of the first capacity pool
+          Creating a snapshot from first volume of the first capacity pool, or a snapshot set of every volume.
+          The snapshot set runs on its own engine bounded per account, a single snapshot has nothing to run alongside
          */
-        Utils.writeConsoleMessage("Performing snapshot operations");
-        Utils.writeConsoleMessage("Creating snapshot...");
+        SnapshotInner snapshot;
+        if (config.getExecutionSettings().getSnapshots().isFanOut())
+        {
+            snapshot = createSnapshotSet(config, anfClient, snapshotName);
+        }
+        else
+        {
+            snapshot = createSnapshot(config, anfClient, snapshotName);
+        }
 
-        String snapshotName = "Snapshot-" + UUID.randomUUID();
+        /*
+          Creating volumes from snapshot
+         */
+        CloneEngine.createClones(anfClient, snapshot, config.getExecutionSettings().getClones(), config.getExecutionSettings());
+    }
+
+    /**
+     * Creates a snapshot of the first volume of the first capacity pool
+     * @param config Project Configuration
+     * @param anfClient Azure NetApp Files Management Client
+     * @param snapshotName Name of the snapshot
+     * @return Created snapshot
+     */
+    private static SnapshotInner createSnapshot(ProjectConfiguration config, NetAppManagementClient anfClient, String snapshotName)
+    {
+        Utils.writeConsoleMessage("Creating snapshot...");
 
         SnapshotInner snapshotBody = new SnapshotInner();
         snapshotBody.withLocation(config.getAccounts().get(0).getLocation());
 
-        SnapshotInner snapshot;
         try
         {
             ModelNetAppAccount account = config.getAccounts().stream().findFirst().orElseThrow();
             ModelCapacityPool pool = account.getCapacityPools().stream().findFirst().orElseThrow();
             ModelVolume volume = pool.getVolumes().stream().findFirst().orElseThrow();
-            snapshot = anfClient.getSnapshots().beginCreate(
-                    config.getResourceGroup(),
-                    account.getName(),
-                    pool.getName(),
-                    volume.getName(),
-                    snapshotName,
-                    snapshotBody).getFinalResult();
+            AnfResourceId id = AnfResourceId.of(anfClient.getSubscriptionId(), config.getResourceGroup(), account.getName(), pool.getName(), volume.getName(), snapshotName);
+            SnapshotInner snapshot = CommonSdk.runOperation(AnfResourceType.SNAPSHOT, "create", id, () -> anfClient.getSnapshots().beginCreate(
+                    id.getResourceGroup(),
+                    id.getAccountName(),
+                    id.getCapacityPoolName(),
+                    id.getVolumeName(),
+                    id.getSnapshotName(),
+                    snapshotBody).getFinalResult());
 
+            CommonSdk.cacheResource(snapshot);
             Utils.writeSuccessMessage("Snapshot created successfully. Snapshot resource id: " + snapshot.id());
+            return snapshot;
         }
         catch (Exception e)
         {
@@ -63,61 +94,29 @@ public class Snapshots
                         config.getAccounts().get(0).getCapacityPools().get(0).getVolumes().get(0).getName() + ".\nError message: " + e.getMessage());
             throw e;
         }
+    }
 
-        /*
-          Creating a volume from snapshot
-         */
-        Utils.writeConsoleMessage("Creating new volume from snapshot...");
-        String newVolumeName = "Vol-" + ResourceUriUtils.getAnfSnapshot(snapshot.id());
+    /**
+     * Creates snapshots of every volume at once and writes the manifest of the resulting snapshot set
+     * @param config Project Configuration
+     * @param anfClient Azure NetApp Files Management Client
+     * @param snapshotName Name shared by every snapshot of the set
+     * @return Snapshot of the first volume of the first capacity pool, which the sample restores a volume from
+     */
+    private static SnapshotInner createSnapshotSet(ProjectConfiguration config, NetAppManagementClient anfClient, String snapshotName)
+    {
+        SnapshotSet set = SnapshotSet.take(config, anfClient, snapshotName);
 
-        VolumeInner snapshotVolume;
-        try
-        {
-            snapshotVolume = anfClient.getVolumes().get(
-                    ResourceUriUtils.getResourceGroup(snapshot.id()),
-                    ResourceUriUtils.getAnfAccount(snapshot.id()),
-                    ResourceUriUtils.getAnfCapacityPool(snapshot.id()),
-                    ResourceUriUtils.getAnfVolume(snapshot.id()));
-        }
-        catch (Exception e)
+        ModelNetAppAccount account = config.getAccounts().stream().findFirst().orElseThrow();
+        ModelCapacityPool pool = account.getCapacityPools().stream().findFirst().orElseThrow();
+        ModelVolume volume = pool.getVolumes().stream().findFirst().orElseThrow();
+        SnapshotInner snapshot = set.get(AnfResourceId.of(anfClient.getSubscriptionId(), config.getResourceGroup(), account.getName(), pool.getName(), volume.getName()));
+        if (snapshot == null)
         {
-            Utils.writeErrorMessage("An error occurred trying to obtain information about volume " +
-                    ResourceUriUtils.getAnfVolume(snapshot.id()) + " from snapshot " + snapshot.id() + "\nError message: " + e.getMessage());
-            throw e;
+            Utils.writeErrorMessage("An error occurred while creating snapshot set " + snapshotName + ", volume " + volume.getName() + " has no snapshot");
+            throw new IllegalStateException("Snapshot set " + snapshotName + " is missing the snapshot of volume " + volume.getName());
         }
 
-        VolumeInner newVolumeFromSnapshot;
-        try
-        {
-            /*
-              Notice that SnapshotId is not the actual resource Id of the snapshot, this value is the unique identifier
-              (guid) of the snapshot, represented by the SnapshotId instead.
-             */
-            VolumeInner volumeFromSnapshotBody = new VolumeInner()
-                    .withSnapshotId(snapshot.snapshotId())
-                    //.withExportPolicy(snapshotVolume.exportPolicy())
-                    .withLocation(snapshotVolume.location())
-                    .withProtocolTypes(snapshotVolume.protocolTypes())
-                    .withServiceLevel(snapshotVolume.serviceLevel())
-                    .withUsageThreshold(snapshotVolume.usageThreshold())
-                    .withSubnetId(snapshotVolume.subnetId())
-                    .withCreationToken(newVolumeName);
-
-            ModelNetAppAccount account = config.getAccounts().stream().findFirst().orElseThrow();
-            ModelCapacityPool pool = account.getCapacityPools().stream().findFirst().orElseThrow();
-            newVolumeFromSnapshot = anfClient.getVolumes().beginCreateOrUpdate(
-                    config.getResourceGroup(),
-                    account.getName(),
-                    pool.getName(),
-                    newVolumeName,
-                    volumeFromSnapshotBody).getFinalResult();
-
-            Utils.writeSuccessMessage("Volume successfully created from snapshot. Volume resource id: " + newVolumeFromSnapshot.id());
-        }
-        catch (Exception e)
-        {
-            Utils.writeErrorMessage("An error occurred while creating a volume " + newVolumeName + " from snapshot " + snapshot.id() + ".\nError message: " + e.getMessage());
-            throw e;
-        }
+        return snapshot;
     }
 }
@@ -12,12 +12,15 @@ import com.azure.resourcemanager.netapp.models.CapacityPoolPatch;
 import com.azure.resourcemanager.netapp.models.ExportPolicyRule;
 import com.azure.resourcemanager.netapp.models.VolumePatch;
 import com.azure.resourcemanager.netapp.models.VolumePatchPropertiesExportPolicy;
+import sdk.sample.common.AnfResourceId;
+import sdk.sample.common.CommonSdk;
 import sdk.sample.common.ProjectConfiguration;
 import sdk.sample.common.Utils;
 import sdk.sample.model.ModelCapacityPool;
 import sdk.sample.model.ModelNetAppAccount;
 import sdk.sample.model.ModelVolume;
 
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -25,11 +28,23 @@ import java.util.NoSuchElementException;
 public class Updates
 {
     /**
-     * Executes some updates on first capacity pool and first volume listed in the configuration file (appsettings.json)
+     * Executes some updates on first capacity pool and first volume listed in the configuration file (appsettings.json).
+     * The volume is updated once its capacity pool has grown.
      * @param config Project Configuration
      * @param anfClient Azure NetApp Files Management Client
      */
     public static void runUpdateOperationsSample(ProjectConfiguration config, NetAppManagementClient anfClient)
+    {
+        updateCapacityPool(config, anfClient);
+        updateVolume(config, anfClient);
+    }
+
+    /**
+     * Grows the first capacity pool listed in the configuration file to 10 TiB
+     * @param config Project Configuration
+     * @param anfClient Azure NetApp Files Management Client
+     */
+    private static void updateCapacityPool(ProjectConfiguration config, NetAppManagementClient anfClient)
     {
         /*
           Capacity Pool Updates
@@ -42,10 +57,12 @@ public class Updates
         {
             ModelNetAppAccount account = config.getAccounts().stream().findFirst().orElseThrow();
             ModelCapacityPool pool = account.getCapacityPools().stream().findFirst().orElseThrow();
-            capacityPool = anfClient.getPools().get(
-                    config.getResourceGroup(),
-                    account.getName(),
-                    pool.getName());
+            String[] parameters = {config.getResourceGroup(), account.getName(), pool.getName()};
+            capacityPool = CommonSdk.getResource(anfClient, parameters, CapacityPoolInner.class);
+            if (capacityPool == null)
+            {
+                throw new IllegalStateException("Capacity Pool " + pool.getName() + " does not exist");
+            }
         }
         catch (Exception e)
         {
@@ -71,14 +88,7 @@ public class Updates
         // Update Capacity Pool resource
         try
         {
-            ModelNetAppAccount account = config.getAccounts().stream().findFirst().orElseThrow();
-            ModelCapacityPool pool = account.getCapacityPools().stream().findFirst().orElseThrow();
-            CapacityPoolInner updatedCapacityPool = anfClient.getPools().beginUpdate(
-                    config.getResourceGroup(),
-                    account.getName(),
-                    pool.getName(),
-                    capacityPoolPatch).getFinalResult();
-
+            CapacityPoolInner updatedCapacityPool = CommonSdk.updateCapacityPool(anfClient, AnfResourceId.parse(capacityPool.id()), capacityPoolPatch);
             Utils.writeSuccessMessage("Capacity Pool successfully updated, new size: " + Utils.getTBFromBytes(updatedCapacityPool.size()) + "TB, resource id: " + updatedCapacityPool.id());
         }
         catch (Exception e)
@@ -86,7 +96,15 @@ public class Updates
             Utils.writeErrorMessage("An error occurred while updating Capacity Pool " + capacityPool.id() + "\nError message: " + e.getMessage());
             throw e;
         }
+    }
 
+    /**
+     * Grows the first volume listed in the configuration file to 1 TiB and adds an export policy rule
+     * @param config Project Configuration
+     * @param anfClient Azure NetApp Files Management Client
+     */
+    private static void updateVolume(ProjectConfiguration config, NetAppManagementClient anfClient)
+    {
         /*
           Volume Updates
          */
@@ -99,11 +117,12 @@ public class Updates
             ModelNetAppAccount account = config.getAccounts().stream().findFirst().orElseThrow();
             ModelCapacityPool pool = account.getCapacityPools().stream().findFirst().orElseThrow();
             ModelVolume modelVolume = pool.getVolumes().stream().findFirst().orElseThrow();
-            volume = anfClient.getVolumes().get(
-                    config.getResourceGroup(),
-                    account.getName(),
-                    pool.getName(),
-                    modelVolume.getName());
+            String[] parameters = {config.getResourceGroup(), account.getName(), pool.getName(), modelVolume.getName()};
+            volume = CommonSdk.getResource(anfClient, parameters, VolumeInner.class);
+            if (volume == null)
+            {
+                throw new IllegalStateException("Volume " + modelVolume.getName() + " does not exist");
+            }
         }
         catch (Exception e)
         {
@@ -122,8 +141,8 @@ public class Updates
         // New size in bytes
         long newVolumeSizeBytes = Utils.getBytesFromTB(newVolumeSizeTB);
 
-        // New Export Policy rule
-        List<ExportPolicyRule> ruleList = volume.exportPolicy().rules();
+        // New Export Policy rule, added to a copy of the rules since the volume may be shared through the resource cache
+        List<ExportPolicyRule> ruleList = new ArrayList<>(volume.exportPolicy().rules());
 
         // Sort the list so our new Export Policy will have highest rule index
         Comparator<ExportPolicyRule> compareByRuleIndex = Comparator.comparing(ExportPolicyRule::ruleIndex);
@@ -146,33 +165,19 @@ public class Updates
             exportPoliciesPatch.withRules(ruleList);
         }
 
-        // Create volume patch object passing required arguments and the updated size
+        // Create volume patch object passing required arguments and the updated size, the volume itself is left untouched
         VolumePatch volumePatch = new VolumePatch();
+        volumePatch.withLocation(volume.location());
+        volumePatch.withUsageThreshold(newVolumeSizeBytes);
         if (exportPoliciesPatch != null)
         {
-            volumePatch.withLocation(volume.location());
-            volumePatch.withUsageThreshold(newVolumeSizeBytes);
             volumePatch.withExportPolicy(exportPoliciesPatch);
         }
-        else
-        {
-            volume.withLocation(volume.location());
-            volume.withUsageThreshold(newVolumeSizeBytes);
-        }
 
         // Update size at volume resource
         try
         {
-            ModelNetAppAccount account = config.getAccounts().stream().findFirst().orElseThrow();
-            ModelCapacityPool pool = account.getCapacityPools().stream().findFirst().orElseThrow();
-            ModelVolume modelVolume = pool.getVolumes().stream().findFirst().orElseThrow();
-            VolumeInner updatedVolume = anfClient.getVolumes().beginUpdate(
-                    config.getResourceGroup(),
-                    account.getName(),
-                    pool.getName(),
-                    modelVolume.getName(),
-                    volumePatch).getFinalResult();
-
+            VolumeInner updatedVolume = CommonSdk.updateVolume(anfClient, AnfResourceId.parse(volume.id()), volumePatch);
             Utils.writeSuccessMessage("Volume successfully updated, new size: " + Utils.getTBFromBytes(updatedVolume.usageThreshold()) +
                     "TB, export policy rule count: " + updatedVolume.exportPolicy().rules().size() + ", resource id: " + updatedVolume.id());
         }
@@ -0,0 +1,154 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.common;
+
+import com.azure.core.credential.TokenCredential;
+import com.azure.core.http.HttpClient;
+import com.azure.core.http.netty.NettyAsyncHttpClientBuilder;
+import com.azure.core.management.profile.AzureProfile;
+import com.azure.resourcemanager.netapp.NetAppFilesManager;
+import io.netty.channel.ChannelOption;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.resources.LoopResources;
+import sdk.sample.model.ModelExecutionSettings;
+import sdk.sample.model.ModelHttpSettings;
+import sdk.sample.model.ModelThrottlingSettings;
+
+import java.time.Duration;
+
+// Creates Azure NetApp Files managers whose HTTP pipelines share a single ArmThrottlingPolicy, so that requests from
+// every manager and every parallel worker are paced against the same per-subscription budgets, and a single
+// OperationMetricsPolicy recording the requests of every manager. Every manager also journals the long-running
+// operations it starts in the OperationJournal of the run, and sends its requests through a single Netty HTTP client
+// whose connection pool, keep-alive, protocol and I/O threads are set in appsettings.json, so that concurrent requests
+// and polls of every worker reuse warm TLS connections.
+public class AnfClientFactory
+{
+    private static final OperationMetricsPolicy METRICS_POLICY = new OperationMetricsPolicy();
+    private static final OperationJournalPolicy JOURNAL_POLICY = new OperationJournalPolicy();
+
+    private static ArmThrottlingPolicy throttlingPolicy;
+
+    private static HttpClient httpClient;
+
+    /**
+     * Authenticates a new manager against Azure
+     * @param credential Credential used to get ARM tokens
+     * @param profile Azure environment, tenant and subscription
+     * @param settings Execution settings, which hold the request rates per subscription
+     * @return Azure NetApp Files manager
+     */
+    public static NetAppFilesManager authenticate(TokenCredential credential, AzureProfile profile, ModelExecutionSettings settings)
+    {
+        return configure(NetAppFilesManager.configure().withHttpClient(getHttpClient(settings, true)), settings).authenticate(credential, profile);
+    }
+
+    /**
+     * Adds the shared pipeline policies to a manager configuration, e.g. the one pointing to the simulator
+     * @param configurable Manager configuration
+     * @param settings Execution settings, which hold the request rates per subscription
+     * @return The same manager configuration
+     */
+    public static NetAppFilesManager.Configurable configure(NetAppFilesManager.Configurable configurable, ModelExecutionSettings settings)
+    {
+        ModelThrottlingSettings throttling = settings.getThrottling();
+        if (throttling != null && throttling.isEnabled())
+        {
+            configurable.withPolicy(getThrottlingPolicy(throttling));
+        }
+
+        return configurable.withPolicy(METRICS_POLICY).withPolicy(JOURNAL_POLICY);
+    }
+
+    /**
+     * Gets the HTTP client shared by every manager, creating it on first use
+     * @param settings Execution settings, which hold the connection pool settings and the worker count
+     * @param secure True if every endpoint is https, false for the plain http endpoint of the simulator, which is then
+     *               always reached over HTTP/1.1
+     * @return Shared HTTP client
+     */
+    public static synchronized HttpClient getHttpClient(ModelExecutionSettings settings, boolean secure)
+    {
+        if (httpClient == null)
+        {
+            httpClient = createHttpClient(settings.getHttp() != null ? settings.getHttp() : new ModelHttpSettings(), settings.getMaxParallelism(), secure);
+        }
+
+        return httpClient;
+    }
+
+    /**
+     * Creates a Netty HTTP client with its own connection pool
+     * @param settings Connection pool, keep-alive, protocol and I/O thread settings
+     * @param workers Number of workers sending requests concurrently, which sizes the pool by default
+     * @param secure True if every endpoint is https
+     * @return HTTP client
+     */
+    private static HttpClient createHttpClient(ModelHttpSettings settings, int workers, boolean secure)
+    {
+        // Every worker may poll one operation while submitting another, twice the workers avoids waiting for a connection
+        int maxConnections = settings.getMaxConnections() > 0 ? settings.getMaxConnections() : Math.max(8, 2 * workers);
+
+        ConnectionProvider pool = ConnectionProvider.builder("anf-arm")
+                .maxConnections(maxConnections)
+                // Requests beyond the pool size wait for a connection instead of failing, only bounded by the acquire timeout
+                .pendingAcquireMaxCount(-1)
+                .pendingAcquireTimeout(Duration.ofSeconds(settings.getPendingAcquireTimeoutSeconds()))
+                .maxIdleTime(Duration.ofSeconds(settings.getMaxIdleTimeSeconds()))
+                .maxLifeTime(Duration.ofSeconds(settings.getMaxLifeTimeSeconds()))
+                .evictInBackground(Duration.ofSeconds(30))
+                .build();
+
+        reactor.netty.http.client.HttpClient client = reactor.netty.http.client.HttpClient.create(pool)
+                .keepAlive(settings.isKeepAlive())
+                .option(ChannelOption.SO_KEEPALIVE, settings.isKeepAlive())
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, settings.getConnectTimeoutMs());
+        // HTTP/2 is only offered through ALPN on TLS connections, a single connection then carries many requests
+        boolean http2 = settings.isHttp2() && secure;
+        if (http2)
+        {
+            client = client.protocol(HttpProtocol.H2, HttpProtocol.HTTP11).secure();
+        }
+        else if (settings.isHttp2())
+        {
+            Utils.writeWarningMessage("HTTP/2 needs TLS, the plain http endpoint is reached over HTTP/1.1");
+        }
+        if (settings.getIoThreads() > 0)
+        {
+            client = client.runOn(LoopResources.create("anf-http", settings.getIoThreads(), true));
+        }
+
+        Utils.writeConsoleMessage("HTTP client: " + maxConnections + " pooled connection(s), keep-alive " + (settings.isKeepAlive() ? "on" : "off")
+                + ", " + (http2 ? "HTTP/2 with HTTP/1.1 fallback" : "HTTP/1.1") + ", "
+                + (settings.getIoThreads() > 0 ? settings.getIoThreads() + " I/O thread(s)" : "default I/O threads"));
+        return new NettyAsyncHttpClientBuilder(client).build();
+    }
+
+    /**
+     * Gets the throttling policy shared by every manager, creating it on first use
+     * @param settings Request rates per subscription, only used when the policy is created
+     * @return Shared throttling policy
+     */
+    public static synchronized ArmThrottlingPolicy getThrottlingPolicy(ModelThrottlingSettings settings)
+    {
+        if (throttlingPolicy == null)
+        {
+            throttlingPolicy = new ArmThrottlingPolicy(settings);
+        }
+
+        return throttlingPolicy;
+    }
+
+    /**
+     * Gets the throttling policy shared by every manager
+     * @return Shared throttling policy, null if no manager was created with throttling enabled
+     */
+    public static synchronized ArmThrottlingPolicy getThrottlingPolicy()
+    {
+        return throttlingPolicy;
+    }
+}
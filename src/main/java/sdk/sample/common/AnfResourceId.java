@@ -0,0 +1,291 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.common;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Parsed Azure NetApp Files resource id. The id is tokenized once, segment names are matched ignoring case as ARM does,
+// and parsed ids are interned so that the sweeps of Cleanup, which look at the same ids several times, parse each of
+// them only once.
+public final class AnfResourceId
+{
+    private static final String SUBSCRIPTIONS = "subscriptions";
+    private static final String RESOURCE_GROUPS = "resourceGroups";
+    private static final String ACCOUNTS = "netAppAccounts";
+    private static final String CAPACITY_POOLS = "capacityPools";
+    private static final String VOLUMES = "volumes";
+    private static final String SNAPSHOTS = "snapshots";
+    private static final String PROVIDER = "/providers/Microsoft.NetApp";
+
+    // Resource types of the Microsoft.NetApp namespace, from the top of the hierarchy
+    private static final String[] TYPES = {ACCOUNTS, CAPACITY_POOLS, VOLUMES, SNAPSHOTS};
+
+    // Upper bound of the interning cache, it is emptied once reached so that long sweeps cannot grow it unbounded
+    private static final int MAX_CACHED_IDS = 8192;
+
+    private static final Map<String, AnfResourceId> CACHE = new ConcurrentHashMap<>();
+
+    // Resource id as returned by the Resource Provider
+    private final String id;
+
+    // Hash of the id ignoring case, ids differing only by case identify the same resource
+    private final int hash;
+
+    private String subscriptionId;
+    private String resourceGroup;
+    private String accountName;
+    private String capacityPoolName;
+    private String volumeName;
+    private String snapshotName;
+
+    private AnfResourceId(String id)
+    {
+        this.id = id;
+
+        int h = 0;
+        for (int i = 0; i < id.length(); i++)
+        {
+            h = 31 * h + Character.toLowerCase(id.charAt(i));
+        }
+        this.hash = h;
+    }
+
+    /**
+     * Parses a resource id, reusing the instance parsed earlier for the same id
+     * @param resourceId Resource id, e.g. /subscriptions/{s}/resourceGroups/{rg}/providers/Microsoft.NetApp/netAppAccounts/{a}
+     * @return Parsed resource id, null if the id is null or blank
+     */
+    public static AnfResourceId parse(String resourceId)
+    {
+        if (resourceId == null || resourceId.isBlank())
+        {
+            return null;
+        }
+
+        AnfResourceId cached = CACHE.get(resourceId);
+        if (cached != null)
+        {
+            return cached;
+        }
+
+        AnfResourceId parsed = new AnfResourceId(resourceId);
+        parsed.tokenize();
+
+        if (CACHE.size() >= MAX_CACHED_IDS)
+        {
+            CACHE.clear();
+        }
+        CACHE.put(resourceId, parsed);
+
+        return parsed;
+    }
+
+    /**
+     * Builds the resource id of an Azure NetApp Files resource from its names
+     * @param subscriptionId Subscription id
+     * @param resourceGroup Resource group name
+     * @param names Account, capacity pool, volume and snapshot names, as deep as needed. No name gives the resource group.
+     * @return Parsed resource id
+     */
+    public static AnfResourceId of(String subscriptionId, String resourceGroup, String... names)
+    {
+        if (names.length > TYPES.length)
+        {
+            throw new IllegalArgumentException("Azure NetApp Files resource ids have at most " + TYPES.length + " names after the resource group");
+        }
+
+        StringBuilder id = new StringBuilder(160)
+                .append('/').append(SUBSCRIPTIONS).append('/').append(subscriptionId)
+                .append('/').append(RESOURCE_GROUPS).append('/').append(resourceGroup);
+        if (names.length > 0)
+        {
+            id.append(PROVIDER);
+        }
+        for (int i = 0; i < names.length; i++)
+        {
+            id.append('/').append(TYPES[i]).append('/').append(names[i]);
+        }
+
+        return parse(id.toString());
+    }
+
+    /**
+     * Finds the value following a segment of a resource id in a single pass, without parsing the whole id
+     * @param resourceId Resource id or partial resource id
+     * @param segment Segment name, e.g. "capacityPools", matched ignoring case. A leading "/" is ignored.
+     * @return Value of the segment, null if the segment is missing or has no value
+     */
+    public static String findValue(String resourceId, String segment)
+    {
+        if (resourceId == null || segment == null)
+        {
+            return null;
+        }
+
+        int segmentStart = segment.startsWith("/") ? 1 : 0;
+        int segmentLength = segment.length() - segmentStart;
+
+        int position = 0;
+        while (position < resourceId.length())
+        {
+            int keyStart = skipSlashes(resourceId, position);
+            int keyEnd = nextSlash(resourceId, keyStart);
+            int valueStart = skipSlashes(resourceId, keyEnd);
+            int valueEnd = nextSlash(resourceId, valueStart);
+
+            if (keyEnd - keyStart == segmentLength && resourceId.regionMatches(true, keyStart, segment, segmentStart, segmentLength))
+            {
+                return valueEnd > valueStart ? resourceId.substring(valueStart, valueEnd) : null;
+            }
+
+            position = valueEnd;
+        }
+
+        return null;
+    }
+
+    /**
+     * Walks the key/value pairs of the id once. The provider namespace is a single segment, after it the segments
+     * alternate between resource type and resource name.
+     */
+    private void tokenize()
+    {
+        int position = 0;
+        while (position < id.length())
+        {
+            int keyStart = skipSlashes(id, position);
+            int keyEnd = nextSlash(id, keyStart);
+            int valueStart = skipSlashes(id, keyEnd);
+            int valueEnd = nextSlash(id, valueStart);
+
+            if (valueEnd > valueStart)
+            {
+                if (matches(keyStart, keyEnd, SUBSCRIPTIONS))
+                {
+                    subscriptionId = id.substring(valueStart, valueEnd);
+                }
+                else if (matches(keyStart, keyEnd, RESOURCE_GROUPS))
+                {
+                    resourceGroup = id.substring(valueStart, valueEnd);
+                }
+                else if (matches(keyStart, keyEnd, ACCOUNTS))
+                {
+                    accountName = id.substring(valueStart, valueEnd);
+                }
+                else if (matches(keyStart, keyEnd, CAPACITY_POOLS))
+                {
+                    capacityPoolName = id.substring(valueStart, valueEnd);
+                }
+                else if (matches(keyStart, keyEnd, VOLUMES))
+                {
+                    volumeName = id.substring(valueStart, valueEnd);
+                }
+                else if (matches(keyStart, keyEnd, SNAPSHOTS))
+                {
+                    snapshotName = id.substring(valueStart, valueEnd);
+                }
+                // "providers" is followed by the namespace, e.g. Microsoft.NetApp, and needs no special handling
+            }
+
+            position = valueEnd;
+        }
+    }
+
+    private boolean matches(int start, int end, String segment)
+    {
+        return end - start == segment.length() && id.regionMatches(true, start, segment, 0, segment.length());
+    }
+
+    private static int skipSlashes(String value, int position)
+    {
+        while (position < value.length() && value.charAt(position) == '/')
+        {
+            position++;
+        }
+
+        return position;
+    }
+
+    private static int nextSlash(String value, int position)
+    {
+        int slash = value.indexOf('/', position);
+        return slash == -1 ? value.length() : slash;
+    }
+
+    /**
+     * Gets the resource id of the parent: the resource group for an account, the account for a capacity pool, and so on
+     * @return Parent resource id, null for an id without any Azure NetApp Files resource
+     */
+    public AnfResourceId getParent()
+    {
+        if (accountName == null)
+        {
+            return null;
+        }
+
+        String[] names = {accountName, capacityPoolName, volumeName, snapshotName};
+        int depth = 0;
+        while (depth < names.length && names[depth] != null)
+        {
+            depth++;
+        }
+
+        return of(subscriptionId, resourceGroup, Arrays.copyOf(names, depth - 1));
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o)
+        {
+            return true;
+        }
+
+        return o instanceof AnfResourceId && hash == ((AnfResourceId) o).hash && id.equalsIgnoreCase(((AnfResourceId) o).id);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return hash;
+    }
+
+    @Override
+    public String toString()
+    {
+        return id;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getSubscriptionId() {
+        return subscriptionId;
+    }
+
+    public String getResourceGroup() {
+        return resourceGroup;
+    }
+
+    public String getAccountName() {
+        return accountName;
+    }
+
+    public String getCapacityPoolName() {
+        return capacityPoolName;
+    }
+
+    public String getVolumeName() {
+        return volumeName;
+    }
+
+    public String getSnapshotName() {
+        return snapshotName;
+    }
+}
@@ -0,0 +1,173 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.common;
+
+import com.azure.core.http.rest.PagedIterable;
+import com.azure.resourcemanager.netapp.fluent.NetAppManagementClient;
+import com.azure.resourcemanager.netapp.fluent.models.CapacityPoolInner;
+import com.azure.resourcemanager.netapp.fluent.models.NetAppAccountInner;
+import com.azure.resourcemanager.netapp.fluent.models.SnapshotInner;
+import com.azure.resourcemanager.netapp.fluent.models.VolumeInner;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Azure NetApp Files resource types, each one knowing how to get and list its resources with the management client.
+// Replaces the dispatch on class names so that lookups are typed end to end.
+public final class AnfResourceType<T>
+{
+    public static final AnfResourceType<NetAppAccountInner> ACCOUNT = new AnfResourceType<>("Account", 0, NetAppAccountInner.class, NetAppAccountInner::id,
+            (client, id) -> client.getAccounts().getByResourceGroup(id.getResourceGroup(), id.getAccountName()),
+            (client, parent) -> client.getAccounts().listByResourceGroup(parent.getResourceGroup()));
+
+    public static final AnfResourceType<CapacityPoolInner> CAPACITY_POOL = new AnfResourceType<>("Capacity Pool", 1, CapacityPoolInner.class, CapacityPoolInner::id,
+            (client, id) -> client.getPools().get(id.getResourceGroup(), id.getAccountName(), id.getCapacityPoolName()),
+            (client, parent) -> client.getPools().list(parent.getResourceGroup(), parent.getAccountName()));
+
+    public static final AnfResourceType<VolumeInner> VOLUME = new AnfResourceType<>("Volume", 2, VolumeInner.class, VolumeInner::id,
+            (client, id) -> client.getVolumes().get(id.getResourceGroup(), id.getAccountName(), id.getCapacityPoolName(), id.getVolumeName()),
+            (client, parent) -> client.getVolumes().list(parent.getResourceGroup(), parent.getAccountName(), parent.getCapacityPoolName()));
+
+    public static final AnfResourceType<SnapshotInner> SNAPSHOT = new AnfResourceType<>("Snapshot", 3, SnapshotInner.class, SnapshotInner::id,
+            (client, id) -> client.getSnapshots().get(id.getResourceGroup(), id.getAccountName(), id.getCapacityPoolName(), id.getVolumeName(), id.getSnapshotName()),
+            (client, parent) -> client.getSnapshots().list(parent.getResourceGroup(), parent.getAccountName(), parent.getCapacityPoolName(), parent.getVolumeName()));
+
+    private static final AnfResourceType<?>[] ALL = {ACCOUNT, CAPACITY_POOL, VOLUME, SNAPSHOT};
+
+    private final String displayName;
+
+    // Depth in the resource hierarchy, 0 for accounts
+    private final int level;
+    private final Class<T> modelClass;
+    private final Function<T, String> idGetter;
+    private final BiFunction<NetAppManagementClient, AnfResourceId, T> getter;
+    private final BiFunction<NetAppManagementClient, AnfResourceId, PagedIterable<T>> lister;
+
+    private AnfResourceType(String displayName, int level, Class<T> modelClass, Function<T, String> idGetter,
+                            BiFunction<NetAppManagementClient, AnfResourceId, T> getter,
+                            BiFunction<NetAppManagementClient, AnfResourceId, PagedIterable<T>> lister)
+    {
+        this.displayName = displayName;
+        this.level = level;
+        this.modelClass = modelClass;
+        this.idGetter = idGetter;
+        this.getter = getter;
+        this.lister = lister;
+    }
+
+    /**
+     * Returns the resource type of a management client model class
+     * @param clazz Valid class types: NetAppAccountInner, CapacityPoolInner, VolumeInner, SnapshotInner
+     * @return Resource type of the class
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> AnfResourceType<T> forClass(Class<T> clazz)
+    {
+        for (AnfResourceType<?> type : ALL)
+        {
+            if (type.modelClass == clazz)
+            {
+                return (AnfResourceType<T>) type;
+            }
+        }
+
+        throw new IllegalArgumentException("Unsupported Azure NetApp Files resource class: " + clazz.getName());
+    }
+
+    /**
+     * Returns the resource type of a resource returned by the management client
+     * @param resource Resource, e.g. a VolumeInner
+     * @return Resource type, null if the object is not an Azure NetApp Files resource
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> AnfResourceType<T> ofResource(T resource)
+    {
+        for (AnfResourceType<?> type : ALL)
+        {
+            if (type.modelClass.isInstance(resource))
+            {
+                return (AnfResourceType<T>) type;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the type of the resource a resource id points to
+     * @param id Parsed resource id
+     * @return Resource type, null if the id does not point to an Azure NetApp Files resource
+     */
+    public static AnfResourceType<?> of(AnfResourceId id)
+    {
+        if (id.getSnapshotName() != null)
+        {
+            return SNAPSHOT;
+        }
+        if (id.getVolumeName() != null)
+        {
+            return VOLUME;
+        }
+        if (id.getCapacityPoolName() != null)
+        {
+            return CAPACITY_POOL;
+        }
+        if (id.getAccountName() != null)
+        {
+            return ACCOUNT;
+        }
+
+        return null;
+    }
+
+    /**
+     * Gets the resource id of a resource of this type
+     * @param resource Resource returned by the management client
+     * @return Resource id
+     */
+    public String idOf(T resource)
+    {
+        return idGetter.apply(resource);
+    }
+
+    /**
+     * Gets a resource from the Resource Provider, without any caching
+     * @param anfClient Azure NetApp Files Management Client
+     * @param id Resource id of the resource
+     * @return Resource, a ManagementException with status 404 is thrown if it does not exist
+     */
+    public T get(NetAppManagementClient anfClient, AnfResourceId id)
+    {
+        return getter.apply(anfClient, id);
+    }
+
+    /**
+     * Lists the resources of this type under a parent, without any caching
+     * @param anfClient Azure NetApp Files Management Client
+     * @param parent Resource id of the parent: resource group for accounts, account for capacity pools, and so on
+     * @return Every resource of this type under the parent
+     */
+    public List<T> list(NetAppManagementClient anfClient, AnfResourceId parent)
+    {
+        return lister.apply(anfClient, parent).stream().collect(Collectors.toList());
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public Class<T> getModelClass() {
+        return modelClass;
+    }
+
+    @Override
+    public String toString()
+    {
+        return displayName;
+    }
+}
@@ -0,0 +1,314 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.common;
+
+import com.azure.core.http.HttpMethod;
+import com.azure.core.http.HttpPipelineCallContext;
+import com.azure.core.http.HttpPipelineNextPolicy;
+import com.azure.core.http.HttpPipelinePosition;
+import com.azure.core.http.HttpResponse;
+import com.azure.core.http.policy.HttpPipelinePolicy;
+import reactor.core.publisher.Mono;
+import sdk.sample.model.ModelThrottlingSettings;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+// HTTP pipeline policy pacing the requests of every management client sharing it to the ARM request limits.
+// Each subscription gets a token bucket for reads, writes and deletes, as ARM counts them separately. A request takes
+// a token before being sent and waits, without blocking a thread, when the bucket is empty. Buckets are kept in line
+// with ARM by the x-ms-ratelimit-remaining-subscription-* response headers, and a 429 Too Many Requests pauses the
+// bucket for the Retry-After delay, so that concurrent workers back off together instead of each one being throttled.
+public class ArmThrottlingPolicy implements HttpPipelinePolicy
+{
+    private static final String REMAINING_READS = "x-ms-ratelimit-remaining-subscription-reads";
+    private static final String REMAINING_WRITES = "x-ms-ratelimit-remaining-subscription-writes";
+    private static final String REMAINING_DELETES = "x-ms-ratelimit-remaining-subscription-deletes";
+    private static final String RETRY_AFTER_MS = "x-ms-retry-after-ms";
+    private static final String RETRY_AFTER = "Retry-After";
+
+    // Pause applied on a 429 without any Retry-After header
+    private static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(10);
+
+    private final ModelThrottlingSettings settings;
+
+    // Request budgets keyed by subscription id, "" for requests outside of any subscription
+    private final Map<String, SubscriptionBudget> budgets = new ConcurrentHashMap<>();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder pacedRequests = new LongAdder();
+    private final LongAdder pacedNanos = new LongAdder();
+    private final LongAdder throttledResponses = new LongAdder();
+
+    /**
+     * Creates a policy, usually shared by every management client through AnfClientFactory
+     * @param settings Request rates per subscription
+     */
+    public ArmThrottlingPolicy(ModelThrottlingSettings settings)
+    {
+        this.settings = settings;
+    }
+
+    @Override
+    public Mono<HttpResponse> process(HttpPipelineCallContext context, HttpPipelineNextPolicy next)
+    {
+        HttpMethod method = context.getHttpRequest().getHttpMethod();
+        String subscriptionId = AnfResourceId.findValue(context.getHttpRequest().getUrl().getPath(), "subscriptions");
+        SubscriptionBudget budget = budgets.computeIfAbsent(subscriptionId != null ? subscriptionId : "", key -> new SubscriptionBudget(settings));
+        TokenBucket bucket = budget.forMethod(method);
+
+        requests.increment();
+        long waitNanos = bucket.reserve();
+
+        // The reservation is returned once, by the response or else when the attempt fails or is cancelled
+        AtomicBoolean reserved = new AtomicBoolean(true);
+        Runnable release = () -> {
+            if (reserved.compareAndSet(true, false))
+            {
+                bucket.release();
+            }
+        };
+        Mono<HttpResponse> send = Mono.defer(next::process).doOnNext(response -> {
+            release.run();
+            observe(response, budget, bucket);
+        });
+        if (waitNanos <= 0)
+        {
+            return send.doFinally(signal -> release.run());
+        }
+
+        pacedRequests.increment();
+        pacedNanos.add(waitNanos);
+        return Mono.delay(Duration.ofNanos(waitNanos)).then(afterPause(bucket, send)).doFinally(signal -> release.run());
+    }
+
+    /**
+     * Sends a delayed request, waiting further if a 429 paused its bucket while it was waiting
+     */
+    private Mono<HttpResponse> afterPause(TokenBucket bucket, Mono<HttpResponse> send)
+    {
+        return Mono.defer(() -> {
+            long pauseNanos = bucket.remainingPause();
+            if (pauseNanos <= 0)
+            {
+                return send;
+            }
+
+            pacedNanos.add(pauseNanos);
+            return Mono.delay(Duration.ofNanos(pauseNanos)).then(afterPause(bucket, send));
+        });
+    }
+
+    /**
+     * Runs once per attempt, after the retry policy, so that retried requests are paced as well
+     */
+    @Override
+    public HttpPipelinePosition getPipelinePosition()
+    {
+        return HttpPipelinePosition.PER_RETRY;
+    }
+
+    private void observe(HttpResponse response, SubscriptionBudget budget, TokenBucket bucket)
+    {
+        budget.reads.observeRemaining(response.getHeaderValue(REMAINING_READS));
+        budget.writes.observeRemaining(response.getHeaderValue(REMAINING_WRITES));
+        budget.deletes.observeRemaining(response.getHeaderValue(REMAINING_DELETES));
+
+        if (response.getStatusCode() == 429)
+        {
+            throttledResponses.increment();
+            bucket.pause(retryAfter(response));
+        }
+    }
+
+    /**
+     * Reads the delay requested by ARM, given in milliseconds, in seconds or as an HTTP date
+     */
+    private static Duration retryAfter(HttpResponse response)
+    {
+        try
+        {
+            String milliseconds = response.getHeaderValue(RETRY_AFTER_MS);
+            if (milliseconds != null)
+            {
+                return Duration.ofMillis(Long.parseLong(milliseconds.trim()));
+            }
+
+            String retryAfter = response.getHeaderValue(RETRY_AFTER);
+            if (retryAfter != null)
+            {
+                retryAfter = retryAfter.trim();
+                if (!retryAfter.isEmpty() && Character.isDigit(retryAfter.charAt(0)))
+                {
+                    return Duration.ofSeconds(Long.parseLong(retryAfter));
+                }
+                return Duration.between(ZonedDateTime.now(), ZonedDateTime.parse(retryAfter, DateTimeFormatter.RFC_1123_DATE_TIME));
+            }
+        }
+        catch (NumberFormatException | DateTimeParseException e)
+        {
+            Utils.writeWarningMessage("Ignoring invalid Retry-After header: " + e.getMessage());
+        }
+
+        return DEFAULT_RETRY_AFTER;
+    }
+
+    /**
+     * Writes how many requests were delayed to stay within the request limits
+     */
+    public void writeSummary()
+    {
+        Utils.writeConsoleMessage("ARM throttling: " + pacedRequests.sum() + " of " + requests.sum() + " request(s) paced for a total of "
+                + pacedNanos.sum() / 1_000_000 + "ms, " + throttledResponses.sum() + " throttled (429) response(s)");
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getPacedRequests() {
+        return pacedRequests.sum();
+    }
+
+    public long getThrottledResponses() {
+        return throttledResponses.sum();
+    }
+
+    /**
+     * Read, write and delete buckets of a single subscription
+     */
+    private static final class SubscriptionBudget
+    {
+        private final TokenBucket reads;
+        private final TokenBucket writes;
+        private final TokenBucket deletes;
+
+        SubscriptionBudget(ModelThrottlingSettings settings)
+        {
+            reads = new TokenBucket(settings.getReadBurst(), settings.getReadsPerSecond());
+            writes = new TokenBucket(settings.getWriteBurst(), settings.getWritesPerSecond());
+            deletes = new TokenBucket(settings.getDeleteBurst(), settings.getDeletesPerSecond());
+        }
+
+        TokenBucket forMethod(HttpMethod method)
+        {
+            if (method == HttpMethod.GET || method == HttpMethod.HEAD)
+            {
+                return reads;
+            }
+            return method == HttpMethod.DELETE ? deletes : writes;
+        }
+    }
+
+    /**
+     * Token bucket handing out reservations: tokens may go negative, each request then waits for the tokens reserved
+     * before its own to be refilled, which sends queued requests in order and at the refill rate
+     */
+    private static final class TokenBucket
+    {
+        private final double capacity;
+        private final double tokensPerNano;
+
+        private double tokens;
+        private long updatedNanos;
+
+        // Time before which no request is sent, set by a 429 response
+        private long pausedUntilNanos;
+
+        // Requests holding a token but not answered yet, which ARM has not counted in its remaining requests
+        private long outstanding;
+
+        TokenBucket(int capacity, double tokensPerSecond)
+        {
+            this.capacity = Math.max(1, capacity);
+            this.tokensPerNano = Math.max(0.001, tokensPerSecond) / 1_000_000_000.0;
+            this.tokens = this.capacity;
+            this.updatedNanos = System.nanoTime();
+            this.pausedUntilNanos = updatedNanos;
+        }
+
+        /**
+         * Takes a token
+         * @return Time in nanoseconds to wait before sending the request, 0 or less to send it now
+         */
+        synchronized long reserve()
+        {
+            long now = refill();
+            tokens -= 1;
+            outstanding++;
+
+            long wait = pausedUntilNanos - now;
+            if (tokens < 0)
+            {
+                wait = Math.max(wait, (long) (-tokens / tokensPerNano));
+            }
+            return wait;
+        }
+
+        /**
+         * Returns the reservation of a request once it was answered or abandoned
+         */
+        synchronized void release()
+        {
+            outstanding--;
+        }
+
+        /**
+         * @return Time in nanoseconds until the bucket is no longer paused, 0 or less if it is not
+         */
+        synchronized long remainingPause()
+        {
+            return pausedUntilNanos - System.nanoTime();
+        }
+
+        /**
+         * Lowers the available tokens to the requests ARM still accepts, the budget being shared with other clients
+         * of the same identity. Requests not answered yet already took their token but will still count against ARM,
+         * so they are deducted from the remaining requests as well.
+         */
+        synchronized void observeRemaining(String remaining)
+        {
+            if (remaining == null)
+            {
+                return;
+            }
+
+            try
+            {
+                refill();
+                tokens = Math.min(tokens, Long.parseLong(remaining.trim()) - outstanding);
+            }
+            catch (NumberFormatException e)
+            {
+                // ARM always sends a number, anything else is ignored
+            }
+        }
+
+        /**
+         * Stops sending requests for the given delay, tokens reserved so far are dropped
+         */
+        synchronized void pause(Duration delay)
+        {
+            long now = refill();
+            pausedUntilNanos = Math.max(pausedUntilNanos, now + delay.toNanos());
+            tokens = Math.min(tokens, 0);
+        }
+
+        private long refill()
+        {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - updatedNanos) * tokensPerNano);
+            updatedNanos = now;
+            return now;
+        }
+    }
+}
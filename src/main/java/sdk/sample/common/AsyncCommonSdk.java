@@ -0,0 +1,157 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.common;
+
+import com.azure.core.management.exception.ManagementException;
+import com.azure.resourcemanager.netapp.fluent.NetAppManagementClient;
+import com.azure.resourcemanager.netapp.fluent.models.CapacityPoolInner;
+import com.azure.resourcemanager.netapp.fluent.models.NetAppAccountInner;
+import com.azure.resourcemanager.netapp.fluent.models.VolumeInner;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import sdk.sample.model.ModelCapacityPool;
+import sdk.sample.model.ModelNetAppAccount;
+import sdk.sample.model.ModelVolume;
+
+import java.util.function.Supplier;
+
+// Contains public non-blocking counterparts of CommonSdk methods. Nothing happens until the returned Mono/Flux is
+// subscribed, and no thread is parked while a request or a long-running operation is in progress. Created resources
+// are journaled and cached as with CommonSdk, errors are logged and then propagated to the subscriber.
+public class AsyncCommonSdk
+{
+    /**
+     * Creates or updates a volume
+     * @param anfClient Azure NetApp Files Management Client
+     * @param resourceGroup Resource Group name where volume will be created
+     * @param account ModelNetAppAccount object that describes the ANF Account, populated with data from appsettings.json
+     * @param pool ModelCapacityPool object that describes the Capacity Pool, populated with data from appsettings.json
+     * @param volume ModelVolume object that describes the Volume to be created, populated with data from appsettings.json
+     * @return Mono emitting the newly created Volume once the long-running operation completes
+     */
+    public static Mono<VolumeInner> createOrUpdateVolume(NetAppManagementClient anfClient, String resourceGroup, ModelNetAppAccount account, ModelCapacityPool pool, ModelVolume volume)
+    {
+        AnfResourceId id = AnfResourceId.of(anfClient.getSubscriptionId(), resourceGroup, account.getName(), pool.getName(), volume.getName());
+        return runOperation(AnfResourceType.VOLUME, "create", id, () -> anfClient.getVolumes().createOrUpdateAsync(resourceGroup, account.getName(),
+                pool.getName(), volume.getName(), CommonSdk.buildVolumeBody(account, pool, volume)));
+    }
+
+    /**
+     * Creates or updates an Azure NetApp Files Account
+     * @param anfClient Azure NetApp Files Management Client
+     * @param resourceGroup Resource Group name where the ANF Account will be created
+     * @param account ModelNetAppAccount object that describes the ANF Account to be created, populated with data from appsettings.json
+     * @return Mono emitting the newly created Account once the long-running operation completes
+     */
+    public static Mono<NetAppAccountInner> createOrUpdateAccount(NetAppManagementClient anfClient, String resourceGroup, ModelNetAppAccount account)
+    {
+        AnfResourceId id = AnfResourceId.of(anfClient.getSubscriptionId(), resourceGroup, account.getName());
+        return runOperation(AnfResourceType.ACCOUNT, "create", id, () -> anfClient.getAccounts().createOrUpdateAsync(resourceGroup, account.getName(),
+                CommonSdk.buildAccountBody(account)));
+    }
+
+    /**
+     * Creates or updates a Capacity Pool
+     * @param anfClient Azure NetApp Files Management Client
+     * @param resourceGroup Resource Group name where the Capacity Pool will be created
+     * @param accountName Name of the ANF Account this Capacity Pool will be associated with
+     * @param location Location of the ANF Account this Capacity Pool will be associated with
+     * @param pool ModelCapacityPool object that describes the Capacity Pool to be created, populated with data from appsettings.json
+     * @return Mono emitting the newly created Capacity Pool once the long-running operation completes
+     */
+    public static Mono<CapacityPoolInner> createOrUpdateCapacityPool(NetAppManagementClient anfClient, String resourceGroup, String accountName, String location, ModelCapacityPool pool)
+    {
+        AnfResourceId id = AnfResourceId.of(anfClient.getSubscriptionId(), resourceGroup, accountName, pool.getName());
+        return runOperation(AnfResourceType.CAPACITY_POOL, "create", id, () -> anfClient.getPools().createOrUpdateAsync(resourceGroup, accountName,
+                pool.getName(), CommonSdk.buildCapacityPoolBody(location, pool)));
+    }
+
+    /**
+     * Returns an ANF resource from the Resource Provider, bypassing the resource cache
+     * @param anfClient Azure NetApp Files Management Client
+     * @param type Type of the resource
+     * @param id Resource id of the resource
+     * @return Mono emitting the resource, empty if it does not exist. Any other error is propagated.
+     */
+    public static <T> Mono<T> getResource(NetAppManagementClient anfClient, AnfResourceType<T> type, AnfResourceId id)
+    {
+        return Mono.defer(() -> {
+            Mono<?> resource;
+            if (type == AnfResourceType.SNAPSHOT)
+            {
+                resource = anfClient.getSnapshots().getAsync(id.getResourceGroup(), id.getAccountName(), id.getCapacityPoolName(), id.getVolumeName(), id.getSnapshotName());
+            }
+            else if (type == AnfResourceType.VOLUME)
+            {
+                resource = anfClient.getVolumes().getAsync(id.getResourceGroup(), id.getAccountName(), id.getCapacityPoolName(), id.getVolumeName());
+            }
+            else if (type == AnfResourceType.CAPACITY_POOL)
+            {
+                resource = anfClient.getPools().getAsync(id.getResourceGroup(), id.getAccountName(), id.getCapacityPoolName());
+            }
+            else
+            {
+                resource = anfClient.getAccounts().getByResourceGroupAsync(id.getResourceGroup(), id.getAccountName());
+            }
+
+            return resource.map(type.getModelClass()::cast);
+        })
+                .onErrorResume(e -> e instanceof ManagementException && ResourcePoller.isNotFound((ManagementException) e), e -> Mono.empty())
+                .doOnError(e -> Utils.writeErrorMessage("Error finding resource " + id + " - " + e.getMessage()));
+    }
+
+    /**
+     * Returns all ANF resources of a type under the given parent, fetching further pages on demand
+     * @param anfClient Azure NetApp Files Management Client
+     * @param type Type of the resources
+     * @param parent Resource id of the parent: resource group for accounts, account for capacity pools, and so on
+     * @return Flux of the resources found under the parent
+     */
+    public static <T> Flux<T> listResource(NetAppManagementClient anfClient, AnfResourceType<T> type, AnfResourceId parent)
+    {
+        return Flux.defer(() -> {
+            Flux<?> resources;
+            if (type == AnfResourceType.SNAPSHOT)
+            {
+                resources = anfClient.getSnapshots().listAsync(parent.getResourceGroup(), parent.getAccountName(), parent.getCapacityPoolName(), parent.getVolumeName());
+            }
+            else if (type == AnfResourceType.VOLUME)
+            {
+                resources = anfClient.getVolumes().listAsync(parent.getResourceGroup(), parent.getAccountName(), parent.getCapacityPoolName());
+            }
+            else if (type == AnfResourceType.CAPACITY_POOL)
+            {
+                resources = anfClient.getPools().listAsync(parent.getResourceGroup(), parent.getAccountName());
+            }
+            else
+            {
+                resources = anfClient.getAccounts().listByResourceGroupAsync(parent.getResourceGroup());
+            }
+
+            return resources.map(type.getModelClass()::cast);
+        })
+                .doOnError(e -> Utils.writeErrorMessage("Error listing resource - " + e.getMessage()));
+    }
+
+    /**
+     * Reactive counterpart of CommonSdk.runOperation: records the operation in the OperationJournal of the run when it
+     * is subscribed and caches its result once it completes
+     */
+    private static <T> Mono<T> runOperation(AnfResourceType<?> type, String operation, AnfResourceId id, Supplier<Mono<T>> call)
+    {
+        return Mono.defer(() -> {
+            OperationJournal journal = OperationJournal.current();
+            journal.submitted(operation, id);
+            return call.get()
+                    .doOnNext(CommonSdk::cacheResource)
+                    .doOnSuccess(result -> journal.completed(operation, id))
+                    .doOnError(e -> {
+                        journal.failed(operation, id);
+                        Utils.writeErrorMessage("An error occurred while running " + type + " " + operation + " of " + id + "\nError message: " + e.getMessage());
+                    });
+        });
+    }
+}
@@ -0,0 +1,276 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.common;
+
+import com.google.gson.JsonObject;
+import sdk.sample.model.ModelLoggingSettings;
+
+import java.io.PrintStream;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+// Console logger used by the Utils.write* methods. Callers only capture the message, its time and thread, and publish
+// it to a lock-free ring buffer; a single background thread formats queued messages and writes them in batches, so
+// workers never contend on the console and lines from different threads are never interleaved. A full buffer makes
+// callers wait for room, messages are never dropped.
+public class AsyncLogger
+{
+    public enum Level
+    {
+        INFO(null),
+        SUCCESS("\033[0;32m"),
+        WARNING("\033[0;33m"),
+        ERROR("\033[0;31m");
+
+        private final String color;
+
+        Level(String color)
+        {
+            this.color = color;
+        }
+    }
+
+    private static final String RESET = "\033[0m";
+
+    // Number of messages the ring buffer holds, a power of two
+    private static final int CAPACITY = 8192;
+
+    // Longest time the writer sleeps when idle, it is woken up earlier when a message is published
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private static final DateTimeFormatter TEXT_TIME = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    private static final AsyncLogger INSTANCE = new AsyncLogger(System.out);
+
+    private final PrintStream out;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    // Ring buffer: a slot can be written when its sequence equals the claimed position, and read when it is one more
+    private final Message[] slots = new Message[CAPACITY];
+    private final AtomicLongArray sequences = new AtomicLongArray(CAPACITY);
+    private final AtomicLong tail = new AtomicLong();
+
+    // Position of the next message to read, only used by the writer thread
+    private long head;
+
+    // Number of messages written to the console, published by the writer thread after each batch
+    private final AtomicLong written = new AtomicLong();
+
+    private final Thread writer;
+    private volatile boolean idle;
+
+    private volatile boolean json;
+    private volatile boolean color;
+
+    private static final class Message
+    {
+        private final Level level;
+        private final long epochMillis;
+        private final String thread;
+        private final String text;
+
+        Message(Level level, long epochMillis, String thread, String text)
+        {
+            this.level = level;
+            this.epochMillis = epochMillis;
+            this.thread = thread;
+            this.text = text;
+        }
+    }
+
+    private AsyncLogger(PrintStream out)
+    {
+        this.out = out;
+        this.color = isTerminal();
+        for (int i = 0; i < CAPACITY; i++)
+        {
+            sequences.set(i, i);
+        }
+
+        writer = new Thread(this::writeLoop, "anf-logger");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(AsyncLogger::flush, "anf-logger-flush"));
+    }
+
+    /**
+     * Applies the logging settings of appsettings.json to the messages written from now on
+     * @param settings Output format and coloring
+     */
+    public static void configure(ModelLoggingSettings settings)
+    {
+        if (settings == null)
+        {
+            return;
+        }
+
+        INSTANCE.json = "json".equalsIgnoreCase(settings.getFormat());
+        if ("always".equalsIgnoreCase(settings.getColor()))
+        {
+            INSTANCE.color = true;
+        }
+        else if ("never".equalsIgnoreCase(settings.getColor()))
+        {
+            INSTANCE.color = false;
+        }
+        else
+        {
+            INSTANCE.color = isTerminal();
+        }
+    }
+
+    /**
+     * Queues a message, returning without waiting for it to be written
+     * @param level Severity, which selects the color of text output
+     * @param message Message to be written
+     */
+    public static void log(Level level, String message)
+    {
+        INSTANCE.publish(new Message(level, System.currentTimeMillis(), Thread.currentThread().getName(), message));
+    }
+
+    /**
+     * Waits until every message queued so far is written, e.g. before the process exits
+     */
+    public static void flush()
+    {
+        INSTANCE.awaitWritten(INSTANCE.tail.get(), TimeUnit.SECONDS.toNanos(5));
+    }
+
+    private void publish(Message message)
+    {
+        int spins = 0;
+        while (true)
+        {
+            long position = tail.get();
+            int index = (int) (position & (CAPACITY - 1));
+            long available = sequences.get(index) - position;
+            if (available == 0)
+            {
+                if (tail.compareAndSet(position, position + 1))
+                {
+                    slots[index] = message;
+                    sequences.set(index, position + 1);
+                    break;
+                }
+            }
+            else if (available < 0)
+            {
+                // Buffer full: wake the writer up and wait for it to make room
+                LockSupport.unpark(writer);
+                if (++spins < 100)
+                {
+                    Thread.onSpinWait();
+                }
+                else
+                {
+                    Thread.yield();
+                }
+            }
+        }
+
+        if (idle)
+        {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    private void writeLoop()
+    {
+        StringBuilder batch = new StringBuilder(16 * 1024);
+        while (true)
+        {
+            int count = 0;
+            Message message;
+            while (count < CAPACITY && (message = take()) != null)
+            {
+                format(message, batch);
+                count++;
+            }
+
+            if (count > 0)
+            {
+                out.print(batch);
+                out.flush();
+                batch.setLength(0);
+                written.addAndGet(count);
+                continue;
+            }
+
+            // Nothing to write: sleep unless a message was published while going idle
+            idle = true;
+            if (sequences.get((int) (head & (CAPACITY - 1))) != head + 1)
+            {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+            idle = false;
+        }
+    }
+
+    private Message take()
+    {
+        int index = (int) (head & (CAPACITY - 1));
+        if (sequences.get(index) != head + 1)
+        {
+            return null;
+        }
+
+        Message message = slots[index];
+        slots[index] = null;
+        sequences.lazySet(index, head + CAPACITY);
+        head++;
+        return message;
+    }
+
+    private void format(Message message, StringBuilder batch)
+    {
+        if (json)
+        {
+            JsonObject line = new JsonObject();
+            line.addProperty("time", Instant.ofEpochMilli(message.epochMillis).toString());
+            line.addProperty("level", message.level.name());
+            line.addProperty("thread", message.thread);
+            line.addProperty("message", message.text);
+            batch.append(line).append(System.lineSeparator());
+            return;
+        }
+
+        TEXT_TIME.formatTo(Instant.ofEpochMilli(message.epochMillis).atZone(zone), batch);
+        batch.append(' ');
+        if (color && message.level.color != null)
+        {
+            batch.append(message.level.color).append(message.text).append(RESET);
+        }
+        else
+        {
+            batch.append(message.text);
+        }
+        batch.append(System.lineSeparator());
+    }
+
+    private void awaitWritten(long target, long timeoutNanos)
+    {
+        long deadline = System.nanoTime() + timeoutNanos;
+        while (written.get() < target && System.nanoTime() < deadline && writer.isAlive())
+        {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    /**
+     * Colors are only written to terminals, and never when the NO_COLOR convention is followed
+     */
+    private static boolean isTerminal()
+    {
+        return System.console() != null && System.getenv("NO_COLOR") == null;
+    }
+}
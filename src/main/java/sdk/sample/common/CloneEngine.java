@@ -0,0 +1,169 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.common;
+
+import com.azure.resourcemanager.netapp.fluent.NetAppManagementClient;
+import com.azure.resourcemanager.netapp.fluent.models.SnapshotInner;
+import com.azure.resourcemanager.netapp.fluent.models.VolumeInner;
+import sdk.sample.model.ModelCloneSettings;
+import sdk.sample.model.ModelExecutionSettings;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+// Creates many volumes from a single snapshot, e.g. to spin up test environments. The properties of the snapshot's
+// volume are read once and copied into every clone, clones of the same capacity pool are created one after the other
+// since the Resource Provider serializes volume operations per pool, and pools are served concurrently.
+public class CloneEngine
+{
+    private static final String VOLUME_PLACEHOLDER = "{volume}";
+    private static final String SNAPSHOT_PLACEHOLDER = "{snapshot}";
+    private static final String INDEX_PLACEHOLDER = "{index}";
+
+    /**
+     * Creates the clones of a snapshot described by the clone settings
+     * @param anfClient Azure NetApp Files Management Client
+     * @param snapshot Snapshot the clones are created from
+     * @param clones Number, names and capacity pools of the clones
+     * @param settings Execution settings, which select the threads serving pools concurrently
+     * @return Created clones, in the order of their index
+     */
+    public static List<VolumeInner> createClones(NetAppManagementClient anfClient, SnapshotInner snapshot, ModelCloneSettings clones, ModelExecutionSettings settings)
+    {
+        int count = Math.max(0, clones.getCount());
+        if (count == 0)
+        {
+            return Collections.emptyList();
+        }
+
+        AnfResourceId snapshotId = AnfResourceId.parse(snapshot.id());
+        VolumeInner source = getSourceVolume(anfClient, snapshotId);
+        List<String> pools = clones.getCapacityPools() == null || clones.getCapacityPools().isEmpty()
+                ? List.of(snapshotId.getCapacityPoolName())
+                : clones.getCapacityPools();
+
+        Utils.writeConsoleMessage("Creating " + count + " volume(s) from snapshot " + snapshotId.getSnapshotName() + " across " + Math.min(count, pools.size()) + " capacity pool(s)...");
+
+        VolumeInner[] created = new VolumeInner[count];
+        Map<String, CompletableFuture<Void>> previousClone = new HashMap<>();
+        try (ProvisioningEngine engine = ProvisioningEngine.forSettings(settings))
+        {
+            for (int index = 1; index <= count; index++)
+            {
+                int slot = index - 1;
+                String poolName = pools.get(slot % pools.size());
+                AnfResourceId cloneId = AnfResourceId.of(snapshotId.getSubscriptionId(), snapshotId.getResourceGroup(),
+                        snapshotId.getAccountName(), poolName, cloneName(clones, snapshotId, index, count));
+
+                CompletableFuture<Void> previous = previousClone.getOrDefault(poolName, CompletableFuture.completedFuture(null));
+                previousClone.put(poolName, engine.submit(() -> created[slot] = createClone(anfClient, snapshot, source, cloneId), previous));
+            }
+
+            engine.awaitCompletion();
+        }
+
+        List<VolumeInner> result = new ArrayList<>(count);
+        for (VolumeInner clone : created)
+        {
+            if (clone != null)
+            {
+                result.add(clone);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the volume of a snapshot once for every clone, through the resource cache which already holds it when the
+     * volume was created by this run
+     */
+    private static VolumeInner getSourceVolume(NetAppManagementClient anfClient, AnfResourceId snapshotId)
+    {
+        VolumeInner source;
+        try
+        {
+            source = CommonSdk.getResource(anfClient, AnfResourceType.VOLUME, snapshotId.getParent());
+        }
+        catch (Exception e)
+        {
+            Utils.writeErrorMessage("An error occurred trying to obtain information about volume " +
+                    snapshotId.getVolumeName() + " from snapshot " + snapshotId + "\nError message: " + e.getMessage());
+            throw e;
+        }
+
+        if (source == null)
+        {
+            Utils.writeErrorMessage("Volume " + snapshotId.getVolumeName() + " of snapshot " + snapshotId + " was not found");
+            throw new IllegalStateException("Volume " + snapshotId.getParent() + " not found");
+        }
+        return source;
+    }
+
+    /**
+     * Builds the name of a clone from the template
+     */
+    private static String cloneName(ModelCloneSettings clones, AnfResourceId snapshotId, int index, int count)
+    {
+        String template = clones.getNameTemplate() != null ? clones.getNameTemplate() : "Vol-" + SNAPSHOT_PLACEHOLDER;
+        if (count > 1 && !template.contains(INDEX_PLACEHOLDER))
+        {
+            template = template + "-" + INDEX_PLACEHOLDER;
+        }
+
+        return template
+                .replace(VOLUME_PLACEHOLDER, snapshotId.getVolumeName())
+                .replace(SNAPSHOT_PLACEHOLDER, snapshotId.getSnapshotName())
+                .replace(INDEX_PLACEHOLDER, Integer.toString(index));
+    }
+
+    /**
+     * Creates a single clone, skipped if an interrupted run already created it
+     */
+    private static VolumeInner createClone(NetAppManagementClient anfClient, SnapshotInner snapshot, VolumeInner source, AnfResourceId cloneId)
+    {
+        if (OperationJournal.current().isCompleted("create", cloneId))
+        {
+            Utils.writeConsoleMessage("Volume already created by a previous run, resource id: " + cloneId);
+            return null;
+        }
+
+        /*
+          Notice that SnapshotId is not the actual resource Id of the snapshot, this value is the unique identifier
+          (guid) of the snapshot, represented by the SnapshotId instead.
+         */
+        VolumeInner body = new VolumeInner()
+                .withSnapshotId(snapshot.snapshotId())
+                .withLocation(source.location())
+                .withProtocolTypes(source.protocolTypes())
+                .withServiceLevel(source.serviceLevel())
+                .withUsageThreshold(source.usageThreshold())
+                .withSubnetId(source.subnetId())
+                .withCreationToken(cloneId.getVolumeName());
+
+        try
+        {
+            VolumeInner clone = CommonSdk.runOperation(AnfResourceType.VOLUME, "create", cloneId, () -> anfClient.getVolumes().beginCreateOrUpdate(
+                    cloneId.getResourceGroup(),
+                    cloneId.getAccountName(),
+                    cloneId.getCapacityPoolName(),
+                    cloneId.getVolumeName(),
+                    body).getFinalResult());
+
+            CommonSdk.cacheResource(clone);
+            Utils.writeSuccessMessage("Volume successfully created from snapshot. Volume resource id: " + clone.id());
+            return clone;
+        }
+        catch (Exception e)
+        {
+            Utils.writeErrorMessage("An error occurred while creating a volume " + cloneId.getVolumeName() + " from snapshot " + snapshot.id() + ".\nError message: " + e.getMessage());
+            throw e;
+        }
+    }
+}
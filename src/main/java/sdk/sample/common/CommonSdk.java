@@ -5,30 +5,43 @@
 
 package sdk.sample.common;
 
+import com.azure.core.management.exception.ManagementException;
 import com.azure.resourcemanager.netapp.fluent.NetAppManagementClient;
 import com.azure.resourcemanager.netapp.fluent.models.CapacityPoolInner;
 import com.azure.resourcemanager.netapp.fluent.models.NetAppAccountInner;
 import com.azure.resourcemanager.netapp.fluent.models.SnapshotInner;
 import com.azure.resourcemanager.netapp.fluent.models.VolumeInner;
+import com.azure.resourcemanager.netapp.models.CapacityPoolPatch;
 import com.azure.resourcemanager.netapp.models.ExportPolicyRule;
+import com.azure.resourcemanager.netapp.models.QosType;
 import com.azure.resourcemanager.netapp.models.ServiceLevel;
+import com.azure.resourcemanager.netapp.models.VolumePatch;
 import com.azure.resourcemanager.netapp.models.VolumePropertiesExportPolicy;
+import io.opentelemetry.api.common.Attributes;
 import sdk.sample.model.ModelCapacityPool;
 import sdk.sample.model.ModelExportPolicyRule;
 import sdk.sample.model.ModelNetAppAccount;
 import sdk.sample.model.ModelVolume;
 
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.function.Supplier;
 
 // Contains public methods for SDK related operations
 public class CommonSdk
 {
+    // Time to live of cached resources until the execution settings are applied
+    private static final Duration DEFAULT_CACHE_TTL = Duration.ofSeconds(60);
+
+    // Resources looked up, created or updated by this process
+    private static volatile ResourceCache cache = new ResourceCache(DEFAULT_CACHE_TTL);
+
     /**
-     * Creates or updates a volume. In this process, notice that we need to create two mandatory objects, one as the
-     * export rule list and the volume body itself before we request the volume creation.
+     * Creates or updates a volume
      * @param anfClient Azure NetApp Files Management Client
      * @param resourceGroup Resource Group name where volume will be created
      * @param account ModelNetAppAccount object that describes the ANF Account, populated with data from appsettings.json
@@ -37,6 +50,172 @@ public class CommonSdk
      * @return Observable of the newly created Volume
      */
     public static VolumeInner createOrUpdateVolume(NetAppManagementClient anfClient, String resourceGroup, ModelNetAppAccount account, ModelCapacityPool pool, ModelVolume volume)
+    {
+        VolumeInner volumeInner = buildVolumeBody(account, pool, volume);
+
+        AnfResourceId id = AnfResourceId.of(anfClient.getSubscriptionId(), resourceGroup, account.getName(), pool.getName(), volume.getName());
+        VolumeInner result = runOperation(AnfResourceType.VOLUME, "create", id,
+                () -> anfClient.getVolumes().beginCreateOrUpdate(resourceGroup, account.getName(), pool.getName(), volume.getName(), volumeInner).getFinalResult());
+        cacheResource(result);
+
+        return result;
+    }
+
+    /**
+     * Creates or updates an Azure NetApp Files Account
+     * @param anfClient Azure NetApp Files Management Client
+     * @param resourceGroup Resource Group name where the ANF Account will be created
+     * @param account ModelNetAppAccount object that describes the ANF Account to be created, populated with data from appsettings.json
+     * @return Observable of the newly created Account
+     */
+    public static NetAppAccountInner createOrUpdateAccount(NetAppManagementClient anfClient, String resourceGroup, ModelNetAppAccount account)
+    {
+        NetAppAccountInner netAppAccount = buildAccountBody(account);
+
+        AnfResourceId id = AnfResourceId.of(anfClient.getSubscriptionId(), resourceGroup, account.getName());
+        NetAppAccountInner result = runOperation(AnfResourceType.ACCOUNT, "create", id,
+                () -> anfClient.getAccounts().beginCreateOrUpdate(resourceGroup, account.getName(), netAppAccount).getFinalResult());
+        cacheResource(result);
+
+        return result;
+    }
+
+    /**
+     * Creates or updates a Capacity Pool
+     * @param anfClient Azure NetApp Files Management Client
+     * @param resourceGroup Resource Group name where the Capacity Pool will be created
+     * @param accountName Name of the ANF Account this Capacity Pool will be associated with
+     * @param pool ModelCapacityPool object that describes the Capacity Pool to be created, populated with data from appsettings.json
+     * @return Observable of the newly created Capacity Pool
+     */
+    public static CapacityPoolInner createOrUpdateCapacityPool(NetAppManagementClient anfClient, String resourceGroup, String accountName, String location, ModelCapacityPool pool)
+    {
+        CapacityPoolInner capacityPool = buildCapacityPoolBody(location, pool);
+
+        AnfResourceId id = AnfResourceId.of(anfClient.getSubscriptionId(), resourceGroup, accountName, pool.getName());
+        CapacityPoolInner result = runOperation(AnfResourceType.CAPACITY_POOL, "create", id,
+                () -> anfClient.getPools().beginCreateOrUpdate(resourceGroup, accountName, pool.getName(), capacityPool).getFinalResult());
+        cacheResource(result);
+
+        return result;
+    }
+
+    /**
+     * Patches a Capacity Pool, only the fields set in the patch are changed
+     * @param anfClient Azure NetApp Files Management Client
+     * @param id Resource id of the Capacity Pool
+     * @param patch Changed fields
+     * @return Updated Capacity Pool
+     */
+    public static CapacityPoolInner updateCapacityPool(NetAppManagementClient anfClient, AnfResourceId id, CapacityPoolPatch patch)
+    {
+        CapacityPoolInner result = runOperation(AnfResourceType.CAPACITY_POOL, "update", id,
+                () -> anfClient.getPools().beginUpdate(id.getResourceGroup(), id.getAccountName(), id.getCapacityPoolName(), patch).getFinalResult());
+        cacheResource(result);
+
+        return result;
+    }
+
+    /**
+     * Patches a volume, only the fields set in the patch are changed
+     * @param anfClient Azure NetApp Files Management Client
+     * @param id Resource id of the volume
+     * @param patch Changed fields
+     * @return Updated volume
+     */
+    public static VolumeInner updateVolume(NetAppManagementClient anfClient, AnfResourceId id, VolumePatch patch)
+    {
+        VolumeInner result = runOperation(AnfResourceType.VOLUME, "update", id,
+                () -> anfClient.getVolumes().beginUpdate(id.getResourceGroup(), id.getAccountName(), id.getCapacityPoolName(), id.getVolumeName(), patch).getFinalResult());
+        cacheResource(result);
+
+        return result;
+    }
+
+    /**
+     * Deletes a resource and waits until the Resource Provider no longer returns it
+     * @param anfClient Azure NetApp Files Management Client
+     * @param type Type of the resource
+     * @param id Resource id of the resource
+     * @throws IllegalStateException if the resource is still returned once the polling policy of its type is exhausted
+     */
+    public static void deleteResource(NetAppManagementClient anfClient, AnfResourceType<?> type, AnfResourceId id)
+    {
+        runOperation(type, "delete", id, () -> {
+            if (type == AnfResourceType.SNAPSHOT)
+            {
+                anfClient.getSnapshots().beginDelete(id.getResourceGroup(), id.getAccountName(), id.getCapacityPoolName(), id.getVolumeName(), id.getSnapshotName()).getFinalResult();
+            }
+            else if (type == AnfResourceType.VOLUME)
+            {
+                anfClient.getVolumes().beginDelete(id.getResourceGroup(), id.getAccountName(), id.getCapacityPoolName(), id.getVolumeName()).getFinalResult();
+            }
+            else if (type == AnfResourceType.CAPACITY_POOL)
+            {
+                anfClient.getPools().beginDelete(id.getResourceGroup(), id.getAccountName(), id.getCapacityPoolName()).getFinalResult();
+            }
+            else
+            {
+                anfClient.getAccounts().beginDelete(id.getResourceGroup(), id.getAccountName()).getFinalResult();
+            }
+            return null;
+        });
+
+        waitForDeletion(anfClient, type, id);
+    }
+
+    /**
+     * Waits until the Resource Provider no longer returns a deleted resource, so that deleting its parent next does not
+     * fail with a conflict
+     * @param anfClient Azure NetApp Files Management Client
+     * @param type Type of the deleted resource
+     * @param id Resource id of the deleted resource
+     * @throws IllegalStateException if the resource is still returned once the polling policy of its type is exhausted
+     */
+    public static void waitForDeletion(NetAppManagementClient anfClient, AnfResourceType<?> type, AnfResourceId id)
+    {
+        if (!waitForNoANFResource(anfClient, type, id))
+        {
+            Utils.writeErrorMessage("Timed out waiting for the deletion of " + type + ": " + id);
+            throw new IllegalStateException(type + " " + id + " is still returned by the Resource Provider after its deletion");
+        }
+    }
+
+    /**
+     * Runs a long-running operation, timing it in OperationMetrics and recording it in the OperationJournal of the run
+     * so that an interrupted run can resume it
+     * @param type Type of the resource
+     * @param operation Operation, e.g. "create" or "delete"
+     * @param id Resource id of the resource
+     * @param call Submits the operation and waits for its final result
+     * @return Final result of the operation
+     */
+    public static <T> T runOperation(AnfResourceType<?> type, String operation, AnfResourceId id, Supplier<T> call)
+    {
+        OperationJournal journal = OperationJournal.current();
+        journal.submitted(operation, id);
+        try
+        {
+            T result = OperationMetrics.time(type, operation, call);
+            journal.completed(operation, id);
+            return result;
+        }
+        catch (RuntimeException e)
+        {
+            journal.failed(operation, id);
+            throw e;
+        }
+    }
+
+    /**
+     * Builds the request body of a volume. In this process, notice that we need to create two mandatory objects, one as the
+     * export rule list and the volume body itself.
+     * @param account ModelNetAppAccount object that describes the ANF Account, populated with data from appsettings.json
+     * @param pool ModelCapacityPool object that describes the Capacity Pool, populated with data from appsettings.json
+     * @param volume ModelVolume object that describes the Volume to be created, populated with data from appsettings.json
+     * @return Volume body ready to be sent to the Resource Provider
+     */
+    public static VolumeInner buildVolumeBody(ModelNetAppAccount account, ModelCapacityPool pool, ModelVolume volume)
     {
         List<ExportPolicyRule> ruleList = new ArrayList<>();
         for (ModelExportPolicyRule rule : volume.getExportPolicies())
@@ -63,44 +242,50 @@ public class CommonSdk
         volumeInner.withExportPolicy(exportPolicy);
         volumeInner.withServiceLevel(ServiceLevel.fromString(pool.getServiceLevel()));
         volumeInner.withSubnetId(volume.getSubnetId());
-        volumeInner.withUsageThreshold(volume.getUsageThreshold());
+        volumeInner.withUsageThreshold(VolumeSizing.getQuota(volume, pool.getServiceLevel(), VolumeSizing.isManualQos(pool.getQosType())));
         volumeInner.withProtocolTypes(protocol);
         volumeInner.withLocation(account.getLocation().toLowerCase());
 
-        return anfClient.getVolumes().beginCreateOrUpdate(resourceGroup, account.getName(), pool.getName(), volume.getName(), volumeInner).getFinalResult();
+        // Volumes of manual QoS pools get their throughput explicitly, otherwise it follows the quota
+        if (VolumeSizing.isManualQos(pool.getQosType()))
+        {
+            volumeInner.withThroughputMibps((float) VolumeSizing.getThroughput(volume, pool.getServiceLevel()));
+        }
+
+        return volumeInner;
     }
 
     /**
-     * Creates or updates an Azure NetApp Files Account
-     * @param anfClient Azure NetApp Files Management Client
-     * @param resourceGroup Resource Group name where the ANF Account will be created
+     * Builds the request body of an Azure NetApp Files Account
      * @param account ModelNetAppAccount object that describes the ANF Account to be created, populated with data from appsettings.json
-     * @return Observable of the newly created Account
+     * @return Account body ready to be sent to the Resource Provider
      */
-    public static NetAppAccountInner createOrUpdateAccount(NetAppManagementClient anfClient, String resourceGroup, ModelNetAppAccount account)
+    public static NetAppAccountInner buildAccountBody(ModelNetAppAccount account)
     {
         NetAppAccountInner netAppAccount = new NetAppAccountInner();
         netAppAccount.withLocation(account.getLocation());
 
-        return anfClient.getAccounts().beginCreateOrUpdate(resourceGroup, account.getName(), netAppAccount).getFinalResult();
+        return netAppAccount;
     }
 
     /**
-     * Creates or updates a Capacity Pool
-     * @param anfClient Azure NetApp Files Management Client
-     * @param resourceGroup Resource Group name where the Capacity Pool will be created
-     * @param accountName Name of the ANF Account this Capacity Pool will be associated with
+     * Builds the request body of a Capacity Pool
+     * @param location Location of the ANF Account this Capacity Pool will be associated with
      * @param pool ModelCapacityPool object that describes the Capacity Pool to be created, populated with data from appsettings.json
-     * @return Observable of the newly created Capacity Pool
+     * @return Capacity Pool body ready to be sent to the Resource Provider
      */
-    public static CapacityPoolInner createOrUpdateCapacityPool(NetAppManagementClient anfClient, String resourceGroup, String accountName, String location, ModelCapacityPool pool)
+    public static CapacityPoolInner buildCapacityPoolBody(String location, ModelCapacityPool pool)
     {
         CapacityPoolInner capacityPool = new CapacityPoolInner();
         capacityPool.withServiceLevel(ServiceLevel.fromString(pool.getServiceLevel()));
         capacityPool.withSize(pool.getSize());
         capacityPool.withLocation(location);
+        if (pool.getQosType() != null)
+        {
+            capacityPool.withQosType(QosType.fromString(pool.getQosType()));
+        }
 
-        return anfClient.getPools().beginCreateOrUpdate(resourceGroup, accountName, pool.getName(), capacityPool).getFinalResult();
+        return capacityPool;
     }
 
     /**
@@ -112,37 +297,39 @@ public class CommonSdk
      *                   Volume         -> ResourceGroupName, AccountName, PoolName, VolumeName
      *                   Snapshot       -> ResourceGroupName, AccountName, PoolName, VolumeName, SnapshotName
      * @param clazz Valid class types: NetAppAccountInner, CapacityPoolInner, VolumeInner, SnapshotInner
-     * @return Observable of valid resource T
+     * @return Resource, null if it does not exist
      */
-    public static <T> Object getResource(NetAppManagementClient anfClient, String[] parameters, Class<T> clazz)
+    public static <T> T getResource(NetAppManagementClient anfClient, String[] parameters, Class<T> clazz)
+    {
+        return getResource(anfClient, AnfResourceType.forClass(clazz), toResourceId(anfClient, parameters));
+    }
+
+    /**
+     * Returns an ANF resource or null if it does not exist. The resource is served from the resource cache while its
+     * entry is fresh, resources known not to exist included.
+     * @param anfClient Azure NetApp Files Management Client
+     * @param type Type of the resource
+     * @param id Resource id of the resource
+     * @return Resource, null if it does not exist
+     */
+    public static <T> T getResource(NetAppManagementClient anfClient, AnfResourceType<T> type, AnfResourceId id)
     {
         try
         {
-            switch (clazz.getSimpleName())
-            {
-                case "NetAppAccountInner":
-                    return anfClient.getAccounts().getByResourceGroup(
-                            parameters[0],
-                            parameters[1]);
-                case "CapacityPoolInner":
-                    return anfClient.getPools().get(
-                            parameters[0],
-                            parameters[1],
-                            parameters[2]);
-                case "VolumeInner":
-                    return anfClient.getVolumes().get(
-                            parameters[0],
-                            parameters[1],
-                            parameters[2],
-                            parameters[3]);
-                case "SnapshotInner":
-                    return anfClient.getSnapshots().get(
-                            parameters[0],
-                            parameters[1],
-                            parameters[2],
-                            parameters[3],
-                            parameters[4]);
-            }
+            return cache.get(id, type.getModelClass(), () -> {
+                try
+                {
+                    return type.get(anfClient, id);
+                }
+                catch (ManagementException e)
+                {
+                    if (ResourcePoller.isNotFound(e))
+                    {
+                        return null;
+                    }
+                    throw e;
+                }
+            });
         }
         catch (Exception e)
         {
@@ -152,122 +339,179 @@ public class CommonSdk
     }
 
     /**
-     * Returns a list of ANF resources or null if resources do not exist
+     * Returns a list of ANF resources
      * @param anfClient Azure NetApp Files Management Client
-     * @param parameters List of parameters required depending on the resource type:
-     *                   Account        -> ResourceGroupName, AccountName
-     *                   Capacity Pool  -> ResourceGroupName, AccountName, PoolName
-     *                   Volume         -> ResourceGroupName, AccountName, PoolName, VolumeName
-     *                   Snapshot       -> ResourceGroupName, AccountName, PoolName, VolumeName, SnapshotName
+     * @param parameters List of parameters of the parent resource, depending on the resource type:
+     *                   Account        -> ResourceGroupName
+     *                   Capacity Pool  -> ResourceGroupName, AccountName
+     *                   Volume         -> ResourceGroupName, AccountName, PoolName
+     *                   Snapshot       -> ResourceGroupName, AccountName, PoolName, VolumeName
      * @param clazz Valid class types: NetAppAccountInner, CapacityPoolInner, VolumeInner, SnapshotInner
-     * @return Observable of valid resources
+     * @return Resources found under the parent
+     */
+    public static <T> List<T> listResource(NetAppManagementClient anfClient, String[] parameters, Class<T> clazz)
+    {
+        return listResource(anfClient, AnfResourceType.forClass(clazz), toResourceId(anfClient, parameters));
+    }
+
+    /**
+     * Returns a list of ANF resources. Listing always goes to the Resource Provider and refreshes the resource cache
+     * with every resource returned, resources missing from the list then being known not to exist.
+     * @param anfClient Azure NetApp Files Management Client
+     * @param type Type of the resources
+     * @param parent Resource id of the parent: resource group for accounts, account for capacity pools, and so on
+     * @return Resources found under the parent
      */
-    public static <T> List<Object> listResource(NetAppManagementClient anfClient, String[] parameters, Class<T> clazz)
+    public static <T> List<T> listResource(NetAppManagementClient anfClient, AnfResourceType<T> type, AnfResourceId parent)
     {
+        List<T> resources;
         try
         {
-            switch (clazz.getSimpleName())
-            {
-                case "NetAppAccountInner":
-                    return anfClient.getAccounts().listByResourceGroup(
-                            parameters[0]).stream().collect(Collectors.toList());
-                case "CapacityPoolInner":
-                    return anfClient.getPools().list(
-                            parameters[0],
-                            parameters[1]).stream().collect(Collectors.toList());
-                case "VolumeInner":
-                    return anfClient.getVolumes().list(
-                            parameters[0],
-                            parameters[1],
-                            parameters[2]).stream().collect(Collectors.toList());
-                case "SnapshotInner":
-                    return anfClient.getSnapshots().list(
-                            parameters[0],
-                            parameters[1],
-                            parameters[2],
-                            parameters[3]).stream().collect(Collectors.toList());
-            }
+            resources = type.list(anfClient, parent);
         }
         catch (Exception e)
         {
             Utils.writeErrorMessage("Error listing resource - " + e.getMessage());
             throw e;
         }
-        return Collections.emptyList();
+
+        cacheListing(type, parent, resources);
+        return resources;
+    }
+
+    /**
+     * Stores every child of a parent in the resource cache, children missing from the list then being known not to
+     * exist. Used after listing the parent, with either client.
+     * @param type Type of the children
+     * @param parent Resource id of the parent that was listed
+     * @param resources Every resource returned by the listing
+     */
+    public static <T> void cacheListing(AnfResourceType<T> type, AnfResourceId parent, List<T> resources)
+    {
+        Map<AnfResourceId, T> children = new HashMap<>();
+        for (T resource : resources)
+        {
+            children.put(AnfResourceId.parse(type.idOf(resource)), resource);
+        }
+        cache.putListing(parent, children);
+    }
+
+    /**
+     * Stores the latest known state of a resource in the resource cache. Used after this process created or
+     * updated a resource, so that following lookups do not go back to the Resource Provider.
+     * @param resource Resource returned by the management client: NetAppAccountInner, CapacityPoolInner, VolumeInner or SnapshotInner
+     */
+    public static void cacheResource(Object resource)
+    {
+        AnfResourceType<Object> type = AnfResourceType.ofResource(resource);
+        if (type != null)
+        {
+            cache.put(AnfResourceId.parse(type.idOf(resource)), resource);
+        }
+    }
+
+    /**
+     * Gets the resource cache shared by all lookups of this process
+     * @return Resource cache
+     */
+    public static ResourceCache getCache()
+    {
+        return cache;
     }
 
     /**
-     * Method to overload function waitForNoANFResource(client, string, int, int, clazz) with default values
+     * Replaces the resource cache, e.g. to apply the time to live set in appsettings.json
+     * @param ttl Time to live of cached resources, zero disables caching
+     */
+    public static void setCacheTtl(Duration ttl)
+    {
+        cache = new ResourceCache(ttl);
+    }
+
+    /**
+     * Method to overload function waitForNoANFResource(client, type, id, policy) with the default polling policy of
+     * the resource type
      * @param anfClient Azure NetApp Files Management Client
      * @param resourceId Resource id of the resource that was deleted
      * @param clazz Valid class types: NetAppAccountInner, CapacityPoolInner, VolumeInner, SnapshotInner
+     * @return True if the resource is gone, false if polling timed out
      */
-    public static <T> void waitForNoANFResource(NetAppManagementClient anfClient, String resourceId, Class<T> clazz)
+    public static <T> boolean waitForNoANFResource(NetAppManagementClient anfClient, String resourceId, Class<T> clazz)
     {
-        waitForNoANFResource(anfClient, resourceId, 10, 60, clazz);
+        return waitForNoANFResource(anfClient, AnfResourceType.forClass(clazz), AnfResourceId.parse(resourceId));
     }
 
     /**
-     * This function checks if a specific ANF resource that was recently deleted stops existing. It breaks the wait
-     * if the resource is not found anymore or if polling reached its maximum retries.
+     * Method to overload function waitForNoANFResource(client, type, id, policy) with the default polling policy of
+     * the resource type
+     * @param anfClient Azure NetApp Files Management Client
+     * @param type Type of the resource that was deleted
+     * @param id Resource id of the resource that was deleted
+     * @return True if the resource is gone, false if polling timed out
+     */
+    public static boolean waitForNoANFResource(NetAppManagementClient anfClient, AnfResourceType<?> type, AnfResourceId id)
+    {
+        return waitForNoANFResource(anfClient, type, id, PollingPolicy.forResource(type));
+    }
+
+    /**
+     * Method to overload function waitForNoANFResource(client, string, policy, clazz) with a fixed polling interval
      * @param anfClient Azure NetApp Files Management Client
      * @param resourceId Resource id of the resource that was deleted
      * @param intervalInSec Time in second that the function will poll to see if the resource has been deleted
      * @param retries Number of times polling will be performed
      * @param clazz Valid class types: NetAppAccountInner, CapacityPoolInner, VolumeInner, SnapshotInner
+     * @return True if the resource is gone, false if polling timed out
      */
-    public static <T> void waitForNoANFResource(NetAppManagementClient anfClient, String resourceId, int intervalInSec, int retries, Class<T> clazz)
+    public static <T> boolean waitForNoANFResource(NetAppManagementClient anfClient, String resourceId, int intervalInSec, int retries, Class<T> clazz)
     {
-        for (int i = 0; i < retries; i++)
-        {
-            Utils.threadSleep(intervalInSec*1000);
+        return waitForNoANFResource(anfClient, resourceId, PollingPolicy.fixed(intervalInSec, retries), clazz);
+    }
 
-            try
-            {
-                switch (clazz.getSimpleName())
-                {
-                    case "NetAppAccountInner":
-                        NetAppAccountInner account = anfClient.getAccounts().getByResourceGroup(ResourceUriUtils.getResourceGroup(resourceId),
-                                ResourceUriUtils.getAnfAccount(resourceId));
-                        if (account == null)
-                            return;
-
-                        continue;
-
-                    case "CapacityPoolInner":
-                        CapacityPoolInner pool = anfClient.getPools().get(ResourceUriUtils.getResourceGroup(resourceId),
-                                ResourceUriUtils.getAnfAccount(resourceId),
-                                ResourceUriUtils.getAnfCapacityPool(resourceId));
-                        if (pool == null)
-                            return;
-
-                        continue;
-
-                    case "VolumeInner":
-                        VolumeInner volume = anfClient.getVolumes().get(ResourceUriUtils.getResourceGroup(resourceId),
-                                ResourceUriUtils.getAnfAccount(resourceId),
-                                ResourceUriUtils.getAnfCapacityPool(resourceId),
-                                ResourceUriUtils.getAnfVolume(resourceId));
-                        if (volume == null)
-                            return;
-
-                        continue;
-
-                    case "SnapshotInner":
-                        SnapshotInner snapshot = anfClient.getSnapshots().get(ResourceUriUtils.getResourceGroup(resourceId),
-                                ResourceUriUtils.getAnfAccount(resourceId),
-                                ResourceUriUtils.getAnfCapacityPool(resourceId),
-                                ResourceUriUtils.getAnfVolume(resourceId),
-                                ResourceUriUtils.getAnfSnapshot(resourceId));
-                        if (snapshot == null)
-                            return;
-                }
-            }
-            catch (Exception e)
-            {
-                Utils.writeWarningMessage(e.getMessage());
-                break;
-            }
+    /**
+     * Method to overload function waitForNoANFResource(client, type, id, policy) for callers holding the model class
+     * and resource id string of the resource
+     * @param anfClient Azure NetApp Files Management Client
+     * @param resourceId Resource id of the resource that was deleted
+     * @param policy Backoff and time budget used while polling
+     * @param clazz Valid class types: NetAppAccountInner, CapacityPoolInner, VolumeInner, SnapshotInner
+     * @return True if the resource is gone, false if polling timed out
+     */
+    public static <T> boolean waitForNoANFResource(NetAppManagementClient anfClient, String resourceId, PollingPolicy policy, Class<T> clazz)
+    {
+        return waitForNoANFResource(anfClient, AnfResourceType.forClass(clazz), AnfResourceId.parse(resourceId), policy);
+    }
+
+    /**
+     * This function checks if a specific ANF resource that was recently deleted stops existing. The resource is probed
+     * immediately and then with an exponential backoff, until a 404 is returned or the policy time budget is exhausted.
+     * @param anfClient Azure NetApp Files Management Client
+     * @param type Type of the resource that was deleted
+     * @param id Resource id of the resource that was deleted
+     * @param policy Backoff and time budget used while polling
+     * @return True if the resource is gone, false if polling timed out
+     */
+    public static boolean waitForNoANFResource(NetAppManagementClient anfClient, AnfResourceType<?> type, AnfResourceId id, PollingPolicy policy)
+    {
+        // Probes always go to the Resource Provider, the cache only learns about the deletion once it is confirmed
+        cache.invalidate(id);
+        boolean deleted = Tracing.inSpan("Wait for deletion", Attributes.of(Tracing.RESOURCE_TYPE, type.toString(), Tracing.RESOURCE_ID, id.getId()),
+                () -> ResourcePoller.waitForDeletion(() -> type.get(anfClient, id), policy, id.getId()));
+        if (deleted)
+        {
+            cache.putMissing(id);
         }
+        return deleted;
+    }
+
+    /**
+     * Builds the resource id addressed by a list of parameters
+     * @param anfClient Azure NetApp Files Management Client, which provides the subscription id
+     * @param parameters ResourceGroupName followed by AccountName, PoolName, VolumeName, SnapshotName as deep as needed
+     * @return Parsed resource id
+     */
+    private static AnfResourceId toResourceId(NetAppManagementClient anfClient, String[] parameters)
+    {
+        return AnfResourceId.of(anfClient.getSubscriptionId(), parameters[0], Arrays.copyOfRange(parameters, 1, parameters.length));
     }
 }
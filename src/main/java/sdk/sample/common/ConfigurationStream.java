@@ -0,0 +1,428 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.common;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import sdk.sample.model.ModelCapacityPool;
+import sdk.sample.model.ModelExecutionSettings;
+import sdk.sample.model.ModelNetAppAccount;
+import sdk.sample.model.ModelSimulatorSettings;
+import sdk.sample.model.ModelVolume;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+
+// Reads appsettings.json incrementally, handing every account, capacity pool and volume to a visitor as soon as it is
+// parsed. Only the account and capacity pool currently being read are kept in memory, so files describing tens of
+// thousands of volumes can be provisioned while they are still being read.
+// The general, execution and simulator sections must precede accounts. Within an account or capacity pool, children
+// are streamed when the properties needed to create it come first, as in the sample file, otherwise the children of
+// that single account or capacity pool are buffered until its properties are known. Once children are streamed the
+// account or capacity pool is in use by the workers, so a property following them is rejected.
+public class ConfigurationStream implements AutoCloseable
+{
+    private static final Type GENERAL_TYPE = new TypeToken<Map<String, String>>() {}.getType();
+    private static final Type CAPACITY_POOLS_TYPE = new TypeToken<List<ModelCapacityPool>>() {}.getType();
+    private static final Type VOLUMES_TYPE = new TypeToken<List<ModelVolume>>() {}.getType();
+
+    private final Gson gson = new Gson();
+    private final JsonReader reader;
+
+    // True once readHeader stopped in front of the accounts array
+    private boolean atAccounts;
+
+    /**
+     * Receives the resources of appsettings.json in document order: an account, then each of its capacity pools, each
+     * followed by its volumes. Model objects are passed without their child lists.
+     */
+    public interface Visitor
+    {
+        void onAccount(ModelNetAppAccount account);
+
+        void onCapacityPool(ModelNetAppAccount account, ModelCapacityPool pool);
+
+        void onVolume(ModelNetAppAccount account, ModelCapacityPool pool, ModelVolume volume);
+    }
+
+    private ConfigurationStream(JsonReader reader)
+    {
+        this.reader = reader;
+    }
+
+    /**
+     * Opens a configuration file for streaming
+     * @param path Path of appsettings.json
+     * @return Stream positioned at the beginning of the file, null if the file does not exist
+     */
+    public static ConfigurationStream open(String path)
+    {
+        try
+        {
+            BufferedReader file = Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8);
+            return new ConfigurationStream(new JsonReader(file));
+        }
+        catch (IOException e)
+        {
+            Utils.writeWarningMessage("Could not find " + path + ". Unable to load project configuration. Exiting.");
+            return null;
+        }
+    }
+
+    /**
+     * Reads the capacity pools of a configuration file, skipping their volumes, to reject up front the pools whose
+     * service level is left to VolumeSizing: picking it needs every volume of the pool before the pool is created
+     * @param path Path of appsettings.json
+     */
+    public static void requireServiceLevels(String path)
+    {
+        try (JsonReader json = new JsonReader(Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8)))
+        {
+            json.beginObject();
+            while (json.hasNext())
+            {
+                if (!json.nextName().equals("accounts") || json.peek() == JsonToken.NULL)
+                {
+                    json.skipValue();
+                    continue;
+                }
+
+                json.beginArray();
+                while (json.hasNext())
+                {
+                    json.beginObject();
+                    while (json.hasNext())
+                    {
+                        if (!json.nextName().equals("capacityPools") || json.peek() == JsonToken.NULL)
+                        {
+                            json.skipValue();
+                            continue;
+                        }
+
+                        json.beginArray();
+                        while (json.hasNext())
+                        {
+                            requireServiceLevel(json);
+                        }
+                        json.endArray();
+                    }
+                    json.endObject();
+                }
+                json.endArray();
+            }
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Unable to read project configuration", e);
+        }
+    }
+
+    private static void requireServiceLevel(JsonReader json) throws IOException
+    {
+        String name = null;
+        String serviceLevel = null;
+
+        json.beginObject();
+        while (json.hasNext())
+        {
+            switch (json.nextName())
+            {
+                case "name":
+                    name = json.nextString();
+                    break;
+                case "serviceLevel":
+                    serviceLevel = json.nextString();
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        json.endObject();
+
+        if (VolumeSizing.isAuto(serviceLevel))
+        {
+            throw new JsonParseException("Capacity Pool " + name + ": serviceLevel " + VolumeSizing.AUTO
+                    + " is not supported when streaming the configuration, set Standard, Premium or Ultra");
+        }
+    }
+
+    /**
+     * Reads every section preceding the accounts array
+     * @return Project configuration without accounts, which are read afterwards by readAccounts
+     */
+    public ProjectConfiguration readHeader()
+    {
+        Map<String, String> general = null;
+        ModelExecutionSettings execution = null;
+        ModelSimulatorSettings simulator = null;
+
+        try
+        {
+            reader.beginObject();
+            while (reader.hasNext())
+            {
+                String name = reader.nextName();
+                if (name.equals("accounts"))
+                {
+                    atAccounts = true;
+                    break;
+                }
+
+                switch (name)
+                {
+                    case "general":
+                        general = gson.fromJson(reader, GENERAL_TYPE);
+                        break;
+                    case "execution":
+                        execution = gson.fromJson(reader, ModelExecutionSettings.class);
+                        break;
+                    case "simulator":
+                        simulator = gson.fromJson(reader, ModelSimulatorSettings.class);
+                        break;
+                    case "scopes":
+                        Utils.writeWarningMessage("Scopes are not supported when streaming the configuration and are ignored");
+                        reader.skipValue();
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Unable to read project configuration", e);
+        }
+
+        if (general == null)
+        {
+            throw new JsonParseException("The general section must precede accounts when streaming the configuration");
+        }
+
+        ProjectConfiguration config = new ProjectConfiguration();
+        config.setResourceGroup(general.get("resourceGroup"));
+        config.setSubscriptionId(general.get("subscriptionId"));
+        config.setExecutionSettings(execution != null ? execution : new ModelExecutionSettings());
+        config.setSimulatorSettings(simulator != null ? simulator : new ModelSimulatorSettings());
+
+        return config;
+    }
+
+    /**
+     * Reads the accounts array, calling the visitor for every resource in document order. The visitor runs on the
+     * calling thread, so a visitor that blocks slows down parsing accordingly.
+     * @param visitor Receives accounts, capacity pools and volumes
+     */
+    public void readAccounts(Visitor visitor)
+    {
+        if (!atAccounts)
+        {
+            return;
+        }
+
+        try
+        {
+            if (reader.peek() == JsonToken.NULL)
+            {
+                reader.nextNull();
+                return;
+            }
+
+            reader.beginArray();
+            while (reader.hasNext())
+            {
+                readAccount(visitor);
+            }
+            reader.endArray();
+            atAccounts = false;
+
+            // Sections following accounts came too late to be used, they are only skipped
+            while (reader.hasNext())
+            {
+                Utils.writeWarningMessage("Ignoring section " + reader.nextName() + ", it must precede accounts when streaming the configuration");
+                reader.skipValue();
+            }
+            reader.endObject();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Unable to read project configuration", e);
+        }
+    }
+
+    private void readAccount(Visitor visitor) throws IOException
+    {
+        ModelNetAppAccount account = new ModelNetAppAccount();
+        boolean visited = false;
+        List<ModelCapacityPool> bufferedPools = null;
+
+        reader.beginObject();
+        while (reader.hasNext())
+        {
+            switch (reader.nextName())
+            {
+                case "name":
+                    requireBeforeChildren(visited, "name", "Account " + account.getName(), "capacityPools");
+                    account.setName(reader.nextString());
+                    break;
+                case "location":
+                    requireBeforeChildren(visited, "location", "Account " + account.getName(), "capacityPools");
+                    account.setLocation(reader.nextString());
+                    break;
+                case "capacityPools":
+                    if (account.getName() == null || account.getLocation() == null)
+                    {
+                        bufferedPools = gson.fromJson(reader, CAPACITY_POOLS_TYPE);
+                        break;
+                    }
+                    visitor.onAccount(account);
+                    visited = true;
+                    readArray(() -> readCapacityPool(visitor, account));
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (!visited)
+        {
+            visitor.onAccount(account);
+        }
+
+        if (bufferedPools != null)
+        {
+            for (ModelCapacityPool pool : bufferedPools)
+            {
+                List<ModelVolume> volumes = pool.getVolumes();
+                pool.setVolumes(null);
+                visitCapacityPool(visitor, account, pool, volumes);
+            }
+        }
+    }
+
+    private void readCapacityPool(Visitor visitor, ModelNetAppAccount account) throws IOException
+    {
+        ModelCapacityPool pool = new ModelCapacityPool();
+        boolean visited = false;
+        boolean hasSize = false;
+        List<ModelVolume> bufferedVolumes = null;
+
+        reader.beginObject();
+        while (reader.hasNext())
+        {
+            switch (reader.nextName())
+            {
+                case "name":
+                    requireBeforeChildren(visited, "name", "Capacity Pool " + pool.getName(), "volumes");
+                    pool.setName(reader.nextString());
+                    break;
+                case "serviceLevel":
+                    requireBeforeChildren(visited, "serviceLevel", "Capacity Pool " + pool.getName(), "volumes");
+                    pool.setServiceLevel(reader.nextString());
+                    break;
+                case "qosType":
+                    requireBeforeChildren(visited, "qosType", "Capacity Pool " + pool.getName(), "volumes");
+                    pool.setQosType(reader.nextString());
+                    break;
+                case "size":
+                    requireBeforeChildren(visited, "size", "Capacity Pool " + pool.getName(), "volumes");
+                    pool.setSize(reader.nextLong());
+                    hasSize = true;
+                    break;
+                case "volumes":
+                    if (pool.getName() == null || pool.getServiceLevel() == null || !hasSize)
+                    {
+                        bufferedVolumes = gson.fromJson(reader, VOLUMES_TYPE);
+                        break;
+                    }
+                    visitor.onCapacityPool(account, pool);
+                    visited = true;
+                    readArray(() -> visitor.onVolume(account, pool, gson.fromJson(reader, ModelVolume.class)));
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (!visited)
+        {
+            visitCapacityPool(visitor, account, pool, bufferedVolumes);
+        }
+    }
+
+    private static void visitCapacityPool(Visitor visitor, ModelNetAppAccount account, ModelCapacityPool pool, List<ModelVolume> volumes)
+    {
+        visitor.onCapacityPool(account, pool);
+        if (volumes != null)
+        {
+            for (ModelVolume volume : volumes)
+            {
+                visitor.onVolume(account, pool, volume);
+            }
+        }
+    }
+
+    /**
+     * Rejects a property of an account or capacity pool read after its children were handed to the visitor, when the
+     * workers may already be creating it
+     * @param visited True if the children were streamed
+     * @param property Name of the property
+     * @param resource Account or capacity pool, for the error message
+     * @param children Name of the child array
+     */
+    private static void requireBeforeChildren(boolean visited, String property, String resource, String children)
+    {
+        if (visited)
+        {
+            throw new JsonParseException(resource + ": " + property + " follows " + children + ", it must precede them when streaming the configuration");
+        }
+    }
+
+    private void readArray(ElementReader elementReader) throws IOException
+    {
+        if (reader.peek() == JsonToken.NULL)
+        {
+            reader.nextNull();
+            return;
+        }
+
+        reader.beginArray();
+        while (reader.hasNext())
+        {
+            elementReader.read();
+        }
+        reader.endArray();
+    }
+
+    @Override
+    public void close()
+    {
+        try
+        {
+            reader.close();
+        }
+        catch (IOException e)
+        {
+            Utils.writeWarningMessage("Unable to close project configuration: " + e.getMessage());
+        }
+    }
+
+    private interface ElementReader
+    {
+        void read() throws IOException;
+    }
+}
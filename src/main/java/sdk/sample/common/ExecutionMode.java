@@ -0,0 +1,71 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.common;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Kind of threads used to execute per-resource operations within a phase of the sample
+public enum ExecutionMode
+{
+    // Fixed pool of platform threads, sized by execution.maxParallelism
+    PLATFORM("platform"),
+
+    // One virtual thread per operation. Waiting on a long-running operation parks the virtual thread only, so thousands
+    // of concurrent waits cost a few kilobytes each instead of a platform thread stack
+    VIRTUAL("virtual");
+
+    private final String value;
+
+    ExecutionMode(String value)
+    {
+        this.value = value;
+    }
+
+    /**
+     * Parses the execution mode as written in appsettings.json or in the command line
+     * @param value "platform" or "virtual", case insensitive. Null defaults to platform
+     * @return Matching execution mode
+     */
+    public static ExecutionMode fromString(String value)
+    {
+        if (value == null || value.isBlank())
+        {
+            return PLATFORM;
+        }
+
+        for (ExecutionMode mode : values())
+        {
+            if (mode.value.equalsIgnoreCase(value.trim()))
+            {
+                return mode;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown execution mode '" + value + "', valid values are 'platform' and 'virtual'");
+    }
+
+    /**
+     * Creates the executor that runs the operations of a single phase
+     * @param maxParallelism Number of platform threads, ignored in virtual mode
+     * @return New executor, owned by the caller
+     */
+    public ExecutorService newExecutor(int maxParallelism)
+    {
+        if (this == VIRTUAL)
+        {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("anf-virtual-", 1).factory());
+        }
+
+        return Executors.newFixedThreadPool(Math.max(1, maxParallelism), Thread.ofPlatform().name("anf-worker-", 1).daemon(true).factory());
+    }
+
+    @Override
+    public String toString()
+    {
+        return value;
+    }
+}
@@ -0,0 +1,592 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.common;
+
+import com.azure.core.http.HttpMethod;
+import com.azure.core.http.HttpPipeline;
+import com.azure.core.http.HttpRequest;
+import com.azure.core.http.HttpResponse;
+import com.azure.resourcemanager.netapp.fluent.NetAppManagementClient;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import sdk.sample.model.ModelExecutionSettings;
+import sdk.sample.model.ModelJournalSettings;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Append-only journal of the long-running operations submitted by the sample, one JSON line per event: submitted,
+// accepted with the status URL returned by ARM, then completed or failed. Records are buffered and written by a
+// background thread that syncs the file once per interval, so that hundreds of concurrent operations cost a single
+// fsync instead of one each.
+// When a run is interrupted, the next run replays the journal: operations still in flight are polled directly through
+// their status URL until they finish, and resources whose operation completed are skipped without asking ARM again.
+// The journal is deleted once a run completes successfully.
+public class OperationJournal
+{
+    static final String SUBMITTED = "submitted";
+    static final String ACCEPTED = "accepted";
+    static final String COMPLETED = "completed";
+    static final String FAILED = "failed";
+    static final String EXPIRED = "expired";
+
+    // Journal of the current run, a disabled journal records nothing
+    private static volatile OperationJournal current = new OperationJournal(null, 0);
+
+    // Journal file, null when the journal is disabled
+    private final Path path;
+
+    private final long fsyncIntervalMs;
+
+    // Last event of every resource, replayed from the file then kept up to date by this run
+    private final Map<AnfResourceId, Entry> entries = new ConcurrentHashMap<>();
+
+    // Records appended since the last write, guarded by this
+    private StringBuilder pending = new StringBuilder();
+
+    // Held while writing or truncating the file, so that a batch taken before a compaction is never written after it.
+    // Taken before this when both are needed, appending records only takes this and never waits for the disk.
+    private final Object fileLock = new Object();
+
+    private FileChannel channel;
+    private Thread flusher;
+    private boolean closed;
+
+    // Last event recorded for a resource
+    private static final class Entry
+    {
+        private final String operation;
+        private final String event;
+        private final String statusUrl;
+
+        private Entry(String operation, String event, String statusUrl)
+        {
+            this.operation = operation;
+            this.event = event;
+            this.statusUrl = statusUrl;
+        }
+    }
+
+    private OperationJournal(Path path, long fsyncIntervalMs)
+    {
+        this.path = path;
+        this.fsyncIntervalMs = Math.max(1, fsyncIntervalMs);
+    }
+
+    /**
+     * Opens the journal of the run, replaying the journal left by an interrupted run if any
+     * @param settings Journal settings
+     * @return Journal of the run, also returned by current until finish is called
+     */
+    public static synchronized OperationJournal open(ModelJournalSettings settings)
+    {
+        if (settings == null || !settings.isEnabled())
+        {
+            return current;
+        }
+
+        OperationJournal journal = new OperationJournal(Paths.get(settings.getFile()), settings.getFsyncIntervalMs());
+        try
+        {
+            journal.replay();
+            journal.channel = FileChannel.open(journal.path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        catch (IOException e)
+        {
+            Utils.writeErrorMessage("Unable to open operation journal " + journal.path);
+            throw new UncheckedIOException(e);
+        }
+
+        journal.flusher = new Thread(journal::flushLoop, "anf-journal");
+        journal.flusher.setDaemon(true);
+        journal.flusher.start();
+
+        current = journal;
+        return journal;
+    }
+
+    /**
+     * Gets the journal of the run
+     * @return Journal opened by open, or a disabled journal
+     */
+    public static OperationJournal current()
+    {
+        return current;
+    }
+
+    /**
+     * Rebuilds the last event of every resource from the journal file. A line torn by a crash is ignored, the
+     * operation it described is then checked again against ARM.
+     */
+    private void replay() throws IOException
+    {
+        if (!Files.exists(path))
+        {
+            return;
+        }
+
+        int records = 0;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8))
+        {
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                try
+                {
+                    JsonObject record = JsonParser.parseString(line).getAsJsonObject();
+                    JsonElement statusUrl = record.get("statusUrl");
+                    entries.put(AnfResourceId.parse(record.get("resourceId").getAsString()), new Entry(
+                            record.get("operation").getAsString(),
+                            record.get("event").getAsString(),
+                            statusUrl != null ? statusUrl.getAsString() : null));
+                    records++;
+                }
+                catch (JsonParseException | IllegalStateException | NullPointerException e)
+                {
+                    Utils.writeWarningMessage("Ignoring unreadable operation journal record: " + line);
+                }
+            }
+        }
+
+        // Terminating a line torn by a crash so that it does not swallow the first record of this run
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            ByteBuffer last = ByteBuffer.allocate(1);
+            if (file.size() > 0 && file.read(last, file.size() - 1) == 1 && last.get(0) != '\n')
+            {
+                pending.append('\n');
+            }
+        }
+
+        long inFlight = entries.values().stream().filter(entry -> ACCEPTED.equals(entry.event)).count();
+        Utils.writeConsoleMessage("Resuming from operation journal " + path + ": " + records + " record(s), "
+                + entries.size() + " resource(s), " + inFlight + " operation(s) in flight");
+    }
+
+    /**
+     * Records that an operation was submitted
+     * @param operation Operation, e.g. "create" or "delete"
+     * @param id Resource id of the resource
+     */
+    public void submitted(String operation, AnfResourceId id)
+    {
+        record(operation, id, SUBMITTED, null);
+    }
+
+    /**
+     * Records that ARM accepted an operation and returned the URL its status is polled from
+     * @param operation Operation, e.g. "create" or "delete"
+     * @param id Resource id of the resource
+     * @param statusUrl Azure-AsyncOperation or Location URL
+     */
+    public void accepted(String operation, AnfResourceId id, String statusUrl)
+    {
+        record(operation, id, ACCEPTED, statusUrl);
+    }
+
+    /**
+     * Records that an operation completed successfully
+     * @param operation Operation, e.g. "create" or "delete"
+     * @param id Resource id of the resource
+     */
+    public void completed(String operation, AnfResourceId id)
+    {
+        record(operation, id, COMPLETED, null);
+    }
+
+    /**
+     * Records that an operation failed
+     * @param operation Operation, e.g. "create" or "delete"
+     * @param id Resource id of the resource
+     */
+    public void failed(String operation, AnfResourceId id)
+    {
+        record(operation, id, FAILED, null);
+    }
+
+    /**
+     * Checks whether the last operation journaled for a resource is the given one and it completed, in this run or in
+     * the interrupted run being resumed
+     * @param operation Operation, e.g. "create" or "delete"
+     * @param id Resource id of the resource
+     * @return True if the operation completed and the resource needs no further check
+     */
+    public boolean isCompleted(String operation, AnfResourceId id)
+    {
+        Entry entry = id != null ? entries.get(id) : null;
+        return entry != null && entry.operation.equals(operation) && COMPLETED.equals(entry.event);
+    }
+
+    /**
+     * Drops the operations that finished, keeping only those submitted or in flight, and rewrites the journal file
+     * with them. Used by runs that never finish, e.g. scheduled retention, whose journal would otherwise keep growing.
+     */
+    public void compact()
+    {
+        if (path == null)
+        {
+            return;
+        }
+
+        entries.values().removeIf(entry -> !SUBMITTED.equals(entry.event) && !ACCEPTED.equals(entry.event));
+
+        // A batch being written completes first, records appended meanwhile wait for the lock and follow the rewritten entries
+        synchronized (fileLock)
+        {
+            synchronized (this)
+            {
+                if (closed)
+                {
+                    return;
+                }
+
+                StringBuilder remaining = new StringBuilder();
+                entries.forEach((id, entry) -> remaining.append(toRecord(entry.operation, id, entry.event, entry.statusUrl)).append('\n'));
+                pending = remaining;
+            }
+
+            try
+            {
+                channel.truncate(0);
+            }
+            catch (IOException e)
+            {
+                Utils.writeWarningMessage("Unable to compact operation journal " + path + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void record(String operation, AnfResourceId id, String event, String statusUrl)
+    {
+        if (path == null || id == null)
+        {
+            return;
+        }
+
+        entries.put(id, new Entry(operation, event, statusUrl));
+        JsonObject record = toRecord(operation, id, event, statusUrl);
+
+        synchronized (this)
+        {
+            if (!closed)
+            {
+                pending.append(record).append('\n');
+            }
+        }
+    }
+
+    private static JsonObject toRecord(String operation, AnfResourceId id, String event, String statusUrl)
+    {
+        JsonObject record = new JsonObject();
+        record.addProperty("time", Instant.now().toString());
+        record.addProperty("event", event);
+        record.addProperty("operation", operation);
+        record.addProperty("resourceId", id.getId());
+        if (statusUrl != null)
+        {
+            record.addProperty("statusUrl", statusUrl);
+        }
+
+        return record;
+    }
+
+    /**
+     * Writes and syncs the records appended during each interval. Records are not written when they are appended so that
+     * callers never wait for the disk.
+     */
+    private void flushLoop()
+    {
+        boolean stop = false;
+        while (!stop)
+        {
+            synchronized (this)
+            {
+                if (!closed)
+                {
+                    try
+                    {
+                        wait(fsyncIntervalMs);
+                    }
+                    catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                        closed = true;
+                    }
+                }
+                stop = closed;
+            }
+
+            synchronized (fileLock)
+            {
+                StringBuilder batch;
+                synchronized (this)
+                {
+                    batch = pending;
+                    pending = new StringBuilder();
+                }
+
+                write(batch);
+            }
+        }
+    }
+
+    private void write(StringBuilder batch)
+    {
+        if (batch.length() == 0)
+        {
+            return;
+        }
+
+        try
+        {
+            ByteBuffer buffer = StandardCharsets.UTF_8.encode(batch.toString());
+            while (buffer.hasRemaining())
+            {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        catch (IOException e)
+        {
+            // Losing journal records only costs the checks they would have saved, the run itself goes on
+            Utils.writeWarningMessage("Unable to write operation journal " + path + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Polls the operations left in flight by the interrupted run until they finish, so that the phases find every
+     * resource in a final state. Operations are polled concurrently through their status URL, without submitting them
+     * again.
+     * @param anfClients Azure NetApp Files Management Clients keyed by subscription id, each operation is polled
+     *                   through the pipeline of its own subscription's client, which authenticates the requests
+     * @param settings Execution settings, which select the threads polling concurrently
+     */
+    public void resume(Map<String, NetAppManagementClient> anfClients, ModelExecutionSettings settings)
+    {
+        // Subscription ids of resource ids are not case-sensitive
+        Map<String, NetAppManagementClient> clients = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        clients.putAll(anfClients);
+
+        List<AnfResourceId> inFlight = new ArrayList<>();
+        entries.forEach((id, entry) -> {
+            if (!ACCEPTED.equals(entry.event))
+            {
+                return;
+            }
+
+            if (id.getSubscriptionId() == null || !clients.containsKey(id.getSubscriptionId()))
+            {
+                Utils.writeWarningMessage("Not resuming " + entry.operation + " operation of " + id + ", its subscription is not part of this run");
+                return;
+            }
+            inFlight.add(id);
+        });
+        if (inFlight.isEmpty())
+        {
+            return;
+        }
+
+        Utils.writeConsoleMessage("Waiting for " + inFlight.size() + " operation(s) left in flight by the previous run...");
+        try (ProvisioningEngine engine = ProvisioningEngine.forSettings(settings))
+        {
+            for (AnfResourceId id : inFlight)
+            {
+                NetAppManagementClient anfClient = clients.get(id.getSubscriptionId());
+                engine.submit(() -> awaitOperation(anfClient.getHttpPipeline(), id, entries.get(id)));
+            }
+            engine.awaitCompletion();
+        }
+    }
+
+    /**
+     * Polls the status URL of an operation until it reaches a final state, then journals the outcome
+     */
+    private void awaitOperation(HttpPipeline pipeline, AnfResourceId id, Entry entry)
+    {
+        AnfResourceType<?> type = AnfResourceType.of(id);
+        PollingPolicy policy = PollingPolicy.forResource(type);
+        long deadline = System.nanoTime() + policy.getTimeout().toNanos();
+        Duration delay = null;
+
+        while (true)
+        {
+            String outcome;
+            try
+            {
+                outcome = pollOnce(pipeline, entry.statusUrl);
+            }
+            catch (RuntimeException e)
+            {
+                Utils.writeWarningMessage("Unable to poll " + entry.operation + " operation of " + id + ", it is checked again by the phases: " + e.getMessage());
+                return;
+            }
+
+            if (outcome != null)
+            {
+                record(entry.operation, id, outcome, null);
+                if (COMPLETED.equals(outcome))
+                {
+                    Utils.writeSuccessMessage("Resumed " + entry.operation + " operation completed, resource id: " + id);
+                }
+                else if (FAILED.equals(outcome))
+                {
+                    Utils.writeWarningMessage("Resumed " + entry.operation + " operation failed, resource id: " + id);
+                }
+                return;
+            }
+
+            delay = policy.nextDelay(delay);
+            if (System.nanoTime() + delay.toNanos() > deadline)
+            {
+                Utils.writeWarningMessage("Timed out waiting for " + entry.operation + " operation of " + id + ", it is checked again by the phases");
+                return;
+            }
+
+            try
+            {
+                Thread.sleep(PollingPolicy.withJitter(delay).toMillis());
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Sends a single request to a status URL. Azure-AsyncOperation URLs return a status property, Location URLs
+     * return 202 while the operation runs and 200 or 204 once it is done.
+     * @return Final event of the operation, null while it is still running
+     */
+    private static String pollOnce(HttpPipeline pipeline, String statusUrl)
+    {
+        // Closing the response returns its connection to the pool, whether or not the body was read
+        String body;
+        try (HttpResponse response = pipeline.send(new HttpRequest(HttpMethod.GET, statusUrl)).block())
+        {
+            if (response == null || response.getStatusCode() == 202)
+            {
+                return null;
+            }
+
+            // Operation records are kept for a limited time by ARM, an unknown operation is checked again by the phases
+            if (response.getStatusCode() == 404)
+            {
+                return EXPIRED;
+            }
+            if (response.getStatusCode() >= 400)
+            {
+                return FAILED;
+            }
+
+            body = response.getBodyAsString().block();
+        }
+
+        if (body == null || body.isBlank())
+        {
+            return COMPLETED;
+        }
+
+        JsonElement status;
+        try
+        {
+            JsonElement document = JsonParser.parseString(body);
+            status = document.isJsonObject() ? document.getAsJsonObject().get("status") : null;
+        }
+        catch (JsonParseException e)
+        {
+            // An unreadable status is treated as unknown, the resource is checked again by the phases
+            Utils.writeWarningMessage("Unable to read the status returned by " + statusUrl + ": " + e.getMessage());
+            return EXPIRED;
+        }
+
+        if (status == null || !status.isJsonPrimitive())
+        {
+            return COMPLETED;
+        }
+        switch (status.getAsString().toLowerCase(Locale.ROOT))
+        {
+            case "succeeded":
+                return COMPLETED;
+            case "failed":
+            case "canceled":
+                return FAILED;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Closes the journal of the run, writing the records still buffered
+     * @param succeeded True if the run completed successfully, in which case there is nothing left to resume and the
+     *                  journal file is deleted
+     */
+    public static synchronized void finish(boolean succeeded)
+    {
+        OperationJournal journal = current;
+        current = new OperationJournal(null, 0);
+        journal.close();
+
+        if (succeeded && journal.path != null)
+        {
+            try
+            {
+                Files.deleteIfExists(journal.path);
+            }
+            catch (IOException e)
+            {
+                Utils.writeWarningMessage("Unable to delete operation journal " + journal.path + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void close()
+    {
+        if (path == null)
+        {
+            return;
+        }
+
+        synchronized (this)
+        {
+            closed = true;
+            notifyAll();
+        }
+
+        try
+        {
+            flusher.join();
+            channel.close();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch (IOException e)
+        {
+            Utils.writeWarningMessage("Unable to close operation journal " + path + ": " + e.getMessage());
+        }
+    }
+}
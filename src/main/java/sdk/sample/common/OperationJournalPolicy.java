@@ -0,0 +1,67 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.common;
+
+import com.azure.core.http.HttpMethod;
+import com.azure.core.http.HttpPipelineCallContext;
+import com.azure.core.http.HttpPipelineNextPolicy;
+import com.azure.core.http.HttpResponse;
+import com.azure.core.http.policy.HttpPipelinePolicy;
+import reactor.core.publisher.Mono;
+
+// HTTP pipeline policy journaling the status URL returned by ARM when a long-running operation is accepted, so that a
+// run interrupted while the operation is in flight can resume polling it instead of submitting it again
+public class OperationJournalPolicy implements HttpPipelinePolicy
+{
+    private static final String ASYNC_OPERATION = "Azure-AsyncOperation";
+    private static final String LOCATION = "Location";
+
+    @Override
+    public Mono<HttpResponse> process(HttpPipelineCallContext context, HttpPipelineNextPolicy next)
+    {
+        String operation = operationOf(context.getHttpRequest().getHttpMethod());
+        if (operation == null)
+        {
+            return next.process();
+        }
+
+        return next.process().doOnNext(response -> {
+            if (response.getStatusCode() != 201 && response.getStatusCode() != 202)
+            {
+                return;
+            }
+
+            // Azure-AsyncOperation reports the status of the operation itself and is preferred to Location
+            String statusUrl = response.getHeaderValue(ASYNC_OPERATION);
+            if (statusUrl == null)
+            {
+                statusUrl = response.getHeaderValue(LOCATION);
+            }
+            if (statusUrl != null)
+            {
+                OperationJournal.current().accepted(operation, AnfResourceId.parse(response.getRequest().getUrl().getPath()), statusUrl);
+            }
+        });
+    }
+
+    /**
+     * Maps the methods starting long-running operations to the operation names used by CommonSdk.runOperation
+     */
+    private static String operationOf(HttpMethod method)
+    {
+        switch (method)
+        {
+            case PUT:
+                return "create";
+            case PATCH:
+                return "update";
+            case DELETE:
+                return "delete";
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.common;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+
+// Caps the number of operations of the same kind in progress at the same time. Unlike a semaphore, waiting for a permit
+// does not block a thread: acquire returns a future completed once a permit is available, so operations queued behind a
+// limit never hold the worker threads other operations need.
+public class OperationLimit
+{
+    // Permits not handed out
+    private int available;
+
+    // Acquisitions waiting for a permit, in the order they were requested
+    private final Queue<CompletableFuture<Void>> waiting = new ArrayDeque<>();
+
+    /**
+     * Creates a limit
+     * @param permits Maximum number of operations in progress at the same time, at least 1
+     */
+    public OperationLimit(int permits)
+    {
+        this.available = Math.max(1, permits);
+    }
+
+    /**
+     * Requests a permit, to be returned with release once the operation completed
+     * @return Future completed once the permit is granted, already completed if one is available
+     */
+    public synchronized CompletableFuture<Void> acquire()
+    {
+        if (available > 0)
+        {
+            available--;
+            return CompletableFuture.completedFuture(null);
+        }
+
+        CompletableFuture<Void> permit = new CompletableFuture<>();
+        waiting.add(permit);
+        return permit;
+    }
+
+    /**
+     * Returns a permit, handing it to the oldest waiting acquisition if any
+     */
+    public void release()
+    {
+        CompletableFuture<Void> next;
+        synchronized (this)
+        {
+            next = waiting.poll();
+            if (next == null)
+            {
+                available++;
+                return;
+            }
+        }
+
+        // Completed outside the lock, the stages waiting for the permit may run on this thread
+        next.complete(null);
+    }
+}
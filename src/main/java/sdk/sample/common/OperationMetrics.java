@@ -0,0 +1,331 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.common;
+
+import io.opentelemetry.api.common.Attributes;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Latency and error statistics per resource type and operation, e.g. "Volume" / "create". HTTP requests are recorded
+// by OperationMetricsPolicy in the management client pipeline, whole operations (a long-running operation from its
+// first request to its final result, or a phase of the sample) by wrapping them with time, which also traces them as a
+// span. Statistics are exposed as MXBeans under sdk.sample:type=OperationMetrics and written as a table by writeSummary.
+public class OperationMetrics
+{
+    private static final String JMX_DOMAIN = "sdk.sample";
+
+    // Histograms keep 3 significant digits of microsecond values
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private static final Map<String, Stats> STATS = new ConcurrentHashMap<>();
+
+    /**
+     * Statistics of one resource type and operation, readable through JMX
+     */
+    public interface StatsMXBean
+    {
+        String getResource();
+
+        String getOperation();
+
+        long getRequests();
+
+        long getFailedRequests();
+
+        long getRetries();
+
+        long getPolls();
+
+        double getRequestLatencyP50Ms();
+
+        double getRequestLatencyP99Ms();
+
+        double getRequestLatencyMaxMs();
+
+        long getOperations();
+
+        long getFailedOperations();
+
+        double getOperationDurationP50Ms();
+
+        double getOperationDurationP99Ms();
+
+        double getOperationDurationMaxMs();
+    }
+
+    /**
+     * Runs an operation and records its duration and outcome
+     * @param type Type of the resource the operation works on
+     * @param operation Operation name, e.g. "create"
+     * @param call Operation
+     * @return Result of the operation
+     */
+    public static <T> T time(AnfResourceType<?> type, String operation, Supplier<T> call)
+    {
+        return time(type.toString(), operation, call);
+    }
+
+    /**
+     * Runs an operation in a span named after the resource type and operation, and records its duration and outcome
+     * @param resource Resource type, or any other grouping such as "Phase"
+     * @param operation Operation name, e.g. "create"
+     * @param call Operation
+     * @return Result of the operation
+     */
+    public static <T> T time(String resource, String operation, Supplier<T> call)
+    {
+        Stats stats = get(resource, operation);
+        return Tracing.inSpan(resource + " " + operation, Attributes.of(Tracing.RESOURCE_TYPE, resource, Tracing.OPERATION, operation), () -> {
+            long start = System.nanoTime();
+            boolean failed = true;
+            try
+            {
+                T result = call.get();
+                failed = false;
+                return result;
+            }
+            finally
+            {
+                stats.recordOperation(System.nanoTime() - start, failed);
+            }
+        });
+    }
+
+    /**
+     * Runs an operation without result and records its duration and outcome
+     * @param type Type of the resource the operation works on
+     * @param operation Operation name, e.g. "delete"
+     * @param call Operation
+     */
+    public static void run(AnfResourceType<?> type, String operation, Runnable call)
+    {
+        run(type.toString(), operation, call);
+    }
+
+    /**
+     * Runs an operation without result and records its duration and outcome
+     * @param resource Resource type, or any other grouping such as "Phase"
+     * @param operation Operation name, e.g. "delete"
+     * @param call Operation
+     */
+    public static void run(String resource, String operation, Runnable call)
+    {
+        time(resource, operation, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    /**
+     * Records a single HTTP request, called by OperationMetricsPolicy
+     * @param resource Resource type
+     * @param operation Operation the request belongs to
+     * @param nanos Time from sending the request to receiving the response
+     * @param failed True if the request failed or was answered with an error status
+     * @param retry True if the request is a retry of a previous attempt
+     * @param poll True if the request polls the status of a long-running operation
+     */
+    static void recordRequest(String resource, String operation, long nanos, boolean failed, boolean retry, boolean poll)
+    {
+        get(resource, operation).recordRequest(nanos, failed, retry, poll);
+    }
+
+    /**
+     * Gets the statistics of a resource type and operation
+     * @param resource Resource type
+     * @param operation Operation name
+     * @return Statistics, created and registered with JMX on first use
+     */
+    public static StatsMXBean getStats(String resource, String operation)
+    {
+        return get(resource, operation);
+    }
+
+    private static Stats get(String resource, String operation)
+    {
+        return STATS.computeIfAbsent(resource + "|" + operation, key -> {
+            Stats stats = new Stats(resource, operation);
+            register(stats);
+            return stats;
+        });
+    }
+
+    private static void register(Stats stats)
+    {
+        try
+        {
+            ObjectName name = new ObjectName(JMX_DOMAIN + ":type=OperationMetrics,resource=" + ObjectName.quote(stats.resource)
+                    + ",operation=" + ObjectName.quote(stats.operation));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(stats, name);
+        }
+        catch (JMException e)
+        {
+            Utils.writeWarningMessage("Unable to expose metrics of " + stats.resource + " " + stats.operation + " through JMX: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes one line per resource type and operation, sorted by resource type then operation
+     */
+    public static void writeSummary()
+    {
+        if (STATS.isEmpty())
+        {
+            return;
+        }
+
+        List<Stats> rows = new ArrayList<>(STATS.values());
+        rows.sort((a, b) -> a.resource.equals(b.resource) ? a.operation.compareTo(b.operation) : a.resource.compareTo(b.resource));
+
+        String format = "%-14s %-10s %8s %6s %7s %6s %9s %9s %9s %6s %6s %10s %10s %10s";
+        Utils.writeConsoleMessage("Operation metrics (latencies in milliseconds):");
+        Utils.writeConsoleMessage(String.format(format, "Resource", "Operation", "Requests", "Errors", "Retries", "Polls",
+                "Req p50", "Req p99", "Req max", "Ops", "Failed", "Op p50", "Op p99", "Op max"));
+        for (Stats stats : rows)
+        {
+            Utils.writeConsoleMessage(String.format(format, stats.resource, stats.operation,
+                    stats.getRequests(), stats.getFailedRequests(), stats.getRetries(), stats.getPolls(),
+                    formatMs(stats.getRequestLatencyP50Ms()), formatMs(stats.getRequestLatencyP99Ms()), formatMs(stats.getRequestLatencyMaxMs()),
+                    stats.getOperations(), stats.getFailedOperations(),
+                    formatMs(stats.getOperationDurationP50Ms()), formatMs(stats.getOperationDurationP99Ms()), formatMs(stats.getOperationDurationMaxMs())));
+        }
+    }
+
+    private static String formatMs(double ms)
+    {
+        return String.format("%.1f", ms);
+    }
+
+    private static final class Stats implements StatsMXBean
+    {
+        private final String resource;
+        private final String operation;
+
+        private final Histogram requestLatency = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+        private final Histogram operationDuration = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+        private final LongAdder failedRequests = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+        private final LongAdder polls = new LongAdder();
+        private final LongAdder failedOperations = new LongAdder();
+
+        Stats(String resource, String operation)
+        {
+            this.resource = resource;
+            this.operation = operation;
+        }
+
+        void recordRequest(long nanos, boolean failed, boolean retry, boolean poll)
+        {
+            requestLatency.recordValue(Math.max(0, nanos / 1_000));
+            if (failed)
+            {
+                failedRequests.increment();
+            }
+            if (retry)
+            {
+                retries.increment();
+            }
+            if (poll)
+            {
+                polls.increment();
+            }
+        }
+
+        void recordOperation(long nanos, boolean failed)
+        {
+            operationDuration.recordValue(Math.max(0, nanos / 1_000));
+            if (failed)
+            {
+                failedOperations.increment();
+            }
+        }
+
+        private static double percentileMs(Histogram histogram, double percentile)
+        {
+            return histogram.getTotalCount() == 0 ? 0 : histogram.getValueAtPercentile(percentile) / 1_000.0;
+        }
+
+        @Override
+        public String getResource() {
+            return resource;
+        }
+
+        @Override
+        public String getOperation() {
+            return operation;
+        }
+
+        @Override
+        public long getRequests() {
+            return requestLatency.getTotalCount();
+        }
+
+        @Override
+        public long getFailedRequests() {
+            return failedRequests.sum();
+        }
+
+        @Override
+        public long getRetries() {
+            return retries.sum();
+        }
+
+        @Override
+        public long getPolls() {
+            return polls.sum();
+        }
+
+        @Override
+        public double getRequestLatencyP50Ms() {
+            return percentileMs(requestLatency, 50);
+        }
+
+        @Override
+        public double getRequestLatencyP99Ms() {
+            return percentileMs(requestLatency, 99);
+        }
+
+        @Override
+        public double getRequestLatencyMaxMs() {
+            return requestLatency.getTotalCount() == 0 ? 0 : requestLatency.getMaxValue() / 1_000.0;
+        }
+
+        @Override
+        public long getOperations() {
+            return operationDuration.getTotalCount();
+        }
+
+        @Override
+        public long getFailedOperations() {
+            return failedOperations.sum();
+        }
+
+        @Override
+        public double getOperationDurationP50Ms() {
+            return percentileMs(operationDuration, 50);
+        }
+
+        @Override
+        public double getOperationDurationP99Ms() {
+            return percentileMs(operationDuration, 99);
+        }
+
+        @Override
+        public double getOperationDurationMaxMs() {
+            return operationDuration.getTotalCount() == 0 ? 0 : operationDuration.getMaxValue() / 1_000.0;
+        }
+    }
+}
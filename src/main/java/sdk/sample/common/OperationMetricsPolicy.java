@@ -0,0 +1,136 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.common;
+
+import com.azure.core.http.HttpMethod;
+import com.azure.core.http.HttpPipelineCallContext;
+import com.azure.core.http.HttpPipelineNextPolicy;
+import com.azure.core.http.HttpPipelinePosition;
+import com.azure.core.http.HttpResponse;
+import com.azure.core.http.policy.HttpPipelinePolicy;
+import reactor.core.publisher.Mono;
+
+import java.net.URL;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// HTTP pipeline policy recording every request of the management client in OperationMetrics. The resource type and
+// operation are derived from the URL and method. Status URLs returned by a long-running operation are remembered, so
+// that the polling requests sent to them are counted against the operation that started it.
+public class OperationMetricsPolicy implements HttpPipelinePolicy
+{
+    private static final String ASYNC_OPERATION = "Azure-AsyncOperation";
+    private static final String LOCATION = "Location";
+
+    // Marks a call context whose request was already sent once, any further attempt is a retry
+    private static final String ATTEMPTED = "sdk-sample-metrics-attempted";
+
+    // Upper bound of the status URLs remembered, the map is emptied once reached
+    private static final int MAX_TRACKED_OPERATIONS = 4096;
+
+    // Collection segments of list URLs, lower case, mapped to the type of the listed resources
+    private static final Map<String, AnfResourceType<?>> COLLECTIONS = Map.of(
+            "netappaccounts", AnfResourceType.ACCOUNT,
+            "capacitypools", AnfResourceType.CAPACITY_POOL,
+            "volumes", AnfResourceType.VOLUME,
+            "snapshots", AnfResourceType.SNAPSHOT);
+
+    // Status URL of each long-running operation in progress, mapped to its resource type and operation
+    private final Map<String, String[]> statusUrls = new ConcurrentHashMap<>();
+
+    @Override
+    public Mono<HttpResponse> process(HttpPipelineCallContext context, HttpPipelineNextPolicy next)
+    {
+        boolean retry = context.getData(ATTEMPTED).isPresent();
+        context.setData(ATTEMPTED, true);
+
+        URL url = context.getHttpRequest().getUrl();
+        HttpMethod method = context.getHttpRequest().getHttpMethod();
+        String[] tracked = statusUrls.get(withoutQuery(url.toString()));
+        String[] key = tracked != null ? tracked : classify(url.getPath(), method);
+        boolean poll = tracked != null;
+
+        long start = System.nanoTime();
+        return next.process()
+                .doOnNext(response -> {
+                    OperationMetrics.recordRequest(key[0], key[1], System.nanoTime() - start, response.getStatusCode() >= 400, retry, poll);
+                    if (!poll && method != HttpMethod.GET)
+                    {
+                        track(response, key);
+                    }
+                })
+                .doOnError(e -> OperationMetrics.recordRequest(key[0], key[1], System.nanoTime() - start, true, retry, poll));
+    }
+
+    /**
+     * Runs once per attempt, after the retry policy, so that every attempt is measured and retries are counted
+     */
+    @Override
+    public HttpPipelinePosition getPipelinePosition()
+    {
+        return HttpPipelinePosition.PER_RETRY;
+    }
+
+    /**
+     * Remembers the status URLs returned when a long-running operation starts
+     */
+    private void track(HttpResponse response, String[] key)
+    {
+        if (statusUrls.size() >= MAX_TRACKED_OPERATIONS)
+        {
+            statusUrls.clear();
+        }
+
+        // A Location pointing back to the resource itself is not a status URL, later reads of the resource are no polls
+        String resourceUrl = withoutQuery(response.getRequest().getUrl().toString());
+        for (String header : new String[] {ASYNC_OPERATION, LOCATION})
+        {
+            String statusUrl = response.getHeaderValue(header);
+            if (statusUrl != null && !withoutQuery(statusUrl).equalsIgnoreCase(resourceUrl))
+            {
+                statusUrls.put(withoutQuery(statusUrl), key);
+            }
+        }
+    }
+
+    /**
+     * Derives the resource type and operation of a request
+     * @return Resource type and operation, e.g. {"Volume", "list"}
+     */
+    private static String[] classify(String path, HttpMethod method)
+    {
+        String lastSegment = path.substring(path.lastIndexOf('/') + 1).toLowerCase(Locale.ROOT);
+        AnfResourceType<?> listed = COLLECTIONS.get(lastSegment);
+        if (listed != null && method == HttpMethod.GET)
+        {
+            return new String[] {listed.toString(), "list"};
+        }
+
+        AnfResourceId id = AnfResourceId.parse(path);
+        AnfResourceType<?> type = id != null ? AnfResourceType.of(id) : null;
+        String resource = type != null ? type.toString() : "Other";
+        switch (method)
+        {
+            case GET:
+                return new String[] {resource, "get"};
+            case PUT:
+                return new String[] {resource, "create"};
+            case PATCH:
+                return new String[] {resource, "update"};
+            case DELETE:
+                return new String[] {resource, "delete"};
+            default:
+                return new String[] {resource, method.toString().toLowerCase(Locale.ROOT)};
+        }
+    }
+
+    private static String withoutQuery(String value)
+    {
+        int query = value.indexOf('?');
+        return query == -1 ? value : value.substring(0, query);
+    }
+}
@@ -0,0 +1,247 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.common;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.common.InstrumentationScopeInfo;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.data.EventData;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Span exporter appending every batch of spans to a local file as one OTLP/JSON ExportTraceServiceRequest per line,
+// the format of the OpenTelemetry Collector file exporter, so runs can be loaded into any OTLP tool offline
+public class OtlpJsonFileSpanExporter implements SpanExporter
+{
+    private final Gson gson = new Gson();
+    private final Path path;
+    private BufferedWriter writer;
+
+    /**
+     * Creates an exporter appending to a file, which is created if needed
+     * @param path Path of the file
+     */
+    public OtlpJsonFileSpanExporter(Path path)
+    {
+        this.path = path;
+    }
+
+    @Override
+    public synchronized CompletableResultCode export(Collection<SpanData> spans)
+    {
+        try
+        {
+            if (writer == null)
+            {
+                writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+
+            writer.write(gson.toJson(toRequest(spans)));
+            writer.newLine();
+            writer.flush();
+            return CompletableResultCode.ofSuccess();
+        }
+        catch (IOException e)
+        {
+            Utils.writeWarningMessage("Unable to write spans to " + path + ": " + e.getMessage());
+            return CompletableResultCode.ofFailure();
+        }
+    }
+
+    @Override
+    public CompletableResultCode flush()
+    {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public synchronized CompletableResultCode shutdown()
+    {
+        if (writer != null)
+        {
+            try
+            {
+                writer.close();
+            }
+            catch (IOException e)
+            {
+                Utils.writeWarningMessage("Unable to close " + path + ": " + e.getMessage());
+            }
+            writer = null;
+        }
+        return CompletableResultCode.ofSuccess();
+    }
+
+    /**
+     * Builds the export request, grouping spans by resource then by instrumentation scope
+     */
+    private static JsonObject toRequest(Collection<SpanData> spans)
+    {
+        Map<Resource, Map<InstrumentationScopeInfo, JsonArray>> grouped = new LinkedHashMap<>();
+        for (SpanData span : spans)
+        {
+            grouped.computeIfAbsent(span.getResource(), resource -> new LinkedHashMap<>())
+                    .computeIfAbsent(span.getInstrumentationScopeInfo(), scope -> new JsonArray())
+                    .add(toSpan(span));
+        }
+
+        JsonArray resourceSpans = new JsonArray();
+        for (Map.Entry<Resource, Map<InstrumentationScopeInfo, JsonArray>> resourceEntry : grouped.entrySet())
+        {
+            JsonArray scopeSpans = new JsonArray();
+            for (Map.Entry<InstrumentationScopeInfo, JsonArray> scopeEntry : resourceEntry.getValue().entrySet())
+            {
+                JsonObject scope = new JsonObject();
+                scope.addProperty("name", scopeEntry.getKey().getName());
+                if (scopeEntry.getKey().getVersion() != null)
+                {
+                    scope.addProperty("version", scopeEntry.getKey().getVersion());
+                }
+
+                JsonObject scopeSpan = new JsonObject();
+                scopeSpan.add("scope", scope);
+                scopeSpan.add("spans", scopeEntry.getValue());
+                scopeSpans.add(scopeSpan);
+            }
+
+            JsonObject resource = new JsonObject();
+            resource.add("attributes", toAttributes(resourceEntry.getKey().getAttributes()));
+
+            JsonObject resourceSpan = new JsonObject();
+            resourceSpan.add("resource", resource);
+            resourceSpan.add("scopeSpans", scopeSpans);
+            resourceSpans.add(resourceSpan);
+        }
+
+        JsonObject request = new JsonObject();
+        request.add("resourceSpans", resourceSpans);
+        return request;
+    }
+
+    private static JsonObject toSpan(SpanData span)
+    {
+        JsonObject json = new JsonObject();
+        json.addProperty("traceId", span.getTraceId());
+        json.addProperty("spanId", span.getSpanId());
+        if (span.getParentSpanContext().isValid())
+        {
+            json.addProperty("parentSpanId", span.getParentSpanId());
+        }
+        json.addProperty("name", span.getName());
+        json.addProperty("kind", toKind(span.getKind()));
+        json.addProperty("startTimeUnixNano", String.valueOf(span.getStartEpochNanos()));
+        json.addProperty("endTimeUnixNano", String.valueOf(span.getEndEpochNanos()));
+        json.add("attributes", toAttributes(span.getAttributes()));
+
+        List<EventData> events = span.getEvents();
+        if (!events.isEmpty())
+        {
+            JsonArray jsonEvents = new JsonArray();
+            for (EventData event : events)
+            {
+                JsonObject jsonEvent = new JsonObject();
+                jsonEvent.addProperty("timeUnixNano", String.valueOf(event.getEpochNanos()));
+                jsonEvent.addProperty("name", event.getName());
+                jsonEvent.add("attributes", toAttributes(event.getAttributes()));
+                jsonEvents.add(jsonEvent);
+            }
+            json.add("events", jsonEvents);
+        }
+
+        JsonObject status = new JsonObject();
+        status.addProperty("code", span.getStatus().getStatusCode() == StatusCode.ERROR ? 2 : span.getStatus().getStatusCode() == StatusCode.OK ? 1 : 0);
+        if (!span.getStatus().getDescription().isEmpty())
+        {
+            status.addProperty("message", span.getStatus().getDescription());
+        }
+        json.add("status", status);
+
+        return json;
+    }
+
+    /**
+     * Maps a span kind to the numbering of the OTLP protocol
+     */
+    private static int toKind(SpanKind kind)
+    {
+        switch (kind)
+        {
+            case SERVER:
+                return 2;
+            case CLIENT:
+                return 3;
+            case PRODUCER:
+                return 4;
+            case CONSUMER:
+                return 5;
+            default:
+                return 1;
+        }
+    }
+
+    private static JsonArray toAttributes(Attributes attributes)
+    {
+        JsonArray json = new JsonArray();
+        attributes.forEach((key, value) -> {
+            JsonObject attribute = new JsonObject();
+            attribute.addProperty("key", key.getKey());
+            attribute.add("value", toValue(key, value));
+            json.add(attribute);
+        });
+        return json;
+    }
+
+    private static JsonObject toValue(AttributeKey<?> key, Object value)
+    {
+        JsonObject json = new JsonObject();
+        switch (key.getType())
+        {
+            case BOOLEAN:
+                json.addProperty("boolValue", (Boolean) value);
+                break;
+            case LONG:
+                // 64-bit integers are encoded as strings in OTLP/JSON
+                json.addProperty("intValue", String.valueOf(value));
+                break;
+            case DOUBLE:
+                json.addProperty("doubleValue", (Double) value);
+                break;
+            case STRING:
+                json.addProperty("stringValue", (String) value);
+                break;
+            default:
+                JsonArray values = new JsonArray();
+                for (Object element : (List<?>) value)
+                {
+                    JsonObject elementValue = new JsonObject();
+                    elementValue.addProperty("stringValue", String.valueOf(element));
+                    values.add(elementValue);
+                }
+                JsonObject array = new JsonObject();
+                array.add("values", values);
+                json.add("arrayValue", array);
+        }
+        return json;
+    }
+}
@@ -0,0 +1,52 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.common;
+
+// Heuristic used by PoolPlanner to place volumes, largest first, into capacity pools
+public enum PackingHeuristic
+{
+    // Fullest pool the volume fits in, which leaves the most room in the other pools for large volumes
+    BEST_FIT("bestFit"),
+
+    // First pool the volume fits in, in the order pools were opened
+    FIRST_FIT("firstFit");
+
+    private final String value;
+
+    PackingHeuristic(String value)
+    {
+        this.value = value;
+    }
+
+    /**
+     * Parses the heuristic as written in the placement file
+     * @param value "bestFit" or "firstFit", case insensitive. Null defaults to best fit
+     * @return Matching heuristic
+     */
+    public static PackingHeuristic fromString(String value)
+    {
+        if (value == null || value.isBlank())
+        {
+            return BEST_FIT;
+        }
+
+        for (PackingHeuristic heuristic : values())
+        {
+            if (heuristic.value.equalsIgnoreCase(value.trim()))
+            {
+                return heuristic;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown packing heuristic '" + value + "', valid values are 'bestFit' and 'firstFit'");
+    }
+
+    @Override
+    public String toString()
+    {
+        return value;
+    }
+}
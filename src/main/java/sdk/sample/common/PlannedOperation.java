@@ -0,0 +1,102 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.common;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Single create, update or delete operation of a provisioning plan, with the operations that must complete before it
+public class PlannedOperation
+{
+    public enum Action
+    {
+        CREATE("+"),
+        UPDATE("~"),
+        DELETE("-");
+
+        private final String symbol;
+
+        Action(String symbol)
+        {
+            this.symbol = symbol;
+        }
+
+        public String getSymbol() {
+            return symbol;
+        }
+    }
+
+    private final Action action;
+    private final AnfResourceType<?> type;
+    private final AnfResourceId id;
+
+    // Human readable list of the changed properties, e.g. "size 4TiB -> 8TiB"
+    private final List<String> changes;
+
+    // Calls to the Resource Provider performing the operation
+    private final Runnable execution;
+
+    private final List<PlannedOperation> dependencies = new ArrayList<>();
+
+    /**
+     * Creates an operation
+     * @param action Create, update or delete
+     * @param type Type of the resource
+     * @param id Resource id of the resource
+     * @param changes Changed properties, shown when the plan is printed
+     * @param execution Calls to the Resource Provider performing the operation
+     * @param dependencies Operations that must complete before this one starts, null entries are ignored
+     */
+    public PlannedOperation(Action action, AnfResourceType<?> type, AnfResourceId id, List<String> changes, Runnable execution, PlannedOperation... dependencies)
+    {
+        this.action = action;
+        this.type = type;
+        this.id = id;
+        this.changes = changes;
+        this.execution = execution;
+        for (PlannedOperation dependency : dependencies)
+        {
+            if (dependency != null)
+            {
+                this.dependencies.add(dependency);
+            }
+        }
+    }
+
+    /**
+     * Describes the operation on a single line
+     * @return e.g. "~ Volume /subscriptions/.../volumes/vol1 (usageThreshold 100GiB -> 200GiB)"
+     */
+    public String describe()
+    {
+        String description = action.getSymbol() + " " + type + " " + id;
+        return changes.isEmpty() ? description : description + " (" + String.join(", ", changes) + ")";
+    }
+
+    public Action getAction() {
+        return action;
+    }
+
+    public AnfResourceType<?> getType() {
+        return type;
+    }
+
+    public AnfResourceId getId() {
+        return id;
+    }
+
+    public List<String> getChanges() {
+        return changes;
+    }
+
+    public Runnable getExecution() {
+        return execution;
+    }
+
+    public List<PlannedOperation> getDependencies() {
+        return dependencies;
+    }
+}
@@ -0,0 +1,109 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.common;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Describes how often and for how long ResourcePoller checks the state of a resource
+public final class PollingPolicy
+{
+    // Snapshots are usually gone within a few seconds
+    private static final PollingPolicy SNAPSHOT = new PollingPolicy(Duration.ofSeconds(1), Duration.ofSeconds(10), 2.0, Duration.ofMinutes(5));
+
+    // Volume deletion releases the mount targets first, which can take several minutes
+    private static final PollingPolicy VOLUME = new PollingPolicy(Duration.ofSeconds(2), Duration.ofSeconds(20), 2.0, Duration.ofMinutes(30));
+
+    private static final PollingPolicy CAPACITY_POOL = new PollingPolicy(Duration.ofSeconds(2), Duration.ofSeconds(15), 2.0, Duration.ofMinutes(15));
+
+    private static final PollingPolicy ACCOUNT = new PollingPolicy(Duration.ofSeconds(2), Duration.ofSeconds(15), 2.0, Duration.ofMinutes(15));
+
+    private final Duration initialDelay;
+    private final Duration maxDelay;
+    private final double multiplier;
+    private final Duration timeout;
+
+    /**
+     * Creates a polling policy
+     * @param initialDelay Delay between the first and the second probe
+     * @param maxDelay Upper bound of the delay between two probes
+     * @param multiplier Factor applied to the delay after every probe
+     * @param timeout Total time budget, polling stops once it is exhausted
+     */
+    public PollingPolicy(Duration initialDelay, Duration maxDelay, double multiplier, Duration timeout)
+    {
+        this.initialDelay = initialDelay;
+        this.maxDelay = maxDelay;
+        this.multiplier = multiplier;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Creates a policy that probes at a fixed interval, with the same total budget as the given number of retries
+     * @param intervalInSec Time in seconds between two probes
+     * @param retries Number of times polling will be performed
+     * @return Fixed interval polling policy
+     */
+    public static PollingPolicy fixed(int intervalInSec, int retries)
+    {
+        Duration interval = Duration.ofSeconds(intervalInSec);
+        return new PollingPolicy(interval, interval, 1.0, interval.multipliedBy(retries));
+    }
+
+    /**
+     * Returns the default policy tuned for a resource type
+     * @param type Type of the resource, null for the account policy
+     * @return Polling policy of the resource type
+     */
+    public static PollingPolicy forResource(AnfResourceType<?> type)
+    {
+        if (type == AnfResourceType.SNAPSHOT)
+        {
+            return SNAPSHOT;
+        }
+        else if (type == AnfResourceType.VOLUME)
+        {
+            return VOLUME;
+        }
+        else if (type == AnfResourceType.CAPACITY_POOL)
+        {
+            return CAPACITY_POOL;
+        }
+        return ACCOUNT;
+    }
+
+    /**
+     * Computes the delay following the given one, capped to maxDelay
+     * @param previousDelay Delay used before the previous probe, null before the first wait
+     * @return Next delay, without jitter
+     */
+    Duration nextDelay(Duration previousDelay)
+    {
+        if (previousDelay == null)
+        {
+            return initialDelay;
+        }
+
+        long next = (long) (previousDelay.toMillis() * multiplier);
+        return Duration.ofMillis(Math.min(next, maxDelay.toMillis()));
+    }
+
+    /**
+     * Applies "equal jitter" to a delay: half of it is kept and the other half is randomized, so that many workers
+     * started together do not keep probing the Resource Provider at the same instant
+     * @param delay Delay computed by nextDelay
+     * @return Delay to actually wait
+     */
+    static Duration withJitter(Duration delay)
+    {
+        long half = delay.toMillis() / 2;
+        return Duration.ofMillis(half + ThreadLocalRandom.current().nextLong(half + 1));
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+}
@@ -0,0 +1,352 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.common;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import sdk.sample.model.ModelCapacityPool;
+import sdk.sample.model.ModelNetAppAccount;
+import sdk.sample.model.ModelPlacement;
+import sdk.sample.model.ModelVolume;
+
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Computes the capacity pools of a flat list of volumes: volumes are sized by VolumeSizing and grouped by service level,
+// then packed largest first into the fewest pools with a best-fit or first-fit heuristic. A pool must hold both the
+// quota and the throughput of its volumes, which with automatic QoS is the quota alone. Each pool is rounded up to the
+// 4 TiB granularity, so fewer and fuller pools also provision less unused capacity. With automatic QoS both heuristics
+// run in O(n log n), tens of thousands of volumes are placed in well under a second. The result is written as an
+// appsettings.json accounts tree ready to be created by the sample.
+public class PoolPlanner
+{
+    // Capacity pool sizes are multiples of 4 TiB
+    private static final long POOL_GRANULARITY = Utils.getBytesFromTB(4);
+
+    // Volume to place, with the share of a pool it needs
+    private static final class Item
+    {
+        private final ModelVolume volume;
+
+        // Quota of the volume
+        private final long capacity;
+
+        // Pool capacity serving the volume's throughput, equal to the quota with automatic QoS
+        private final long throughputCapacity;
+
+        private Item(ModelVolume volume, long capacity, long throughputCapacity)
+        {
+            this.volume = volume;
+            this.capacity = capacity;
+            this.throughputCapacity = throughputCapacity;
+        }
+
+        private long footprint()
+        {
+            return Math.max(capacity, throughputCapacity);
+        }
+    }
+
+    // Capacity pool being filled by the planner
+    private static final class Pool
+    {
+        private final List<ModelVolume> volumes = new ArrayList<>();
+        private long capacity;
+        private long throughputCapacity;
+
+        private void add(Item item)
+        {
+            volumes.add(item.volume);
+            capacity += item.capacity;
+            throughputCapacity += item.throughputCapacity;
+        }
+
+        private long required()
+        {
+            return Math.max(capacity, throughputCapacity);
+        }
+    }
+
+    /**
+     * Plans the capacity pools of a placement file and writes the resulting appsettings.json
+     * @param path Placement file, see ModelPlacement
+     */
+    public static void planFile(String path)
+    {
+        ModelPlacement placement;
+        try (FileReader reader = new FileReader(path))
+        {
+            placement = new Gson().fromJson(reader, ModelPlacement.class);
+        }
+        catch (FileNotFoundException e)
+        {
+            Utils.writeWarningMessage("Could not find placement file " + path + ". Exiting.");
+            return;
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Unable to read placement file " + path, e);
+        }
+
+        ModelNetAppAccount account = plan(placement);
+
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("general", placement.getGeneral());
+        settings.put("accounts", List.of(account));
+        try (Writer writer = Files.newBufferedWriter(Paths.get(placement.getOutput()), StandardCharsets.UTF_8))
+        {
+            new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create().toJson(settings, writer);
+        }
+        catch (IOException e)
+        {
+            Utils.writeErrorMessage("An error occurred while writing planned settings to " + placement.getOutput() + ".\nError message: " + e.getMessage());
+            throw new UncheckedIOException(e);
+        }
+
+        Utils.writeSuccessMessage("Planned settings written to " + placement.getOutput());
+    }
+
+    /**
+     * Places the volumes of a placement into the fewest capacity pools of each service level. Volumes get the service
+     * level and quota picked by VolumeSizing, and an explicit throughput in manual QoS pools.
+     * @param placement Account, volumes and planning limits
+     * @return Account whose capacity pools hold every volume
+     */
+    public static ModelNetAppAccount plan(ModelPlacement placement)
+    {
+        if (placement.getAccount() == null || placement.getVolumes() == null)
+        {
+            throw new IllegalArgumentException("The placement file must have an account and a list of volumes");
+        }
+
+        long start = System.nanoTime();
+        long maxPoolSize = Utils.getBytesFromTB(Math.max(4, placement.getMaxPoolSizeTiB()));
+        int maxVolumesPerPool = Math.max(1, placement.getMaxVolumesPerPool());
+        PackingHeuristic heuristic = PackingHeuristic.fromString(placement.getHeuristic());
+        boolean manualQos = VolumeSizing.isManualQos(placement.getQosType());
+
+        // Volumes sized and grouped by service level, from the cheapest to the most expensive
+        Map<String, List<Item>> byServiceLevel = new TreeMap<>(Comparator.comparingDouble(VolumeSizing::getThroughputPerTiB));
+        int raised = 0;
+        List<String> oversized = new ArrayList<>();
+        for (ModelVolume volume : placement.getVolumes())
+        {
+            String requested = volume.getServiceLevel() != null ? volume.getServiceLevel() : placement.getDefaultServiceLevel();
+            String serviceLevel = VolumeSizing.isAuto(requested)
+                    ? VolumeSizing.selectServiceLevel(List.of(volume), manualQos)
+                    : VolumeSizing.normalizeServiceLevel(requested);
+
+            long quota = VolumeSizing.getQuota(volume, serviceLevel, manualQos);
+            long throughputCapacity = VolumeSizing.getThroughputCapacity(volume, serviceLevel, manualQos);
+            if (quota > VolumeSizing.MAX_VOLUME_SIZE || Math.max(quota, throughputCapacity) > maxPoolSize)
+            {
+                oversized.add(volume.getName() + " (" + Utils.getTBFromBytes(Math.max(quota, throughputCapacity)) + " TiB " + serviceLevel + ")");
+                continue;
+            }
+            if (quota > volume.getUsageThreshold())
+            {
+                volume.setUsageThreshold(quota);
+                raised++;
+            }
+            if (manualQos)
+            {
+                volume.setThroughputMibps(VolumeSizing.getThroughput(volume, serviceLevel));
+            }
+
+            // The service level belongs to the capacity pool once the volume is placed
+            volume.setServiceLevel(null);
+            byServiceLevel.computeIfAbsent(serviceLevel, key -> new ArrayList<>()).add(new Item(volume, quota, throughputCapacity));
+        }
+
+        if (!oversized.isEmpty())
+        {
+            Utils.writeErrorMessage(oversized.size() + " volume(s) exceed the largest volume or capacity pool: " + String.join(", ", oversized));
+            throw new IllegalArgumentException(oversized.size() + " volume(s) cannot be placed");
+        }
+        if (raised > 0)
+        {
+            Utils.writeConsoleMessage(raised + " volume quota(s) raised to the 100 GiB minimum or to sustain their throughput");
+        }
+
+        List<ModelCapacityPool> capacityPools = new ArrayList<>();
+        for (Map.Entry<String, List<Item>> entry : byServiceLevel.entrySet())
+        {
+            String serviceLevel = entry.getKey();
+            List<Item> items = entry.getValue();
+
+            // Largest volumes first, by name for a stable plan
+            items.sort(Comparator.comparingLong(Item::footprint).reversed()
+                    .thenComparing(item -> item.volume.getName(), Comparator.nullsLast(Comparator.naturalOrder())));
+            List<Pool> pools = heuristic == PackingHeuristic.FIRST_FIT
+                    ? firstFit(items, maxPoolSize, maxVolumesPerPool)
+                    : bestFit(items, maxPoolSize, maxVolumesPerPool);
+
+            long quota = 0;
+            long provisioned = 0;
+            for (int i = 0; i < pools.size(); i++)
+            {
+                Pool pool = pools.get(i);
+                ModelCapacityPool capacityPool = new ModelCapacityPool();
+                capacityPool.setName(placement.getPoolNamePrefix() + "-" + serviceLevel.toLowerCase(Locale.ROOT) + "-" + (i + 1));
+                capacityPool.setServiceLevel(serviceLevel);
+                capacityPool.setSize(roundUpToPoolSize(pool.required()));
+                capacityPool.setQosType(manualQos ? VolumeSizing.MANUAL_QOS : null);
+                capacityPool.setVolumes(pool.volumes);
+                capacityPools.add(capacityPool);
+
+                quota += pool.capacity;
+                provisioned += capacityPool.getSize();
+            }
+
+            Utils.writeConsoleMessage(serviceLevel + ": " + items.size() + " volume(s) in " + pools.size() + " capacity pool(s), "
+                    + Utils.getTBFromBytes(provisioned) + " TiB provisioned for " + Utils.getTBFromBytes(quota) + " TiB of quota ("
+                    + Math.round(1000.0 * quota / provisioned) / 10.0 + "% used)");
+        }
+
+        Utils.writeSuccessMessage("Placed " + placement.getVolumes().size() + " volume(s) in " + capacityPools.size() + " capacity pool(s) with "
+                + heuristic + (manualQos ? " and manual QoS" : "") + " in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+
+        ModelNetAppAccount account = new ModelNetAppAccount();
+        account.setName(placement.getAccount().getName());
+        account.setLocation(placement.getAccount().getLocation());
+        account.setCapacityPools(capacityPools);
+        return account;
+    }
+
+    /**
+     * Best-fit decreasing: every volume goes to the pool with the least free capacity that can hold it. Open pools are
+     * indexed by free capacity, so with automatic QoS each placement is a single ordered lookup. With manual QoS pools
+     * lacking free throughput are skipped, in order of free capacity.
+     */
+    private static List<Pool> bestFit(List<Item> items, long maxPoolSize, int maxVolumesPerPool)
+    {
+        List<Pool> pools = new ArrayList<>();
+        TreeMap<Long, ArrayDeque<Pool>> openByFree = new TreeMap<>();
+        for (Item item : items)
+        {
+            Pool pool = null;
+            for (Map.Entry<Long, ArrayDeque<Pool>> fit = openByFree.ceilingEntry(item.capacity); fit != null && pool == null; fit = openByFree.higherEntry(fit.getKey()))
+            {
+                for (Iterator<Pool> candidates = fit.getValue().iterator(); candidates.hasNext(); )
+                {
+                    Pool candidate = candidates.next();
+                    if (maxPoolSize - candidate.throughputCapacity >= item.throughputCapacity)
+                    {
+                        candidates.remove();
+                        pool = candidate;
+                        break;
+                    }
+                }
+                if (fit.getValue().isEmpty())
+                {
+                    openByFree.remove(fit.getKey());
+                }
+            }
+            if (pool == null)
+            {
+                pool = new Pool();
+                pools.add(pool);
+            }
+
+            pool.add(item);
+            long free = maxPoolSize - pool.capacity;
+            if (pool.volumes.size() < maxVolumesPerPool && free >= VolumeSizing.MIN_VOLUME_SIZE)
+            {
+                openByFree.computeIfAbsent(free, key -> new ArrayDeque<>()).addLast(pool);
+            }
+        }
+
+        return pools;
+    }
+
+    /**
+     * First-fit decreasing: every volume goes to the first pool that can hold it. Max segment trees over the free
+     * capacity and free throughput of the pools find that pool in a single descent with automatic QoS, and skip whole
+     * ranges of pools that cannot hold it with manual QoS, instead of scanning every pool.
+     */
+    private static List<Pool> firstFit(List<Item> items, long maxPoolSize, int maxVolumesPerPool)
+    {
+        List<Pool> pools = new ArrayList<>();
+
+        // There are at most as many pools as volumes, leaves of pools that are not open hold -1
+        int leaves = Integer.highestOneBit(Math.max(1, items.size() - 1)) << 1;
+        long[] freeCapacity = new long[2 * leaves];
+        long[] freeThroughput = new long[2 * leaves];
+        Arrays.fill(freeCapacity, -1);
+        Arrays.fill(freeThroughput, -1);
+
+        for (Item item : items)
+        {
+            int index = findFirst(freeCapacity, freeThroughput, 1, leaves, item);
+            if (index < 0)
+            {
+                index = pools.size();
+                pools.add(new Pool());
+            }
+
+            Pool pool = pools.get(index);
+            pool.add(item);
+
+            int node = index + leaves;
+            boolean open = pool.volumes.size() < maxVolumesPerPool;
+            freeCapacity[node] = open ? maxPoolSize - pool.capacity : -1;
+            freeThroughput[node] = open ? maxPoolSize - pool.throughputCapacity : -1;
+            for (node /= 2; node > 0; node /= 2)
+            {
+                freeCapacity[node] = Math.max(freeCapacity[2 * node], freeCapacity[2 * node + 1]);
+                freeThroughput[node] = Math.max(freeThroughput[2 * node], freeThroughput[2 * node + 1]);
+            }
+        }
+
+        return pools;
+    }
+
+    /**
+     * Finds the leftmost open pool under a node of the segment trees that can hold an item
+     * @return Index of the pool, -1 if none
+     */
+    private static int findFirst(long[] freeCapacity, long[] freeThroughput, int node, int leaves, Item item)
+    {
+        if (freeCapacity[node] < item.capacity || freeThroughput[node] < item.throughputCapacity)
+        {
+            return -1;
+        }
+        if (node >= leaves)
+        {
+            return node - leaves;
+        }
+
+        int left = findFirst(freeCapacity, freeThroughput, 2 * node, leaves, item);
+        return left >= 0 ? left : findFirst(freeCapacity, freeThroughput, 2 * node + 1, leaves, item);
+    }
+
+    /**
+     * Rounds a capacity up to the capacity pool granularity
+     * @param bytes Capacity in bytes
+     * @return Smallest multiple of 4 TiB holding the capacity, at least 4 TiB
+     */
+    public static long roundUpToPoolSize(long bytes)
+    {
+        long chunks = Math.max(1, (bytes + POOL_GRANULARITY - 1) / POOL_GRANULARITY);
+        return chunks * POOL_GRANULARITY;
+    }
+}
@@ -0,0 +1,304 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.common;
+
+import com.azure.core.credential.AccessToken;
+import com.azure.core.credential.TokenCredential;
+import com.azure.core.credential.TokenRequestContext;
+import com.azure.core.management.profile.AzureProfile;
+import com.azure.identity.AzureCliCredentialBuilder;
+import com.azure.identity.AzurePowerShellCredentialBuilder;
+import com.azure.identity.CredentialUnavailableException;
+import com.azure.identity.EnvironmentCredentialBuilder;
+import com.azure.identity.IntelliJCredentialBuilder;
+import com.azure.identity.ManagedIdentityCredentialBuilder;
+import com.azure.identity.SharedTokenCacheCredentialBuilder;
+import com.azure.identity.VisualStudioCodeCredentialBuilder;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Credential acquiring the ARM token as soon as it is created, in parallel with the rest of the startup, and keeping it
+// fresh from a background thread so that requests never wait for Azure Active Directory. It tries the same sources as
+// DefaultAzureCredential, in the same order, but remembers the one that worked: later tokens of the run go straight to
+// it, and the next run tries it first instead of probing every source before it, e.g. the managed identity endpoint
+// on a developer machine.
+public class PrefetchingCredential implements TokenCredential
+{
+    // Tokens are refreshed well before the 5 minutes before expiry at which the pipeline's own token cache asks again
+    private static final Duration REFRESH_MARGIN = Duration.ofMinutes(10);
+
+    // Delay before retrying a failed background refresh while the current token is still valid
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(30);
+
+    // File remembering the source that worked, read by the next run
+    private static final Path SOURCE_FILE = Paths.get(".credential-source");
+
+    // Client id of the Azure CLI, used by DefaultAzureCredential to read the shared token cache
+    private static final String DEVELOPER_CLIENT_ID = "04b07795-8ddb-461a-bbee-02f9e1bf7b46";
+
+    // Sources in the order they are tried, the source remembered by the previous run first
+    private final List<Source> sources = new ArrayList<>();
+
+    // Source that returned the last token, null until one did
+    private volatile Source selected;
+
+    // Tokens keyed by their scopes
+    private final Map<String, CachedToken> tokens = new ConcurrentHashMap<>();
+
+    // Acquires and refreshes tokens, so that no worker thread ever calls Azure Active Directory
+    private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "anf-token-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Source of tokens, one of those of DefaultAzureCredential
+    private static final class Source
+    {
+        private final String name;
+        private final TokenCredential credential;
+
+        private Source(String name, TokenCredential credential)
+        {
+            this.name = name;
+            this.credential = credential;
+        }
+    }
+
+    private PrefetchingCredential(AzureProfile profile)
+    {
+        String authorityHost = profile.getEnvironment().getActiveDirectoryEndpoint();
+        String tenantId = profile.getTenantId();
+
+        List<Source> chain = List.of(
+                new Source("Environment", new EnvironmentCredentialBuilder().authorityHost(authorityHost).build()),
+                new Source("ManagedIdentity", new ManagedIdentityCredentialBuilder().build()),
+                new Source("SharedTokenCache", new SharedTokenCacheCredentialBuilder().authorityHost(authorityHost).clientId(DEVELOPER_CLIENT_ID).tenantId(tenantId).build()),
+                new Source("IntelliJ", new IntelliJCredentialBuilder().tenantId(tenantId).build()),
+                new Source("VisualStudioCode", new VisualStudioCodeCredentialBuilder().tenantId(tenantId).build()),
+                new Source("AzureCli", new AzureCliCredentialBuilder().build()),
+                new Source("AzurePowerShell", new AzurePowerShellCredentialBuilder().build()));
+
+        String remembered = readRememberedSource();
+        for (Source source : chain)
+        {
+            if (source.name.equals(remembered))
+            {
+                sources.add(0, source);
+            }
+            else
+            {
+                sources.add(source);
+            }
+        }
+    }
+
+    /**
+     * Creates the credential and starts acquiring the ARM token of the profile's environment in the background
+     * @param profile Azure environment and tenant
+     * @return Credential, whose first token is usually ready by the time the first request is sent
+     */
+    public static PrefetchingCredential start(AzureProfile profile)
+    {
+        PrefetchingCredential credential = new PrefetchingCredential(profile);
+
+        // Same scope as the bearer token policy of the management clients
+        TokenRequestContext arm = new TokenRequestContext().addScopes(profile.getEnvironment().getManagementEndpoint() + "/.default");
+        credential.tokens.computeIfAbsent(key(arm), key -> credential.new CachedToken(arm)).refresh();
+        return credential;
+    }
+
+    @Override
+    public Mono<AccessToken> getToken(TokenRequestContext request)
+    {
+        // Claims challenges ask for a new token with extra claims, which is never cached
+        if (request.getClaims() != null)
+        {
+            return Mono.fromFuture(CompletableFuture.supplyAsync(() -> acquire(request), refresher));
+        }
+
+        return tokens.computeIfAbsent(key(request), key -> new CachedToken(request)).get();
+    }
+
+    private static String key(TokenRequestContext request)
+    {
+        return String.join(" ", request.getScopes());
+    }
+
+    /**
+     * Gets a token from the selected source, or from the first available source when none is selected yet or the
+     * selected one is no longer available. Runs on the refresher thread only.
+     */
+    private AccessToken acquire(TokenRequestContext request)
+    {
+        long start = System.nanoTime();
+        Source current = selected;
+        if (current != null)
+        {
+            try
+            {
+                return current.credential.getToken(request).block();
+            }
+            catch (CredentialUnavailableException e)
+            {
+                Utils.writeWarningMessage("Credential source " + current.name + " is no longer available, trying every source");
+                selected = null;
+            }
+        }
+
+        List<String> unavailable = new ArrayList<>();
+        for (Source source : sources)
+        {
+            try
+            {
+                AccessToken token = source.credential.getToken(request).block();
+                if (token != null)
+                {
+                    select(source);
+                    Utils.writeConsoleMessage("Token acquired from credential source " + source.name + " in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+                    return token;
+                }
+            }
+            catch (CredentialUnavailableException e)
+            {
+                unavailable.add(source.name + ": " + e.getMessage());
+            }
+        }
+
+        throw new CredentialUnavailableException("No credential source is available. " + String.join(" ", unavailable));
+    }
+
+    /**
+     * Selects the source for the rest of the run and remembers it for the next run
+     */
+    private void select(Source source)
+    {
+        selected = source;
+        if (source.name.equals(readRememberedSource()))
+        {
+            return;
+        }
+
+        try
+        {
+            Files.writeString(SOURCE_FILE, source.name, StandardCharsets.UTF_8);
+        }
+        catch (IOException e)
+        {
+            Utils.writeWarningMessage("Unable to remember credential source in " + SOURCE_FILE + ": " + e.getMessage());
+        }
+    }
+
+    private static String readRememberedSource()
+    {
+        try
+        {
+            return Files.exists(SOURCE_FILE) ? Files.readString(SOURCE_FILE, StandardCharsets.UTF_8).trim() : null;
+        }
+        catch (IOException e)
+        {
+            return null;
+        }
+    }
+
+    // Token of a set of scopes, refreshed in the background before it expires
+    private final class CachedToken
+    {
+        private final TokenRequestContext request;
+
+        // Last token acquired, null until the first acquisition completed
+        private volatile AccessToken token;
+
+        // Acquisition in flight or last completed, shared by every caller waiting for it
+        private CompletableFuture<AccessToken> pending;
+
+        private CachedToken(TokenRequestContext request)
+        {
+            this.request = request;
+        }
+
+        /**
+         * Returns the current token at once, only waiting when no valid token was acquired yet
+         */
+        private Mono<AccessToken> get()
+        {
+            AccessToken current = token;
+            if (current != null && !current.isExpired())
+            {
+                return Mono.just(current);
+            }
+
+            // A copy, so that a cancelled request does not cancel the acquisition other requests wait for
+            return Mono.fromFuture(refresh().copy());
+        }
+
+        /**
+         * Starts acquiring a token unless an acquisition is already in flight
+         * @return Acquisition in flight
+         */
+        private synchronized CompletableFuture<AccessToken> refresh()
+        {
+            if (pending == null || pending.isDone())
+            {
+                pending = CompletableFuture.supplyAsync(() -> acquire(request), refresher);
+                pending.whenComplete(this::acquired);
+            }
+
+            return pending;
+        }
+
+        /**
+         * Schedules the next refresh once an acquisition completed
+         */
+        private void acquired(AccessToken acquired, Throwable error)
+        {
+            if (error == null)
+            {
+                token = acquired;
+                schedule(refreshDelay(acquired));
+                return;
+            }
+
+            AccessToken current = token;
+            if (current != null && !current.isExpired())
+            {
+                Utils.writeWarningMessage("Background token refresh failed, retrying in " + RETRY_DELAY.toSeconds() + "s: " + error.getMessage());
+                schedule(RETRY_DELAY);
+            }
+            // Without a valid token the next request acquires one again and gets the error
+        }
+
+        private void schedule(Duration delay)
+        {
+            refresher.schedule(this::refresh, delay.toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Refreshes REFRESH_MARGIN before expiry, or at half the remaining lifetime for short-lived tokens
+         */
+        private Duration refreshDelay(AccessToken acquired)
+        {
+            Duration lifetime = Duration.between(OffsetDateTime.now(), acquired.getExpiresAt());
+            Duration delay = lifetime.compareTo(REFRESH_MARGIN.multipliedBy(2)) > 0 ? lifetime.minus(REFRESH_MARGIN) : lifetime.dividedBy(2);
+            return delay.compareTo(Duration.ofSeconds(1)) > 0 ? delay : Duration.ofSeconds(1);
+        }
+    }
+}
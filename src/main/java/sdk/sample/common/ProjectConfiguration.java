@@ -5,11 +5,17 @@
 
 package sdk.sample.common;
 
+import sdk.sample.model.ModelExecutionSettings;
 import sdk.sample.model.ModelNetAppAccount;
+import sdk.sample.model.ModelScope;
+import sdk.sample.model.ModelSimulatorSettings;
 import com.google.gson.Gson;
 
 import java.io.FileNotFoundException;
 import java.io.FileReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -24,29 +30,133 @@ public class ProjectConfiguration
     // Resource group where the ANF account(s) will be created
     private String resourceGroup;
 
+    // Settings that control how resources are provisioned, e.g. number of parallel workers
+    private ModelExecutionSettings executionSettings;
+
+    // Settings of the local Resource Provider simulator, only used when running with --simulator
+    private ModelSimulatorSettings simulatorSettings;
+
+    // Subscription and resource group pairs provisioned in parallel, each with its own accounts. Accounts above, if any,
+    // form an additional scope with subscriptionId and resourceGroup, the only one when this list is empty
+    private List<ModelScope> scopes = new ArrayList<>();
+
+    // Label of the scope this configuration was split for, null for the whole configuration
+    private String scopeLabel;
+
     public static ProjectConfiguration readFromJsonFile(String path)
     {
         Gson gson = new Gson();
         AppSettings appSettings;
 
-        try
+        try (FileReader reader = new FileReader(path))
         {
-            appSettings = gson.fromJson(new FileReader(path), AppSettings.class);
+            appSettings = gson.fromJson(reader, AppSettings.class);
         }
         catch (FileNotFoundException e)
         {
             Utils.writeWarningMessage("Could not find appsettings.json. Unable to load project configuration. Exiting.");
             return null;
         }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Unable to read project configuration", e);
+        }
 
         ProjectConfiguration config = new ProjectConfiguration();
         config.setAccounts(appSettings.getAccounts());
-        config.setResourceGroup(appSettings.getGeneral().get("resourceGroup"));
-        config.setSubscriptionId(appSettings.getGeneral().get("subscriptionId"));
+        // The general section is optional when every scope has its own subscription id and resource group
+        Map<String, String> general = appSettings.getGeneral() != null ? appSettings.getGeneral() : Map.of();
+        config.setResourceGroup(general.get("resourceGroup"));
+        config.setSubscriptionId(general.get("subscriptionId"));
+        config.setExecutionSettings(appSettings.getExecution() != null ? appSettings.getExecution() : new ModelExecutionSettings());
+        config.setSimulatorSettings(appSettings.getSimulator() != null ? appSettings.getSimulator() : new ModelSimulatorSettings());
+        if (appSettings.getScopes() != null)
+        {
+            config.setScopes(appSettings.getScopes());
+        }
+
+        return config;
+    }
+
+    /**
+     * Gets every scope to provision. The general section and the top-level accounts form the first scope, the only one
+     * without a scopes section. A scope without subscription id or resource group inherits those of the general section.
+     * @return Scopes, at least one, each with a non-null list of accounts
+     * @throws IllegalArgumentException if a scope of the scopes section has no accounts array
+     */
+    public List<ModelScope> resolveScopes()
+    {
+        List<ModelScope> resolved = new ArrayList<>();
+        if (scopes.isEmpty() || (accounts != null && !accounts.isEmpty()))
+        {
+            if (!scopes.isEmpty() && resourceGroup == null)
+            {
+                throw new IllegalArgumentException("Top-level accounts need the resourceGroup of the general section when scopes are set, "
+                        + "move them to a scope or set the general section");
+            }
+
+            ModelScope scope = new ModelScope();
+            scope.setSubscriptionId(subscriptionId);
+            scope.setResourceGroup(resourceGroup);
+            scope.setAccounts(accounts != null ? accounts : List.of());
+            resolved.add(scope);
+        }
+
+        for (ModelScope scope : scopes)
+        {
+            ModelScope copy = new ModelScope();
+            copy.setSubscriptionId(scope.getSubscriptionId() != null ? scope.getSubscriptionId() : subscriptionId);
+            copy.setResourceGroup(scope.getResourceGroup() != null ? scope.getResourceGroup() : resourceGroup);
+            if (scope.getAccounts() == null)
+            {
+                throw new IllegalArgumentException("Scope of subscription " + copy.getSubscriptionId() + " and resource group " + copy.getResourceGroup()
+                        + " has no accounts array");
+            }
+            copy.setAccounts(scope.getAccounts());
+            resolved.add(copy);
+        }
+        return resolved;
+    }
+
+    /**
+     * Creates the configuration of a single scope, sharing the execution and simulator settings of this configuration
+     * @param scope Scope returned by resolveScopes
+     * @param label Label distinguishing the files written by concurrent scopes, null when the scope is the only one
+     * @return Configuration whose subscription id, resource group and accounts are those of the scope
+     */
+    public ProjectConfiguration forScope(ModelScope scope, String label)
+    {
+        ProjectConfiguration config = new ProjectConfiguration();
+        config.setSubscriptionId(scope.getSubscriptionId());
+        config.setResourceGroup(scope.getResourceGroup());
+        config.setAccounts(scope.getAccounts());
+        config.setExecutionSettings(executionSettings);
+        config.setSimulatorSettings(simulatorSettings);
+        config.scopeLabel = label;
 
         return config;
     }
 
+    /**
+     * Gets the path of a file written once per scope, e.g. a manifest, so that concurrent scopes do not overwrite
+     * each other's file
+     * @param path Path from appsettings.json
+     * @return The path itself for the whole configuration or a single scope, otherwise the path with the scope label
+     *         inserted before the extension
+     */
+    public String scopedPath(String path)
+    {
+        if (scopeLabel == null)
+        {
+            return path;
+        }
+
+        int extension = path.lastIndexOf('.');
+        return extension > path.lastIndexOf('/') && extension > 0
+                ? path.substring(0, extension) + "-" + scopeLabel + path.substring(extension)
+                : path + "-" + scopeLabel;
+    }
+
     public List<ModelNetAppAccount> getAccounts() {
         return accounts;
     }
@@ -71,11 +181,42 @@ public class ProjectConfiguration
         this.resourceGroup = resourceGroup;
     }
 
+    public ModelExecutionSettings getExecutionSettings() {
+        return executionSettings;
+    }
+
+    public void setExecutionSettings(ModelExecutionSettings executionSettings) {
+        this.executionSettings = executionSettings;
+    }
+
+    public ModelSimulatorSettings getSimulatorSettings() {
+        return simulatorSettings;
+    }
+
+    public void setSimulatorSettings(ModelSimulatorSettings simulatorSettings) {
+        this.simulatorSettings = simulatorSettings;
+    }
+
+    public List<ModelScope> getScopes() {
+        return scopes;
+    }
+
+    public void setScopes(List<ModelScope> scopes) {
+        this.scopes = scopes;
+    }
+
+    public String getScopeLabel() {
+        return scopeLabel;
+    }
+
 
     private static class AppSettings
     {
         private List<ModelNetAppAccount> accounts;
         private Map<String, String> general;
+        private ModelExecutionSettings execution;
+        private ModelSimulatorSettings simulator;
+        private List<ModelScope> scopes;
 
         public List<ModelNetAppAccount> getAccounts() {
             return accounts;
@@ -92,5 +233,29 @@ public class ProjectConfiguration
         public void setGeneral(Map<String, String> general) {
             this.general = general;
         }
+
+        public ModelExecutionSettings getExecution() {
+            return execution;
+        }
+
+        public void setExecution(ModelExecutionSettings execution) {
+            this.execution = execution;
+        }
+
+        public ModelSimulatorSettings getSimulator() {
+            return simulator;
+        }
+
+        public void setSimulator(ModelSimulatorSettings simulator) {
+            this.simulator = simulator;
+        }
+
+        public List<ModelScope> getScopes() {
+            return scopes;
+        }
+
+        public void setScopes(List<ModelScope> scopes) {
+            this.scopes = scopes;
+        }
     }
 }
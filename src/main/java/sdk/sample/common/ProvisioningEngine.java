@@ -0,0 +1,199 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.common;
+
+import sdk.sample.model.ModelExecutionSettings;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+// Executes a dependency graph of ANF operations, running independent branches concurrently. An engine is scoped to a
+// single phase of the sample: it is opened with try-with-resources and no operation outlives it.
+public class ProvisioningEngine implements AutoCloseable
+{
+    private final ExecutorService executor;
+
+    // Tasks submitted and not completed yet, used to wait for the whole graph to finish. Completed tasks are dropped so
+    // that long streams of operations do not accumulate.
+    private final Set<CompletableFuture<?>> tasks = ConcurrentHashMap.newKeySet();
+
+    // First failure observed, once set no further task is started
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    /**
+     * Creates an engine backed by a fixed pool of platform worker threads
+     * @param maxParallelism Maximum number of operations executed at the same time
+     */
+    public ProvisioningEngine(int maxParallelism)
+    {
+        this(ExecutionMode.PLATFORM.newExecutor(maxParallelism));
+    }
+
+    /**
+     * Creates an engine backed by the given executor. The engine takes ownership of the executor and shuts it down on close.
+     * @param executor Executor that runs the submitted operations
+     */
+    public ProvisioningEngine(ExecutorService executor)
+    {
+        this.executor = executor;
+    }
+
+    /**
+     * Creates an engine for a single phase of the sample, using the threads selected in the execution settings
+     * @param settings Execution settings, populated with data from appsettings.json and the command line
+     * @return New engine, to be closed once the phase completes
+     */
+    public static ProvisioningEngine forSettings(ModelExecutionSettings settings)
+    {
+        return forSettings(settings, settings.getMaxParallelism());
+    }
+
+    /**
+     * Creates an engine for a single phase of the sample with a given number of platform threads, e.g. enough threads
+     * for every operation limit of the phase to be reached at the same time
+     * @param settings Execution settings, populated with data from appsettings.json and the command line
+     * @param maxParallelism Maximum number of operations executed at the same time, ignored with virtual threads
+     * @return New engine, to be closed once the phase completes
+     */
+    public static ProvisioningEngine forSettings(ModelExecutionSettings settings, int maxParallelism)
+    {
+        ExecutionMode mode = ExecutionMode.fromString(settings.getMode());
+        return new ProvisioningEngine(mode.newExecutor(maxParallelism));
+    }
+
+    /**
+     * Schedules an operation that starts once all of its dependencies completed successfully. If a dependency fails,
+     * the operation is skipped and completes with the same error.
+     * @param action Operation to be executed
+     * @param dependencies Tasks previously returned by this engine that must complete before the operation starts
+     * @return Task representing the scheduled operation, to be used as a dependency of other operations
+     */
+    public CompletableFuture<Void> submit(Runnable action, CompletableFuture<?>... dependencies)
+    {
+        return submit(null, action, dependencies);
+    }
+
+    /**
+     * Schedules an operation that starts once all of its dependencies completed successfully and a permit of the given
+     * limit is available. The permit is held for the whole duration of the operation, waiting for it holds no thread.
+     * @param limit Limit shared by operations of the same kind, null for no limit
+     * @param action Operation to be executed
+     * @param dependencies Tasks previously returned by this engine that must complete before the operation starts
+     * @return Task representing the scheduled operation, to be used as a dependency of other operations
+     */
+    public CompletableFuture<Void> submit(OperationLimit limit, Runnable action, CompletableFuture<?>... dependencies)
+    {
+        return supply(limit, () -> {
+            action.run();
+            return null;
+        }, dependencies);
+    }
+
+    /**
+     * Schedules an operation that produces a value, e.g. listing resources, once all of its dependencies completed
+     * successfully and a permit of the given limit is available
+     * @param limit Limit shared by operations of the same kind, null for no limit
+     * @param action Operation to be executed
+     * @param dependencies Tasks previously returned by this engine that must complete before the operation starts
+     * @return Task completing with the value returned by the operation, or null if it was skipped after a failure
+     */
+    public <T> CompletableFuture<T> supply(OperationLimit limit, Supplier<T> action, CompletableFuture<?>... dependencies)
+    {
+        // Spans started by the operation are children of the span that submitted it, not of the worker thread
+        Supplier<T> traced = Tracing.wrap(action);
+
+        // The permit is acquired before the operation is handed to a worker, so that no worker waits for one
+        CompletableFuture<Void> ready = CompletableFuture.allOf(dependencies);
+        if (limit != null)
+        {
+            ready = ready.thenCompose(ignored -> limit.acquire());
+        }
+
+        CompletableFuture<T> task = ready.thenApplyAsync(ignored -> {
+            try
+            {
+                if (failure.get() != null)
+                {
+                    return null;
+                }
+
+                return traced.get();
+            }
+            catch (RuntimeException | Error e)
+            {
+                failure.compareAndSet(null, e);
+                throw e;
+            }
+            finally
+            {
+                if (limit != null)
+                {
+                    limit.release();
+                }
+            }
+        }, executor);
+
+        tasks.add(task);
+        task.whenComplete((result, error) -> tasks.remove(task));
+        return task;
+    }
+
+    /**
+     * Checks whether an operation failed, in which case no further operation is started
+     * @return True once any operation raised an error
+     */
+    public boolean hasFailed()
+    {
+        return failure.get() != null;
+    }
+
+    /**
+     * Blocks until every submitted operation finished, rethrowing the first error raised by any of them
+     */
+    public void awaitCompletion()
+    {
+        for (CompletableFuture<?> task : tasks)
+        {
+            try
+            {
+                task.join();
+            }
+            catch (CompletionException e)
+            {
+                // Failure is recorded by the task itself, dependents simply propagate it
+            }
+        }
+
+        Throwable error = failure.get();
+        if (error instanceof RuntimeException)
+        {
+            throw (RuntimeException) error;
+        }
+        if (error instanceof Error)
+        {
+            throw (Error) error;
+        }
+        if (error != null)
+        {
+            throw new CompletionException(error);
+        }
+    }
+
+    /**
+     * Waits for every running operation to finish and releases the worker threads, so no operation outlives the
+     * phase that started it
+     */
+    @Override
+    public void close()
+    {
+        executor.close();
+    }
+}
@@ -0,0 +1,401 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.common;
+
+import com.azure.resourcemanager.netapp.fluent.NetAppManagementClient;
+import com.azure.resourcemanager.netapp.fluent.models.CapacityPoolInner;
+import com.azure.resourcemanager.netapp.fluent.models.NetAppAccountInner;
+import com.azure.resourcemanager.netapp.fluent.models.VolumeInner;
+import com.azure.resourcemanager.netapp.models.CapacityPoolPatch;
+import com.azure.resourcemanager.netapp.models.ExportPolicyRule;
+import com.azure.resourcemanager.netapp.models.QosType;
+import com.azure.resourcemanager.netapp.models.VolumePatch;
+import com.azure.resourcemanager.netapp.models.VolumePatchPropertiesExportPolicy;
+import sdk.sample.model.ModelCapacityPool;
+import sdk.sample.model.ModelExecutionSettings;
+import sdk.sample.model.ModelExportPolicyRule;
+import sdk.sample.model.ModelNetAppAccount;
+import sdk.sample.model.ModelVolume;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+// Minimal set of operations that brings the live resources of a resource group in line with appsettings.json.
+// Resources are compared property by property and updates only carry the properties that changed. Operations are
+// ordered by their dependencies: parents are created before their children, a capacity pool grows before its volumes
+// grow and shrinks after they shrank, and volumes of the same capacity pool are changed one after the other.
+public class ProvisioningPlan
+{
+    private final List<PlannedOperation> operations = new ArrayList<>();
+
+    // Differences that cannot be applied in place, e.g. a changed service level, reported but never executed
+    private final List<String> warnings = new ArrayList<>();
+
+    private ProvisioningPlan()
+    {
+    }
+
+    /**
+     * Compares the configuration with the inventory of the resource group
+     * @param config Project Configuration, describing the desired state
+     * @param inventory Inventory of the resource group down to volumes, describing the live state
+     * @param anfClient Azure NetApp Files Management Client, used when the plan is executed
+     * @param prune True to delete live accounts, capacity pools and volumes that are not part of the configuration
+     * @return Plan, empty if the live state already matches the configuration
+     */
+    public static ProvisioningPlan compute(ProjectConfiguration config, ResourceInventory inventory, NetAppManagementClient anfClient, boolean prune)
+    {
+        ProvisioningPlan plan = new ProvisioningPlan();
+        String subscriptionId = anfClient.getSubscriptionId();
+        String resourceGroup = config.getResourceGroup();
+        Set<AnfResourceId> configured = new HashSet<>();
+
+        List<ModelNetAppAccount> accounts = config.getAccounts() != null ? config.getAccounts() : Collections.emptyList();
+        for (ModelNetAppAccount account : accounts)
+        {
+            AnfResourceId accountId = AnfResourceId.of(subscriptionId, resourceGroup, account.getName());
+            configured.add(accountId);
+            PlannedOperation accountOperation = plan.planAccount(anfClient, inventory, resourceGroup, accountId, account);
+
+            List<ModelCapacityPool> pools = account.getCapacityPools() != null ? account.getCapacityPools() : Collections.emptyList();
+            for (ModelCapacityPool pool : pools)
+            {
+                AnfResourceId poolId = AnfResourceId.of(subscriptionId, resourceGroup, account.getName(), pool.getName());
+                configured.add(poolId);
+                plan.planCapacityPool(anfClient, inventory, resourceGroup, account, pool, poolId, accountOperation, configured, prune);
+            }
+
+            if (prune)
+            {
+                for (CapacityPoolInner livePool : inventory.list(AnfResourceType.CAPACITY_POOL, accountId))
+                {
+                    AnfResourceId livePoolId = AnfResourceId.parse(livePool.id());
+                    if (!configured.contains(livePoolId))
+                    {
+                        plan.planPoolDeletion(anfClient, inventory, livePoolId);
+                    }
+                }
+            }
+        }
+
+        if (prune)
+        {
+            for (NetAppAccountInner liveAccount : inventory.list(AnfResourceType.ACCOUNT, AnfResourceId.of(subscriptionId, resourceGroup)))
+            {
+                AnfResourceId liveAccountId = AnfResourceId.parse(liveAccount.id());
+                if (!configured.contains(liveAccountId))
+                {
+                    List<PlannedOperation> poolDeletions = new ArrayList<>();
+                    for (CapacityPoolInner livePool : inventory.list(AnfResourceType.CAPACITY_POOL, liveAccountId))
+                    {
+                        poolDeletions.add(plan.planPoolDeletion(anfClient, inventory, AnfResourceId.parse(livePool.id())));
+                    }
+                    plan.add(new PlannedOperation(PlannedOperation.Action.DELETE, AnfResourceType.ACCOUNT, liveAccountId, Collections.emptyList(),
+                            () -> CommonSdk.deleteResource(anfClient, AnfResourceType.ACCOUNT, liveAccountId), poolDeletions.toArray(new PlannedOperation[0])));
+                }
+            }
+        }
+
+        return plan;
+    }
+
+    private PlannedOperation planAccount(NetAppManagementClient anfClient, ResourceInventory inventory, String resourceGroup, AnfResourceId accountId, ModelNetAppAccount account)
+    {
+        NetAppAccountInner live = inventory.get(AnfResourceType.ACCOUNT, accountId);
+        if (live == null)
+        {
+            return add(new PlannedOperation(PlannedOperation.Action.CREATE, AnfResourceType.ACCOUNT, accountId, List.of("location " + account.getLocation()),
+                    () -> CommonSdk.createOrUpdateAccount(anfClient, resourceGroup, account)));
+        }
+
+        if (!normalizeLocation(live.location()).equals(normalizeLocation(account.getLocation())))
+        {
+            warnings.add(accountId + ": location " + live.location() + " differs from " + account.getLocation() + ", an account cannot be moved");
+        }
+        return null;
+    }
+
+    private void planCapacityPool(NetAppManagementClient anfClient, ResourceInventory inventory, String resourceGroup, ModelNetAppAccount account,
+                                  ModelCapacityPool pool, AnfResourceId poolId, PlannedOperation accountOperation, Set<AnfResourceId> configured, boolean prune)
+    {
+        CapacityPoolInner live = inventory.get(AnfResourceType.CAPACITY_POOL, poolId);
+
+        // Operation the first volume operation of the pool waits for, and pool update that must wait for the volumes
+        PlannedOperation previous = null;
+        PlannedOperation shrink = null;
+        if (live == null)
+        {
+            previous = add(new PlannedOperation(PlannedOperation.Action.CREATE, AnfResourceType.CAPACITY_POOL, poolId,
+                    List.of("serviceLevel " + pool.getServiceLevel(), "size " + formatSize(pool.getSize()), "qosType " + (pool.getQosType() != null ? pool.getQosType() : VolumeSizing.AUTO)),
+                    () -> CommonSdk.createOrUpdateCapacityPool(anfClient, resourceGroup, account.getName(), account.getLocation(), pool), accountOperation));
+        }
+        else
+        {
+            if (live.serviceLevel() != null && !live.serviceLevel().toString().equalsIgnoreCase(pool.getServiceLevel()))
+            {
+                warnings.add(poolId + ": service level " + live.serviceLevel() + " differs from " + pool.getServiceLevel() + ", it cannot be changed in place");
+            }
+
+            // Manual QoS is switched on before the volumes get their throughput, it cannot be switched off
+            String liveQosType = live.qosType() != null ? live.qosType().toString() : VolumeSizing.AUTO;
+            boolean qosTypeChanged = pool.getQosType() != null && !liveQosType.equalsIgnoreCase(pool.getQosType());
+            if (qosTypeChanged && VolumeSizing.isManualQos(liveQosType))
+            {
+                warnings.add(poolId + ": QoS type " + liveQosType + " differs from " + pool.getQosType() + ", a manual QoS pool cannot be changed back to auto");
+                qosTypeChanged = false;
+            }
+
+            // A pool must stay large enough for its volumes: it grows first and shrinks last
+            boolean grows = pool.getSize() > live.size();
+            if (grows || qosTypeChanged)
+            {
+                List<String> changes = new ArrayList<>();
+                CapacityPoolPatch patch = new CapacityPoolPatch().withLocation(live.location());
+                if (grows)
+                {
+                    changes.add("size " + formatSize(live.size()) + " -> " + formatSize(pool.getSize()));
+                    patch.withSize(pool.getSize());
+                }
+                if (qosTypeChanged)
+                {
+                    changes.add("qosType " + liveQosType + " -> " + pool.getQosType());
+                    patch.withQosType(QosType.fromString(pool.getQosType()));
+                }
+                previous = add(new PlannedOperation(PlannedOperation.Action.UPDATE, AnfResourceType.CAPACITY_POOL, poolId, changes,
+                        () -> CommonSdk.updateCapacityPool(anfClient, poolId, patch)));
+            }
+            if (pool.getSize() < live.size())
+            {
+                CapacityPoolPatch patch = new CapacityPoolPatch().withLocation(live.location()).withSize(pool.getSize());
+                shrink = new PlannedOperation(PlannedOperation.Action.UPDATE, AnfResourceType.CAPACITY_POOL, poolId,
+                        List.of("size " + formatSize(live.size()) + " -> " + formatSize(pool.getSize())),
+                        () -> CommonSdk.updateCapacityPool(anfClient, poolId, patch));
+            }
+        }
+
+        List<ModelVolume> volumes = pool.getVolumes() != null ? pool.getVolumes() : Collections.emptyList();
+        for (ModelVolume volume : volumes)
+        {
+            AnfResourceId volumeId = AnfResourceId.of(poolId.getSubscriptionId(), resourceGroup, account.getName(), pool.getName(), volume.getName());
+            configured.add(volumeId);
+
+            PlannedOperation operation = planVolume(anfClient, inventory, resourceGroup, account, pool, volume, volumeId, previous);
+            if (operation != null)
+            {
+                previous = operation;
+            }
+        }
+
+        if (prune && live != null)
+        {
+            for (VolumeInner liveVolume : inventory.list(AnfResourceType.VOLUME, poolId))
+            {
+                AnfResourceId liveVolumeId = AnfResourceId.parse(liveVolume.id());
+                if (!configured.contains(liveVolumeId))
+                {
+                    previous = add(new PlannedOperation(PlannedOperation.Action.DELETE, AnfResourceType.VOLUME, liveVolumeId, Collections.emptyList(),
+                            () -> CommonSdk.deleteResource(anfClient, AnfResourceType.VOLUME, liveVolumeId), previous));
+                }
+            }
+        }
+
+        if (shrink != null)
+        {
+            if (previous != null)
+            {
+                shrink.getDependencies().add(previous);
+            }
+            add(shrink);
+        }
+    }
+
+    private PlannedOperation planVolume(NetAppManagementClient anfClient, ResourceInventory inventory, String resourceGroup, ModelNetAppAccount account,
+                                        ModelCapacityPool pool, ModelVolume volume, AnfResourceId volumeId, PlannedOperation previous)
+    {
+        VolumeInner live = inventory.get(AnfResourceType.VOLUME, volumeId);
+        if (live == null)
+        {
+            return add(new PlannedOperation(PlannedOperation.Action.CREATE, AnfResourceType.VOLUME, volumeId, List.of("usageThreshold " + formatSize(volume.getUsageThreshold())),
+                    () -> CommonSdk.createOrUpdateVolume(anfClient, resourceGroup, account, pool, volume), previous));
+        }
+
+        List<String> changes = new ArrayList<>();
+        VolumePatch patch = new VolumePatch().withLocation(live.location());
+        if (live.usageThreshold() != volume.getUsageThreshold())
+        {
+            changes.add("usageThreshold " + formatSize(live.usageThreshold()) + " -> " + formatSize(volume.getUsageThreshold()));
+            patch.withUsageThreshold(volume.getUsageThreshold());
+        }
+        if (VolumeSizing.isManualQos(pool.getQosType()))
+        {
+            float throughput = (float) VolumeSizing.getThroughput(volume, pool.getServiceLevel());
+            if (live.throughputMibps() == null || Math.abs(live.throughputMibps() - throughput) >= 0.01f)
+            {
+                changes.add("throughputMibps " + live.throughputMibps() + " -> " + throughput);
+                patch.withThroughputMibps(throughput);
+            }
+        }
+
+        List<ExportPolicyRule> desiredRules = CommonSdk.buildVolumeBody(account, pool, volume).exportPolicy().rules();
+        List<ExportPolicyRule> liveRules = live.exportPolicy() != null && live.exportPolicy().rules() != null ? live.exportPolicy().rules() : Collections.emptyList();
+        if (!sameRules(liveRules, volume.getExportPolicies()))
+        {
+            changes.add("export policy " + liveRules.size() + " -> " + desiredRules.size() + " rule(s)");
+            patch.withExportPolicy(new VolumePatchPropertiesExportPolicy().withRules(desiredRules));
+        }
+
+        if (changes.isEmpty())
+        {
+            return null;
+        }
+
+        return add(new PlannedOperation(PlannedOperation.Action.UPDATE, AnfResourceType.VOLUME, volumeId, changes,
+                () -> CommonSdk.updateVolume(anfClient, volumeId, patch), previous));
+    }
+
+    /**
+     * Plans the deletion of a capacity pool that is not configured, its volumes being deleted one after the other first
+     */
+    private PlannedOperation planPoolDeletion(NetAppManagementClient anfClient, ResourceInventory inventory, AnfResourceId poolId)
+    {
+        PlannedOperation previous = null;
+        for (VolumeInner liveVolume : inventory.list(AnfResourceType.VOLUME, poolId))
+        {
+            AnfResourceId liveVolumeId = AnfResourceId.parse(liveVolume.id());
+            previous = add(new PlannedOperation(PlannedOperation.Action.DELETE, AnfResourceType.VOLUME, liveVolumeId, Collections.emptyList(),
+                    () -> CommonSdk.deleteResource(anfClient, AnfResourceType.VOLUME, liveVolumeId), previous));
+        }
+
+        return add(new PlannedOperation(PlannedOperation.Action.DELETE, AnfResourceType.CAPACITY_POOL, poolId, Collections.emptyList(),
+                () -> CommonSdk.deleteResource(anfClient, AnfResourceType.CAPACITY_POOL, poolId), previous));
+    }
+
+    private static boolean sameRules(List<ExportPolicyRule> liveRules, List<ModelExportPolicyRule> desiredRules)
+    {
+        List<ModelExportPolicyRule> desired = desiredRules != null ? desiredRules : Collections.emptyList();
+        if (liveRules.size() != desired.size())
+        {
+            return false;
+        }
+
+        List<ExportPolicyRule> live = new ArrayList<>(liveRules);
+        live.sort(Comparator.comparing(ExportPolicyRule::ruleIndex, Comparator.nullsFirst(Comparator.naturalOrder())));
+        List<ModelExportPolicyRule> sortedDesired = new ArrayList<>(desired);
+        sortedDesired.sort(Comparator.comparingInt(ModelExportPolicyRule::getRuleIndex));
+
+        for (int i = 0; i < live.size(); i++)
+        {
+            ExportPolicyRule liveRule = live.get(i);
+            ModelExportPolicyRule desiredRule = sortedDesired.get(i);
+            if (!Objects.equals(liveRule.ruleIndex(), desiredRule.getRuleIndex())
+                    || !Objects.equals(liveRule.allowedClients(), desiredRule.getAllowedClients())
+                    || Boolean.TRUE.equals(liveRule.unixReadOnly()) != desiredRule.isUnixReadOnly()
+                    || Boolean.TRUE.equals(liveRule.unixReadWrite()) != desiredRule.isUnixReadWrite()
+                    || Boolean.TRUE.equals(liveRule.cifs()) != desiredRule.isCifs()
+                    || Boolean.TRUE.equals(liveRule.nfsv3()) != desiredRule.isNfsv3()
+                    || Boolean.TRUE.equals(liveRule.nfsv41()) != desiredRule.isNfsv4())
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private PlannedOperation add(PlannedOperation operation)
+    {
+        operations.add(operation);
+        return operation;
+    }
+
+    private static String normalizeLocation(String location)
+    {
+        return location == null ? "" : location.replace(" ", "").toLowerCase();
+    }
+
+    private static String formatSize(long bytes)
+    {
+        long gib = bytes / 1024 / 1024 / 1024;
+        return gib >= 1024 && gib % 1024 == 0 ? gib / 1024 + "TiB" : gib + "GiB";
+    }
+
+    /**
+     * Writes the plan to the console, one line per operation
+     */
+    public void print()
+    {
+        for (String warning : warnings)
+        {
+            Utils.writeWarningMessage(warning);
+        }
+
+        if (operations.isEmpty())
+        {
+            Utils.writeConsoleMessage("No changes. Azure NetApp Files resources match the configuration.");
+            return;
+        }
+
+        long creates = operations.stream().filter(o -> o.getAction() == PlannedOperation.Action.CREATE).count();
+        long updates = operations.stream().filter(o -> o.getAction() == PlannedOperation.Action.UPDATE).count();
+        long deletes = operations.stream().filter(o -> o.getAction() == PlannedOperation.Action.DELETE).count();
+        for (PlannedOperation operation : operations)
+        {
+            Utils.writeConsoleMessage(operation.describe());
+        }
+        Utils.writeConsoleMessage("Plan: " + creates + " to create, " + updates + " to update, " + deletes + " to delete.");
+    }
+
+    /**
+     * Executes the plan, independent operations running concurrently
+     * @param settings Execution settings, which select the threads used to run operations concurrently
+     */
+    public void execute(ModelExecutionSettings settings)
+    {
+        try (ProvisioningEngine engine = ProvisioningEngine.forSettings(settings))
+        {
+            // Operations are added after their dependencies, so a single pass resolves every dependency
+            Map<PlannedOperation, CompletableFuture<Void>> tasks = new IdentityHashMap<>();
+            for (PlannedOperation operation : operations)
+            {
+                CompletableFuture<?>[] dependencies = operation.getDependencies().stream().map(tasks::get).toArray(CompletableFuture<?>[]::new);
+                tasks.put(operation, engine.submit(() -> {
+                    try
+                    {
+                        operation.getExecution().run();
+                        Utils.writeSuccessMessage("Done: " + operation.describe());
+                    }
+                    catch (Exception e)
+                    {
+                        Utils.writeErrorMessage("An error occurred while applying: " + operation.describe() + "\nError message: " + e.getMessage());
+                        throw e;
+                    }
+                }, dependencies));
+            }
+
+            engine.awaitCompletion();
+        }
+    }
+
+    public List<PlannedOperation> getOperations() {
+        return operations;
+    }
+
+    public List<String> getWarnings() {
+        return warnings;
+    }
+
+    public boolean isEmpty() {
+        return operations.isEmpty();
+    }
+}
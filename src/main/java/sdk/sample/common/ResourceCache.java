@@ -0,0 +1,172 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.common;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// Read-through cache of Azure NetApp Files resources keyed by resource id. Missing resources are cached too, either
+// explicitly or because their parent was listed without them, so that repeated existence checks do not go back to ARM.
+// Entries expire after a fixed time to live and are replaced or dropped whenever this process creates, updates or
+// deletes the resource.
+public class ResourceCache
+{
+    // Value stored for resources known not to exist
+    private static final Object MISSING = new Object();
+
+    private final long ttlNanos;
+    private final Map<AnfResourceId, Entry> entries = new ConcurrentHashMap<>();
+
+    // Parents whose children were all listed, keyed by parent id with the expiry of the listing. A child of a listed
+    // parent that has no entry is known not to exist.
+    private final Map<AnfResourceId, Long> listings = new ConcurrentHashMap<>();
+
+    // Ids cached under each parent id, entries and listings alike, so that invalidating a resource reaches the
+    // resources nested under it directly instead of scanning every entry
+    private final Map<AnfResourceId, Set<AnfResourceId>> nested = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a cache
+     * @param ttl Time to live of the entries, zero or negative disables caching
+     */
+    public ResourceCache(Duration ttl)
+    {
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * Returns a resource from the cache, loading it when it is not cached or expired. Concurrent misses on the same
+     * resource may load it more than once.
+     * @param id Resource id of the resource
+     * @param clazz Type of the resource
+     * @param loader Fetches the resource, returning null if it does not exist. Nothing is cached if it throws.
+     * @return Resource, null if it does not exist
+     */
+    public <T> T get(AnfResourceId id, Class<T> clazz, Supplier<T> loader)
+    {
+        long now = System.nanoTime();
+        Entry entry = entries.get(id);
+        if (entry != null && entry.expiresAt - now > 0)
+        {
+            return entry.value == MISSING ? null : clazz.cast(entry.value);
+        }
+
+        AnfResourceId parent = id.getParent();
+        Long listedUntil = parent != null ? listings.get(parent) : null;
+        if (entry == null && listedUntil != null && listedUntil - now > 0)
+        {
+            return null;
+        }
+
+        T resource = loader.get();
+        put(id, resource);
+        return resource;
+    }
+
+    /**
+     * Stores the latest known state of a resource, e.g. the result of a create or update operation
+     * @param id Resource id of the resource
+     * @param resource Resource, null if it does not exist
+     */
+    public void put(AnfResourceId id, Object resource)
+    {
+        if (ttlNanos <= 0)
+        {
+            return;
+        }
+
+        entries.put(id, new Entry(resource != null ? resource : MISSING, System.nanoTime() + ttlNanos));
+        index(id);
+    }
+
+    /**
+     * Stores the result of listing every child of a parent, so that children missing from the listing are known not
+     * to exist without asking the Resource Provider
+     * @param parent Resource id of the parent that was listed
+     * @param children Every child returned by the listing, keyed by resource id
+     */
+    public void putListing(AnfResourceId parent, Map<AnfResourceId, ?> children)
+    {
+        if (ttlNanos <= 0)
+        {
+            return;
+        }
+
+        children.forEach(this::put);
+        listings.put(parent, System.nanoTime() + ttlNanos);
+        index(parent);
+    }
+
+    /**
+     * Records that a resource was deleted. Nested resources, e.g. the snapshots of a deleted volume, are dropped
+     * from the cache as well.
+     * @param id Resource id of the deleted resource
+     */
+    public void putMissing(AnfResourceId id)
+    {
+        invalidate(id);
+        put(id, null);
+    }
+
+    /**
+     * Drops a resource and every resource nested under it, so that the next lookup goes to the Resource Provider
+     * @param id Resource id of the resource
+     */
+    public void invalidate(AnfResourceId id)
+    {
+        entries.remove(id);
+        listings.remove(id);
+
+        Set<AnfResourceId> children = nested.remove(id);
+        if (children != null)
+        {
+            for (AnfResourceId child : children)
+            {
+                invalidate(child);
+            }
+        }
+    }
+
+    /**
+     * Registers an id under its parent, and the parent under its own parent until an ancestor already known, so that
+     * every cached id is reachable from the account even when the resources in between are not cached
+     */
+    private void index(AnfResourceId id)
+    {
+        AnfResourceId child = id;
+        AnfResourceId parent = id.getParent();
+        while (parent != null && nested.computeIfAbsent(parent, key -> ConcurrentHashMap.newKeySet()).add(child))
+        {
+            child = parent;
+            parent = parent.getParent();
+        }
+    }
+
+    /**
+     * Drops every entry
+     */
+    public void clear()
+    {
+        entries.clear();
+        listings.clear();
+        nested.clear();
+    }
+
+    private static final class Entry
+    {
+        private final Object value;
+        private final long expiresAt;
+
+        private Entry(Object value, long expiresAt)
+        {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
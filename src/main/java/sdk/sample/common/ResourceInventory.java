@@ -0,0 +1,174 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.common;
+
+import com.azure.resourcemanager.netapp.fluent.NetAppManagementClient;
+import com.azure.resourcemanager.netapp.fluent.models.NetAppAccountInner;
+import reactor.core.publisher.Mono;
+import sdk.sample.model.ModelExecutionSettings;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// In-memory index of every Azure NetApp Files resource of a resource group, built by listing the resource hierarchy
+// once instead of getting resources one by one. Lists are requested through AsyncCommonSdk, so many of them are in
+// flight at once without a thread waiting on each. Listing also seeds the resource cache of CommonSdk, so existence
+// checks made afterwards through CommonSdk.getResource are answered without calling ARM.
+public class ResourceInventory
+{
+    private final String resourceGroup;
+
+    // Every resource found, keyed by resource id
+    private final Map<AnfResourceId, Object> resources = new ConcurrentHashMap<>();
+
+    // Children of every listed parent, in the order returned by the Resource Provider
+    private final Map<AnfResourceId, List<?>> children = new ConcurrentHashMap<>();
+
+    // Number of list requests issued to build the inventory
+    private final AtomicInteger listCalls = new AtomicInteger();
+
+    private ResourceInventory(String resourceGroup)
+    {
+        this.resourceGroup = resourceGroup;
+    }
+
+    /**
+     * Lists every resource of a resource group down to the given depth. Accounts are crawled concurrently, each one
+     * listing its capacity pools, then the volumes of every pool and optionally the snapshots of every volume.
+     * @param anfClient Azure NetApp Files Management Client
+     * @param resourceGroup Resource group to crawl
+     * @param depth Deepest resource type to list, e.g. VOLUME to skip snapshots
+     * @param settings Execution settings, whose maxParallelism bounds the list requests in flight per level
+     * @return Inventory of the resource group
+     */
+    public static ResourceInventory crawl(NetAppManagementClient anfClient, String resourceGroup, AnfResourceType<?> depth, ModelExecutionSettings settings)
+    {
+        return crawl(anfClient, resourceGroup, depth, null, settings);
+    }
+
+    /**
+     * Lists the accounts of a resource group, then the resources of some capacity pools only down to the given depth,
+     * e.g. the pools of appsettings.json among many others
+     * @param anfClient Azure NetApp Files Management Client
+     * @param resourceGroup Resource group to crawl
+     * @param depth Deepest resource type to list, e.g. VOLUME to skip snapshots
+     * @param pools Capacity pools whose volumes and snapshots are listed, null for every pool
+     * @param settings Execution settings, whose maxParallelism bounds the list requests in flight per level
+     * @return Inventory of the resource group, holding the listed pools and their accounts only
+     */
+    public static ResourceInventory crawl(NetAppManagementClient anfClient, String resourceGroup, AnfResourceType<?> depth, Set<AnfResourceId> pools,
+                                          ModelExecutionSettings settings)
+    {
+        long start = System.nanoTime();
+        ResourceInventory inventory = new ResourceInventory(resourceGroup);
+
+        int concurrency = Math.max(1, settings.getMaxParallelism());
+
+        Mono<List<NetAppAccountInner>> accounts = inventory.list(anfClient, AnfResourceType.ACCOUNT, AnfResourceId.of(anfClient.getSubscriptionId(), resourceGroup));
+        if (depth.getLevel() > AnfResourceType.ACCOUNT.getLevel())
+        {
+            accounts.flatMapIterable(listed -> listed)
+                    .map(account -> AnfResourceId.parse(account.id()))
+                    .filter(accountId -> pools == null || pools.stream().anyMatch(pool -> accountId.equals(pool.getParent())))
+                    .flatMap(accountId -> inventory.crawlAccount(anfClient, accountId, depth, pools, concurrency), concurrency)
+                    .blockLast();
+        }
+        else
+        {
+            accounts.block();
+        }
+
+        Utils.writeConsoleMessage("Inventory of resource group " + resourceGroup + ": " + inventory.resources.size() + " resource(s) found with "
+                + inventory.listCalls.get() + " list request(s) in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+        return inventory;
+    }
+
+    /**
+     * Lists the capacity pools of an account and, depending on the depth, their volumes and snapshots
+     */
+    private Mono<Void> crawlAccount(NetAppManagementClient anfClient, AnfResourceId account, AnfResourceType<?> depth, Set<AnfResourceId> pools, int concurrency)
+    {
+        return list(anfClient, AnfResourceType.CAPACITY_POOL, account)
+                .flatMapIterable(listed -> listed)
+                .map(pool -> AnfResourceId.parse(pool.id()))
+                .filter(poolId -> depth.getLevel() >= AnfResourceType.VOLUME.getLevel() && (pools == null || pools.contains(poolId)))
+                .flatMap(poolId -> list(anfClient, AnfResourceType.VOLUME, poolId), concurrency)
+                .flatMapIterable(listed -> listed)
+                .filter(volume -> depth.getLevel() >= AnfResourceType.SNAPSHOT.getLevel())
+                .flatMap(volume -> list(anfClient, AnfResourceType.SNAPSHOT, AnfResourceId.parse(volume.id())), concurrency)
+                .then();
+    }
+
+    /**
+     * Lists the children of a parent once subscribed, then records them in the inventory and in the resource cache
+     */
+    private <T> Mono<List<T>> list(NetAppManagementClient anfClient, AnfResourceType<T> type, AnfResourceId parent)
+    {
+        return Mono.defer(() -> {
+            listCalls.incrementAndGet();
+            return AsyncCommonSdk.listResource(anfClient, type, parent).collectList();
+        }).doOnNext(listed -> {
+            CommonSdk.cacheListing(type, parent, listed);
+            children.put(parent, listed);
+            for (T resource : listed)
+            {
+                resources.put(AnfResourceId.parse(type.idOf(resource)), resource);
+            }
+        });
+    }
+
+    /**
+     * Gets a resource found by the crawl
+     * @param type Type of the resource
+     * @param id Resource id of the resource
+     * @return Resource, null if it was not found or its parent was not crawled
+     */
+    public <T> T get(AnfResourceType<T> type, AnfResourceId id)
+    {
+        Object resource = resources.get(id);
+        return type.getModelClass().isInstance(resource) ? type.getModelClass().cast(resource) : null;
+    }
+
+    /**
+     * Checks whether the crawl listed the children of a parent, in which case a child missing from the inventory
+     * does not exist
+     * @param parent Resource id of the parent
+     * @return True if the children of the parent were listed
+     */
+    public boolean isListed(AnfResourceId parent)
+    {
+        return children.containsKey(parent);
+    }
+
+    /**
+     * Gets the children of a parent found by the crawl
+     * @param type Type of the children
+     * @param parent Resource id of the parent: resource group for accounts, account for capacity pools, and so on
+     * @return Children in the order returned by the Resource Provider, empty if the parent has none or was not crawled
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> list(AnfResourceType<T> type, AnfResourceId parent)
+    {
+        List<?> listed = children.get(parent);
+        if (listed == null || listed.isEmpty() || !type.getModelClass().isInstance(listed.get(0)))
+        {
+            return Collections.emptyList();
+        }
+        return (List<T>) listed;
+    }
+
+    public String getResourceGroup() {
+        return resourceGroup;
+    }
+
+    public int size() {
+        return resources.size();
+    }
+}
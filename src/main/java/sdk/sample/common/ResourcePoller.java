@@ -0,0 +1,86 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.common;
+
+import com.azure.core.management.exception.ManagementException;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+// Contains public methods to poll the Resource Provider until a resource reaches the expected state
+public class ResourcePoller
+{
+    private static final int HTTP_NOT_FOUND = 404;
+
+    /**
+     * Probes a resource until it stops existing. The first probe is issued immediately, the following ones are spaced
+     * by an exponential backoff with jitter until the policy budget is exhausted.
+     * @param probe Fetches the resource, returning null or throwing a 404 ManagementException once it is gone
+     * @param policy Backoff and time budget
+     * @param resourceId Resource id of the resource, used in messages
+     * @return True if the resource is gone, false if the time budget was exhausted first
+     */
+    public static boolean waitForDeletion(Supplier<Object> probe, PollingPolicy policy, String resourceId)
+    {
+        long deadline = System.nanoTime() + policy.getTimeout().toNanos();
+        Duration delay = null;
+
+        long attempt = 0;
+        while (true)
+        {
+            // Each probe is a span of its own, the gaps between them are the backoff delays
+            Span span = Tracing.start("Poll deletion", Attributes.of(Tracing.RESOURCE_ID, resourceId, Tracing.ATTEMPT, ++attempt));
+            try
+            {
+                if (probe.get() == null)
+                {
+                    return true;
+                }
+            }
+            catch (ManagementException e)
+            {
+                if (isNotFound(e))
+                {
+                    return true;
+                }
+
+                // Throttling or transient Resource Provider errors, the resource may still exist so keep polling
+                span.recordException(e);
+                Utils.writeWarningMessage("Error polling resource " + resourceId + " - " + e.getMessage());
+            }
+            finally
+            {
+                span.end();
+            }
+
+            long remainingMillis = Duration.ofNanos(deadline - System.nanoTime()).toMillis();
+            if (remainingMillis <= 0)
+            {
+                Utils.writeWarningMessage("Timed out after " + policy.getTimeout().toSeconds() + "s waiting for deletion of " + resourceId);
+                return false;
+            }
+
+            delay = policy.nextDelay(delay);
+            Utils.threadSleep((int) Math.min(PollingPolicy.withJitter(delay).toMillis(), remainingMillis));
+            if (Thread.currentThread().isInterrupted())
+            {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Checks whether an error returned by the Resource Provider means that the resource does not exist
+     * @param e Exception thrown by the management client
+     * @return True if the response status code is 404
+     */
+    public static boolean isNotFound(ManagementException e)
+    {
+        return e.getResponse() != null && e.getResponse().getStatusCode() == HTTP_NOT_FOUND;
+    }
+}
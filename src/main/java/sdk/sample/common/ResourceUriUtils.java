@@ -5,7 +5,8 @@
 
 package sdk.sample.common;
 
-// Contains public methods to extract name from ANF resources
+// Contains public methods to extract name from ANF resources. Callers needing several names of the same id should
+// use AnfResourceId directly, which parses the id once.
 public class ResourceUriUtils
 {
     /**
@@ -20,7 +21,7 @@ public class ResourceUriUtils
             return null;
         }
 
-        return getResourceValue(resourceUri, "/netAppAccounts");
+        return AnfResourceId.parse(resourceUri).getAccountName();
     }
 
     /**
@@ -35,7 +36,7 @@ public class ResourceUriUtils
             return null;
         }
 
-        return getResourceValue(resourceUri, "/capacityPools");
+        return AnfResourceId.parse(resourceUri).getCapacityPoolName();
     }
 
     /**
@@ -50,7 +51,7 @@ public class ResourceUriUtils
             return null;
         }
 
-        return getResourceValue(resourceUri, "/volumes");
+        return AnfResourceId.parse(resourceUri).getVolumeName();
     }
 
     /**
@@ -65,7 +66,7 @@ public class ResourceUriUtils
             return null;
         }
 
-        return getResourceValue(resourceUri, "/snapshots");
+        return AnfResourceId.parse(resourceUri).getSnapshotName();
     }
 
     /**
@@ -80,11 +81,12 @@ public class ResourceUriUtils
             return null;
         }
 
-        return getResourceValue(resourceUri, "/resourceGroups");
+        return AnfResourceId.parse(resourceUri).getResourceGroup();
     }
 
     /**
-     * Parse the resource value from a resourceUri
+     * Parse the resource value from a resourceUri. Segment names are matched ignoring case and only at type positions,
+     * so a resource group named like a resource type, e.g. "volumes", is not mistaken for it.
      * @param resourceUri Id or similar value of resource
      * @param resourceName Which resource to parse from
      * @return True name of resource
@@ -96,37 +98,6 @@ public class ResourceUriUtils
             return null;
         }
 
-        if (!resourceName.startsWith("/"))
-        {
-            resourceName = "/" + resourceName;
-        }
-
-        if (!resourceUri.startsWith("/"))
-        {
-            resourceUri = "/" + resourceUri;
-        }
-
-        // Checks if the resourceName and resourceGroup is the same name, and if so handles it specially
-        String rgResourceName = "/resourceGroups" + resourceName;
-        int rgIndex = resourceUri.toLowerCase().indexOf(rgResourceName.toLowerCase());
-        if (rgIndex != -1) // resourceGroup name and resourceName passed are the same. Example: resourceGroup is "Snapshot" and so is the resourceName
-        {
-            String[] removedSameRgName = resourceUri.substring(rgIndex+1).split("/");
-            return removedSameRgName[1];
-        }
-
-        int index = resourceUri.toLowerCase().indexOf(resourceName.toLowerCase());
-        if (index != -1)
-        {
-            String res = resourceUri.substring(index + resourceName.length()).split("/")[1];
-
-            // to handle the partial resource uri that doesn't have real resource name
-            if (res.length() > 1)
-            {
-                return res;
-            }
-        }
-
-        return null;
+        return AnfResourceId.findValue(resourceUri, resourceName);
     }
 }
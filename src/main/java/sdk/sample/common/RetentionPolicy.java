@@ -0,0 +1,75 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.common;
+
+import com.azure.resourcemanager.netapp.fluent.models.SnapshotInner;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Selects the snapshots of a volume to keep: the newest snapshot of each of the most recent hours holding a snapshot,
+// up to the hourly count, and likewise for days. Hours and days are UTC. Every other snapshot is expired, except
+// snapshots without a creation time, which are always kept.
+public class RetentionPolicy
+{
+    private final int hourly;
+    private final int daily;
+
+    /**
+     * Creates a retention policy
+     * @param hourly Number of hours for which the newest snapshot is kept
+     * @param daily Number of days for which the newest snapshot is kept
+     */
+    public RetentionPolicy(int hourly, int daily)
+    {
+        this.hourly = Math.max(0, hourly);
+        this.daily = Math.max(0, daily);
+    }
+
+    /**
+     * Selects the expired snapshots of a single volume
+     * @param snapshots Snapshots of the volume, in any order
+     * @return Snapshots to delete, oldest first
+     */
+    public List<SnapshotInner> selectExpired(List<SnapshotInner> snapshots)
+    {
+        List<SnapshotInner> newestFirst = new ArrayList<>();
+        for (SnapshotInner snapshot : snapshots)
+        {
+            if (snapshot.created() != null)
+            {
+                newestFirst.add(snapshot);
+            }
+        }
+        newestFirst.sort(Comparator.comparing(SnapshotInner::created).reversed());
+
+        Set<OffsetDateTime> hours = new HashSet<>();
+        Set<OffsetDateTime> days = new HashSet<>();
+        List<SnapshotInner> expired = new ArrayList<>();
+        for (SnapshotInner snapshot : newestFirst)
+        {
+            OffsetDateTime created = snapshot.created().withOffsetSameInstant(ZoneOffset.UTC);
+
+            // Sets only grow up to their count, the first snapshot met in a bucket is the newest one
+            boolean keptHourly = hours.size() < hourly && hours.add(created.truncatedTo(ChronoUnit.HOURS));
+            boolean keptDaily = days.size() < daily && days.add(created.truncatedTo(ChronoUnit.DAYS));
+            if (!keptHourly && !keptDaily)
+            {
+                expired.add(snapshot);
+            }
+        }
+
+        Collections.reverse(expired);
+        return expired;
+    }
+}
@@ -0,0 +1,333 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.common;
+
+import com.azure.core.management.polling.PollResult;
+import com.azure.core.util.polling.SyncPoller;
+import com.azure.resourcemanager.netapp.fluent.NetAppManagementClient;
+import com.azure.resourcemanager.netapp.fluent.models.SnapshotInner;
+import com.google.gson.GsonBuilder;
+import sdk.sample.model.ModelCapacityPool;
+import sdk.sample.model.ModelNetAppAccount;
+import sdk.sample.model.ModelSnapshotSettings;
+import sdk.sample.model.ModelVolume;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+// Snapshots of every volume of appsettings.json taken as close together as possible, all with the same name.
+// Creations are submitted in two steps, a request then a wait for the long-running operation, each on its own task so
+// that waiting for one snapshot never delays the request of another. At most maxPerAccount snapshots are requested or
+// in progress at a time per account: a snapshot holds its account's permit from its request until it completes. The
+// set reports the skew between its first and last snapshot and is written as a JSON manifest.
+public class SnapshotSet
+{
+    // Name shared by every snapshot of the set
+    private final String name;
+
+    // Time the first snapshot was requested
+    private final String requestedAt;
+
+    // True if every volume was snapshotted successfully
+    private boolean complete;
+
+    // Time between the first and the last snapshot completion observed by the client
+    private long completionSkewMs;
+
+    // Time between the first and the last snapshot creation reported by the Resource Provider, -1 if unknown
+    private long creationSkewMs = -1;
+
+    // One member per volume, ordered by volume resource id
+    private final List<Member> members = new ArrayList<>();
+
+    // Snapshot of a single volume
+    private static final class Member
+    {
+        private final String volumeId;
+        private String snapshotId;
+
+        // Unique identifier of the snapshot, used to create volumes from it
+        private String snapshotGuid;
+
+        private String acceptedAt;
+        private String completedAt;
+
+        // Creation time reported by the Resource Provider
+        private String created;
+
+        private String error;
+
+        private transient Instant completedInstant;
+        private transient OffsetDateTime createdTime;
+        private transient SnapshotInner snapshot;
+
+        private Member(String volumeId)
+        {
+            this.volumeId = volumeId;
+        }
+    }
+
+    // Volume of appsettings.json to snapshot
+    private static final class Target
+    {
+        // Resource id of the snapshot to create
+        private final AnfResourceId id;
+        private final String location;
+        private final Member member;
+
+        private Target(AnfResourceId id, String location, Member member)
+        {
+            this.id = id;
+            this.location = location;
+            this.member = member;
+        }
+    }
+
+    private SnapshotSet(String name)
+    {
+        this.name = name;
+        this.requestedAt = Instant.now().toString();
+    }
+
+    /**
+     * Snapshots every volume of appsettings.json concurrently. Accounts are served in turn so that a large account does
+     * not delay the snapshots of the others, and the manifest is written even if some snapshots failed.
+     * @param config Project Configuration
+     * @param anfClient Azure NetApp Files Management Client
+     * @param name Name given to every snapshot of the set
+     * @return Snapshot set, complete if every volume was snapshotted
+     */
+    public static SnapshotSet take(ProjectConfiguration config, NetAppManagementClient anfClient, String name)
+    {
+        ModelSnapshotSettings settings = config.getExecutionSettings().getSnapshots();
+        int maxPerAccount = Math.max(1, settings.getMaxPerAccount());
+        SnapshotSet set = new SnapshotSet(name);
+
+        List<List<Target>> accounts = new ArrayList<>();
+        int volumes = 0;
+        int largestAccount = 0;
+        for (ModelNetAppAccount account : config.getAccounts())
+        {
+            List<Target> targets = new ArrayList<>();
+            for (ModelCapacityPool pool : Objects.requireNonNullElse(account.getCapacityPools(), List.<ModelCapacityPool>of()))
+            {
+                for (ModelVolume volume : Objects.requireNonNullElse(pool.getVolumes(), List.<ModelVolume>of()))
+                {
+                    AnfResourceId id = AnfResourceId.of(anfClient.getSubscriptionId(), config.getResourceGroup(),
+                            account.getName(), pool.getName(), volume.getName(), name);
+                    Member member = new Member(id.getParent().getId());
+                    set.members.add(member);
+                    targets.add(new Target(id, account.getLocation(), member));
+                }
+            }
+            accounts.add(targets);
+            volumes += targets.size();
+            largestAccount = Math.max(largestAccount, targets.size());
+        }
+        if (volumes == 0)
+        {
+            return set;
+        }
+
+        Utils.writeConsoleMessage("Creating snapshot set " + name + " of " + volumes + " volume(s) across " + accounts.size() + " account(s)...");
+
+        // A snapshot runs on a single thread at a time while it holds its permit, a thread per permit serves every
+        // account at its own limit
+        try (ProvisioningEngine engine = ProvisioningEngine.forSettings(config.getExecutionSettings(), Math.min(volumes, accounts.size() * maxPerAccount)))
+        {
+            List<OperationLimit> limits = new ArrayList<>();
+            for (int i = 0; i < accounts.size(); i++)
+            {
+                limits.add(new OperationLimit(maxPerAccount));
+            }
+
+            // Accounts take turns so that their first snapshots are requested first, waits are queued as their request is accepted
+            for (int position = 0; position < largestAccount; position++)
+            {
+                for (int i = 0; i < accounts.size(); i++)
+                {
+                    if (position < accounts.get(i).size())
+                    {
+                        Target target = accounts.get(i).get(position);
+                        OperationLimit limit = limits.get(i);
+                        CompletableFuture<SyncPoller<PollResult<SnapshotInner>, SnapshotInner>> accepted =
+                                engine.supply(null, () -> begin(anfClient, target), limit.acquire());
+                        engine.submit(() -> complete(target, accepted.join()), accepted)
+                                .whenComplete((result, error) -> limit.release());
+                    }
+                }
+            }
+
+            engine.awaitCompletion();
+        }
+        finally
+        {
+            set.summarize();
+            set.write(config.scopedPath(settings.getManifest()));
+        }
+
+        return set;
+    }
+
+    /**
+     * Requests the snapshot of a volume, returning once the Resource Provider accepted it. Failures are recorded in the
+     * member so that the other snapshots of the set are still taken.
+     * @return Poller of the snapshot creation, null if the request failed
+     */
+    private static SyncPoller<PollResult<SnapshotInner>, SnapshotInner> begin(NetAppManagementClient anfClient, Target target)
+    {
+        AnfResourceId id = target.id;
+        SnapshotInner body = new SnapshotInner().withLocation(target.location);
+
+        OperationJournal.current().submitted("create", id);
+        try
+        {
+            SyncPoller<PollResult<SnapshotInner>, SnapshotInner> poller = anfClient.getSnapshots().beginCreate(
+                    id.getResourceGroup(), id.getAccountName(), id.getCapacityPoolName(), id.getVolumeName(), id.getSnapshotName(), body);
+            target.member.acceptedAt = Instant.now().toString();
+            return poller;
+        }
+        catch (RuntimeException e)
+        {
+            OperationJournal.current().failed("create", id);
+            target.member.error = e.getMessage();
+            Utils.writeErrorMessage("An error occurred while requesting a snapshot of volume " + target.member.volumeId + ".\nError message: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Waits for an accepted snapshot creation to complete, recording a failure in the member
+     */
+    private static void complete(Target target, SyncPoller<PollResult<SnapshotInner>, SnapshotInner> poller)
+    {
+        Member member = target.member;
+        if (poller == null)
+        {
+            return;
+        }
+
+        try
+        {
+            SnapshotInner snapshot = OperationMetrics.time(AnfResourceType.SNAPSHOT, "create", poller::getFinalResult);
+            member.completedInstant = Instant.now();
+            member.completedAt = member.completedInstant.toString();
+            member.snapshot = snapshot;
+            member.snapshotId = snapshot.id();
+            member.snapshotGuid = snapshot.snapshotId();
+            member.createdTime = snapshot.created();
+            member.created = snapshot.created() != null ? snapshot.created().toString() : null;
+
+            OperationJournal.current().completed("create", target.id);
+            CommonSdk.cacheResource(snapshot);
+            Utils.writeSuccessMessage("Snapshot created successfully. Snapshot resource id: " + snapshot.id());
+        }
+        catch (RuntimeException e)
+        {
+            OperationJournal.current().failed("create", target.id);
+            member.error = e.getMessage();
+            Utils.writeErrorMessage("An error occurred while creating a snapshot of volume " + member.volumeId + ".\nError message: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Computes completeness and skews once every member finished
+     */
+    private void summarize()
+    {
+        members.sort(Comparator.comparing(member -> member.volumeId));
+        complete = members.stream().allMatch(member -> member.snapshotId != null);
+
+        List<Instant> completions = members.stream().map(member -> member.completedInstant).filter(Objects::nonNull).sorted().toList();
+        if (!completions.isEmpty())
+        {
+            completionSkewMs = Duration.between(completions.get(0), completions.get(completions.size() - 1)).toMillis();
+        }
+
+        List<OffsetDateTime> creations = members.stream().map(member -> member.createdTime).filter(Objects::nonNull).sorted().toList();
+        if (!creations.isEmpty() && creations.size() == completions.size())
+        {
+            creationSkewMs = Duration.between(creations.get(0), creations.get(creations.size() - 1)).toMillis();
+        }
+
+        String message = "Snapshot set " + name + ": " + completions.size() + "/" + members.size() + " snapshot(s), completion skew "
+                + completionSkewMs + "ms" + (creationSkewMs >= 0 ? ", creation skew " + creationSkewMs + "ms" : "");
+        if (complete)
+        {
+            Utils.writeSuccessMessage(message);
+        }
+        else
+        {
+            Utils.writeWarningMessage(message + ". The set is incomplete and is not a consistent point in time");
+        }
+    }
+
+    /**
+     * Writes the manifest of the set
+     * @param path File the manifest is written to
+     */
+    private void write(String path)
+    {
+        try (Writer writer = Files.newBufferedWriter(Paths.get(path), StandardCharsets.UTF_8))
+        {
+            new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create().toJson(this, writer);
+            Utils.writeConsoleMessage("Snapshot set manifest written to " + path);
+        }
+        catch (IOException e)
+        {
+            Utils.writeWarningMessage("Unable to write snapshot set manifest " + path + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the snapshot of a volume
+     * @param volumeId Resource id of the volume
+     * @return Snapshot of the volume, null if the volume is not part of the set or its snapshot failed
+     */
+    public SnapshotInner get(AnfResourceId volumeId)
+    {
+        for (Member member : members)
+        {
+            if (AnfResourceId.parse(member.volumeId).equals(volumeId))
+            {
+                return member.snapshot;
+            }
+        }
+
+        return null;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public long getCompletionSkewMs() {
+        return completionSkewMs;
+    }
+
+    public long getCreationSkewMs() {
+        return creationSkewMs;
+    }
+
+    public int size() {
+        return members.size();
+    }
+}
@@ -0,0 +1,126 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.common;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import sdk.sample.model.ModelTracingSettings;
+
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// OpenTelemetry span tree of a run: a root span for the whole run, a span per phase and per resource operation
+// (through OperationMetrics.time) and a span per deletion poll. The current span travels with the operations submitted
+// to ProvisioningEngine, so operations running on worker threads are attached to the phase that submitted them.
+// Spans are written to a local OTLP/JSON file; until init is called, or when tracing is disabled, spans are no-ops.
+public class Tracing
+{
+    public static final AttributeKey<String> RESOURCE_TYPE = AttributeKey.stringKey("anf.resource.type");
+    public static final AttributeKey<String> OPERATION = AttributeKey.stringKey("anf.operation");
+    public static final AttributeKey<String> RESOURCE_ID = AttributeKey.stringKey("anf.resource.id");
+    public static final AttributeKey<Long> ATTEMPT = AttributeKey.longKey("anf.poll.attempt");
+
+    private static final String INSTRUMENTATION_NAME = "sdk.sample";
+    private static final String SERVICE_NAME = "netappfiles-java-sdk-sample";
+
+    private static volatile Tracer tracer = OpenTelemetry.noop().getTracer(INSTRUMENTATION_NAME);
+    private static SdkTracerProvider tracerProvider;
+
+    /**
+     * Starts exporting spans to the file set in the tracing settings
+     * @param settings Tracing settings, spans stay no-ops if tracing is disabled
+     */
+    public static synchronized void init(ModelTracingSettings settings)
+    {
+        if (settings == null || !settings.isEnabled() || tracerProvider != null)
+        {
+            return;
+        }
+
+        tracerProvider = SdkTracerProvider.builder()
+                .setResource(Resource.getDefault().merge(Resource.create(Attributes.of(AttributeKey.stringKey("service.name"), SERVICE_NAME))))
+                .addSpanProcessor(BatchSpanProcessor.builder(new OtlpJsonFileSpanExporter(Paths.get(settings.getFile()))).build())
+                .build();
+        tracer = tracerProvider.get(INSTRUMENTATION_NAME);
+        Utils.writeConsoleMessage("Writing trace spans to " + settings.getFile());
+    }
+
+    /**
+     * Exports the spans still buffered and stops tracing
+     */
+    public static synchronized void shutdown()
+    {
+        if (tracerProvider != null)
+        {
+            tracerProvider.shutdown().join(10, TimeUnit.SECONDS);
+            tracerProvider = null;
+            tracer = OpenTelemetry.noop().getTracer(INSTRUMENTATION_NAME);
+        }
+    }
+
+    /**
+     * Starts a span, child of the current span, that the caller must end
+     * @param name Span name
+     * @param attributes Span attributes
+     * @return Started span
+     */
+    public static Span start(String name, Attributes attributes)
+    {
+        return tracer.spanBuilder(name).setAllAttributes(attributes).startSpan();
+    }
+
+    /**
+     * Runs a call in a span, child of the current span. The span records the exception thrown by the call, if any.
+     * @param name Span name
+     * @param attributes Span attributes
+     * @param call Call to trace
+     * @return Result of the call
+     */
+    public static <T> T inSpan(String name, Attributes attributes, Supplier<T> call)
+    {
+        Span span = start(name, attributes);
+        try (Scope ignored = span.makeCurrent())
+        {
+            return call.get();
+        }
+        catch (RuntimeException e)
+        {
+            span.recordException(e);
+            span.setStatus(StatusCode.ERROR, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+            throw e;
+        }
+        finally
+        {
+            span.end();
+        }
+    }
+
+    /**
+     * Binds a call to the current span, so that spans it starts on another thread have the same parent
+     * @param call Call to be run later, possibly on another thread
+     * @return Call running with the current span
+     */
+    public static <T> Supplier<T> wrap(Supplier<T> call)
+    {
+        Context context = Context.current();
+        return () -> {
+            try (Scope ignored = context.makeCurrent())
+            {
+                return call.get();
+            }
+        };
+    }
+}
@@ -5,14 +5,9 @@
 
 package sdk.sample.common;
 
-import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
-
 // Contains public methods to get configuration settings, display app header, conversion of bytes, etc.
 public class Utils
 {
-    static DateTimeFormatter pattern = DateTimeFormatter.ofPattern("HH:mm:ss");
-
     /**
      * Simple function to display this console app basic information
      */
@@ -34,12 +29,12 @@ public class Utils
     }
 
     /**
-     * Display console messages
+     * Display console messages. Messages are queued and written by a background thread, see AsyncLogger.
      * @param message Message to be written in console
      */
     public static void writeConsoleMessage(String message)
     {
-        System.out.println(LocalTime.now().format(pattern) + " " + message);
+        AsyncLogger.log(AsyncLogger.Level.INFO, message);
     }
 
     /**
@@ -48,7 +43,7 @@ public class Utils
      */
     public static void writeErrorMessage(String message)
     {
-        System.out.println(LocalTime.now().format(pattern) + " " + ConsoleColors.RED + message + ConsoleColors.RESET);
+        AsyncLogger.log(AsyncLogger.Level.ERROR, message);
     }
 
     /**
@@ -57,12 +52,24 @@ public class Utils
      */
     public static void writeSuccessMessage(String message)
     {
-        System.out.println(LocalTime.now().format(pattern) + " " + ConsoleColors.GREEN + message + ConsoleColors.RESET);
+        AsyncLogger.log(AsyncLogger.Level.SUCCESS, message);
     }
 
+    /**
+     * Display warning messages in yellow
+     * @param message Message to be written in console
+     */
     public static void writeWarningMessage(String message)
     {
-        System.out.println(LocalTime.now().format(pattern) + " " + ConsoleColors.YELLOW + message + ConsoleColors.RESET);
+        AsyncLogger.log(AsyncLogger.Level.WARNING, message);
+    }
+
+    /**
+     * Waits until every console message written so far reached the console, to be called before exiting
+     */
+    public static void flushConsole()
+    {
+        AsyncLogger.flush();
     }
 
     /**
@@ -110,13 +117,4 @@ public class Utils
             Thread.currentThread().interrupt();
         }
     }
-
-    private static class ConsoleColors
-    {
-        public static final String RESET = "\033[0m";
-
-        public static final String RED = "\033[0;31m";
-        public static final String GREEN = "\033[0;32m";
-        public static final String YELLOW = "\033[0;33m";
-    }
 }
@@ -0,0 +1,288 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.common;
+
+import sdk.sample.model.ModelCapacityPool;
+import sdk.sample.model.ModelNetAppAccount;
+import sdk.sample.model.ModelVolume;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Turns the capacity and throughput targets of volumes into quotas and service levels. With automatic QoS a volume
+// gets throughput in proportion to its quota and the service level of its pool, so a throughput target is met by
+// growing the quota. With manual QoS the throughput of the pool, its size times the service level rate, is allocated
+// explicitly, so a small volume can get a large share without being oversized. The cheapest service level is the one
+// whose required capacity costs least at list price.
+public class VolumeSizing
+{
+    // Service level of a capacity pool or a volume to be picked by the sizing engine
+    public static final String AUTO = "Auto";
+
+    // QoS type of capacity pools whose throughput is allocated explicitly to their volumes
+    public static final String MANUAL_QOS = "Manual";
+
+    private static final long GIB = 1024L * 1024L * 1024L;
+    private static final long TIB = 1024L * GIB;
+
+    // Volume quota limits
+    static final long MIN_VOLUME_SIZE = 100 * GIB;
+    static final long MAX_VOLUME_SIZE = Utils.getBytesFromTB(100);
+
+    // Service levels from the cheapest to the most expensive
+    private static final List<ServiceLevelRate> SERVICE_LEVELS = List.of(
+            new ServiceLevelRate("Standard", 16, 0.000202),
+            new ServiceLevelRate("Premium", 64, 0.000403),
+            new ServiceLevelRate("Ultra", 128, 0.000538));
+
+    // Throughput and price of a service level
+    private static final class ServiceLevelRate
+    {
+        private final String name;
+
+        // Throughput of every TiB, in MiB/s
+        private final double throughputPerTiB;
+
+        // List price of a GiB per hour in US regions, only the ratio between service levels matters
+        private final double pricePerGiBHour;
+
+        private ServiceLevelRate(String name, double throughputPerTiB, double pricePerGiBHour)
+        {
+            this.name = name;
+            this.throughputPerTiB = throughputPerTiB;
+            this.pricePerGiBHour = pricePerGiBHour;
+        }
+    }
+
+    /**
+     * Sizes the volumes of appsettings.json and resolves the service level of pools set to Auto. Quotas are raised to
+     * sustain throughput targets with automatic QoS, volumes of manual QoS pools get an explicit throughput, and pools
+     * are grown to the 4 TiB multiple holding the capacity and throughput of their volumes. Volumes whose quota would
+     * exceed the largest volume are rejected before anything is created.
+     * @param accounts Accounts of appsettings.json, updated in place
+     */
+    public static void apply(List<ModelNetAppAccount> accounts)
+    {
+        if (accounts == null)
+        {
+            return;
+        }
+
+        List<String> oversized = new ArrayList<>();
+
+        for (ModelNetAppAccount account : accounts)
+        {
+            if (account.getCapacityPools() == null)
+            {
+                continue;
+            }
+
+            for (ModelCapacityPool pool : account.getCapacityPools())
+            {
+                List<ModelVolume> volumes = pool.getVolumes() != null ? pool.getVolumes() : List.of();
+                boolean manualQos = isManualQos(pool.getQosType());
+                if (isAuto(pool.getServiceLevel()))
+                {
+                    pool.setServiceLevel(selectServiceLevel(volumes, manualQos));
+                    Utils.writeConsoleMessage("Capacity Pool " + pool.getName() + ": " + pool.getServiceLevel() + " is the cheapest service level meeting the targets of its volume(s)");
+                }
+
+                for (ModelVolume volume : volumes)
+                {
+                    long quota = getQuota(volume, pool.getServiceLevel(), manualQos);
+                    if (quota > MAX_VOLUME_SIZE)
+                    {
+                        oversized.add(volume.getName() + " (" + Utils.getTBFromBytes(quota) + " TiB " + pool.getServiceLevel() + ")");
+                        continue;
+                    }
+
+                    volume.setUsageThreshold(quota);
+                    if (manualQos)
+                    {
+                        volume.setThroughputMibps(getThroughput(volume, pool.getServiceLevel()));
+                    }
+                }
+
+                // The run stops once every pool was checked, growing pools for rejected volumes would only add noise
+                if (!oversized.isEmpty())
+                {
+                    continue;
+                }
+
+                long required = PoolPlanner.roundUpToPoolSize(getRequiredCapacity(volumes, pool.getServiceLevel(), manualQos));
+                if (required > pool.getSize())
+                {
+                    Utils.writeConsoleMessage("Capacity Pool " + pool.getName() + " grown from " + Utils.getTBFromBytes(pool.getSize()) + " to "
+                            + Utils.getTBFromBytes(required) + " TiB to hold the capacity and throughput of its volume(s)");
+                    pool.setSize(required);
+                }
+            }
+        }
+
+        if (!oversized.isEmpty())
+        {
+            Utils.writeErrorMessage(oversized.size() + " volume(s) exceed the largest volume of " + Utils.getTBFromBytes(MAX_VOLUME_SIZE) + " TiB: "
+                    + String.join(", ", oversized));
+            throw new IllegalArgumentException(oversized.size() + " volume(s) exceed the largest volume");
+        }
+    }
+
+    /**
+     * Picks the cheapest service level able to serve volumes from a single capacity pool
+     * @param volumes Volumes with their capacity and throughput targets
+     * @param manualQos True if the pool allocates throughput explicitly, so that volumes share the pool's throughput
+     * @return Name of the cheapest service level, the slowest one on equal cost
+     */
+    public static String selectServiceLevel(List<ModelVolume> volumes, boolean manualQos)
+    {
+        ServiceLevelRate cheapest = null;
+        double cheapestCost = Double.MAX_VALUE;
+        for (ServiceLevelRate rate : SERVICE_LEVELS)
+        {
+            double cost = (double) getRequiredCapacity(volumes, rate.name, manualQos) / GIB * rate.pricePerGiBHour;
+            if (cost < cheapestCost)
+            {
+                cheapest = rate;
+                cheapestCost = cost;
+            }
+        }
+
+        return cheapest.name;
+    }
+
+    /**
+     * Gets the capacity a capacity pool needs to hold volumes and serve their throughput
+     * @param volumes Volumes with their capacity and throughput targets
+     * @param serviceLevel Service level of the pool
+     * @param manualQos True if the pool allocates throughput explicitly
+     * @return Capacity in bytes, before rounding to the pool granularity
+     */
+    public static long getRequiredCapacity(List<ModelVolume> volumes, String serviceLevel, boolean manualQos)
+    {
+        long capacity = 0;
+        long throughputCapacity = 0;
+        for (ModelVolume volume : volumes)
+        {
+            capacity += getQuota(volume, serviceLevel, manualQos);
+            throughputCapacity += getThroughputCapacity(volume, serviceLevel, manualQos);
+        }
+
+        return Math.max(capacity, throughputCapacity);
+    }
+
+    /**
+     * Gets the quota of a volume: its capacity target, at least 100 GiB, raised with automatic QoS to sustain its
+     * throughput target
+     * @param volume Volume with its capacity and throughput targets
+     * @param serviceLevel Service level of the volume's pool
+     * @param manualQos True if the pool allocates throughput explicitly
+     * @return Quota in bytes
+     */
+    public static long getQuota(ModelVolume volume, String serviceLevel, boolean manualQos)
+    {
+        long quota = Math.max(volume.getUsageThreshold(), MIN_VOLUME_SIZE);
+        return manualQos ? quota : Math.max(quota, getSizeForThroughput(volume.getThroughputMibps(), serviceLevel));
+    }
+
+    /**
+     * Gets the share of its pool's capacity a volume uses to serve its throughput. With automatic QoS the quota
+     * already serves it, with manual QoS the throughput target or, without one, the throughput automatic QoS would
+     * have given to the quota.
+     * @return Capacity in bytes
+     */
+    public static long getThroughputCapacity(ModelVolume volume, String serviceLevel, boolean manualQos)
+    {
+        if (!manualQos || volume.getThroughputMibps() <= 0)
+        {
+            return getQuota(volume, serviceLevel, manualQos);
+        }
+
+        return getSizeForThroughput(volume.getThroughputMibps(), serviceLevel);
+    }
+
+    /**
+     * Gets the throughput allocated to a volume of a manual QoS pool
+     * @param volume Volume with its capacity and throughput targets
+     * @param serviceLevel Service level of the volume's pool
+     * @return Throughput target, or the throughput automatic QoS would have given to the quota, in MiB/s
+     */
+    public static double getThroughput(ModelVolume volume, String serviceLevel)
+    {
+        if (volume.getThroughputMibps() > 0)
+        {
+            return volume.getThroughputMibps();
+        }
+
+        return (double) getQuota(volume, serviceLevel, true) / TIB * getThroughputPerTiB(serviceLevel);
+    }
+
+    /**
+     * Gets the smallest capacity serving a throughput
+     * @param throughputMibps Throughput in MiB/s, 0 for none
+     * @param serviceLevel Service level, case insensitive
+     * @return Capacity in bytes, rounded up to the GiB
+     */
+    public static long getSizeForThroughput(double throughputMibps, String serviceLevel)
+    {
+        if (throughputMibps <= 0)
+        {
+            return 0;
+        }
+
+        long gib = (long) Math.ceil(throughputMibps / getThroughputPerTiB(serviceLevel) * 1024);
+        return gib * GIB;
+    }
+
+    /**
+     * Gets the throughput of every TiB of a service level
+     * @param serviceLevel Service level, case insensitive
+     * @return Throughput in MiB/s per TiB
+     */
+    public static double getThroughputPerTiB(String serviceLevel)
+    {
+        return find(serviceLevel).throughputPerTiB;
+    }
+
+    /**
+     * Gets the canonical name of a service level
+     * @param serviceLevel Service level, case insensitive
+     * @return 'Standard', 'Premium' or 'Ultra'
+     */
+    public static String normalizeServiceLevel(String serviceLevel)
+    {
+        return find(serviceLevel).name;
+    }
+
+    /**
+     * Checks whether a service level is left to the sizing engine
+     */
+    public static boolean isAuto(String serviceLevel)
+    {
+        return AUTO.equalsIgnoreCase(serviceLevel);
+    }
+
+    /**
+     * Checks whether a QoS type allocates throughput explicitly, automatic QoS being the default
+     */
+    public static boolean isManualQos(String qosType)
+    {
+        return MANUAL_QOS.equalsIgnoreCase(qosType);
+    }
+
+    private static ServiceLevelRate find(String serviceLevel)
+    {
+        for (ServiceLevelRate rate : SERVICE_LEVELS)
+        {
+            if (rate.name.equalsIgnoreCase(serviceLevel))
+            {
+                return rate;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown service level '" + serviceLevel + "', valid values are 'Standard', 'Premium', 'Ultra' and '"
+                + AUTO + "' where supported");
+    }
+}
@@ -8,16 +8,72 @@ package sdk.sample;
 import com.azure.core.credential.TokenCredential;
 import com.azure.core.management.AzureEnvironment;
 import com.azure.core.management.profile.AzureProfile;
-import com.azure.identity.DefaultAzureCredentialBuilder;
 import com.azure.resourcemanager.netapp.NetAppFilesManager;
+import com.azure.resourcemanager.netapp.fluent.NetAppManagementClient;
+import com.google.gson.JsonParseException;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Scope;
+import sdk.sample.common.AnfClientFactory;
+import sdk.sample.common.ArmThrottlingPolicy;
+import sdk.sample.common.AsyncLogger;
+import sdk.sample.common.CommonSdk;
+import sdk.sample.common.ConfigurationStream;
+import sdk.sample.common.ExecutionMode;
+import sdk.sample.common.OperationJournal;
+import sdk.sample.common.OperationMetrics;
+import sdk.sample.common.PoolPlanner;
+import sdk.sample.common.PrefetchingCredential;
 import sdk.sample.common.ProjectConfiguration;
+import sdk.sample.common.ProvisioningEngine;
+import sdk.sample.common.Tracing;
 import sdk.sample.common.Utils;
+import sdk.sample.common.VolumeSizing;
+import sdk.sample.model.ModelExecutionSettings;
+import sdk.sample.model.ModelScope;
+import sdk.sample.simulator.AnfSimulator;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 public class main
 {
+    private static final String EXECUTION_MODE_ARG = "--execution-mode=";
+    private static final String SIMULATOR_ARG = "--simulator";
+    private static final String STREAM_CONFIG_ARG = "--stream-config";
+    private static final String PLAN_ARG = "--plan";
+    private static final String APPLY_ARG = "--apply";
+    private static final String PRUNE_ARG = "--prune";
+    private static final String SNAPSHOT_ALL_ARG = "--snapshot-all";
+    private static final String RETENTION_ARG = "--retention";
+    private static final String PLACE_ARG = "--place=";
+
+    // Resource name under which the duration of every phase is recorded
+    private static final String PHASE = "Phase";
+
+    // Subscription of scopes without a subscription id, from the environment or the simulator
+    private static String defaultSubscriptionId;
+
     /**
      * Sample console application that executes CRUD management operations on Azure NetApp Files resources
-     * @param args
+     * @param args Optional arguments:
+     *             --execution-mode=platform|virtual  Overrides execution.mode from appsettings.json
+     *             --simulator                        Runs against a local Resource Provider simulator instead of Azure
+     *             --stream-config                    Creates resources while appsettings.json is being read, for very
+     *                                                large files. Only the creation phase is executed.
+     *             --plan                             Prints the changes needed to match appsettings.json, nothing else is executed
+     *             --apply                            Applies those changes instead of running the sample phases
+     *             --prune                            With --plan or --apply, also deletes resources missing from appsettings.json
+     *             --snapshot-all                     Snapshots every volume at once instead of only the first one
+     *             --retention                        Runs the snapshot retention scheduler instead of the sample phases,
+     *                                                until the process is stopped unless execution.retention.intervalMinutes is 0
+     *             --place=volumes.json               Plans the capacity pools of a flat list of volumes and writes them as an
+     *                                                appsettings.json accounts tree, nothing else is executed
      */
     public static void main( String[] args )
     {
@@ -25,7 +81,7 @@ public class main
 
         try
         {
-            runAsync();
+            runAsync(args);
             Utils.writeConsoleMessage("Sample application successfully completed execution");
         }
         catch (Exception e)
@@ -33,37 +89,371 @@ public class main
             Utils.writeErrorMessage(e.getMessage());
         }
 
+        Utils.flushConsole();
+
         // Note: this should not be here in a proper environment. I leave it here for a more compact sample that does what it needs to do and exits as soon as it finishes without waiting for other threads
         System.exit(0);
     }
 
-    private static void runAsync()
+    /**
+     * Runs every phase of the sample one after the other. Within a phase, per-resource operations are executed
+     * concurrently on the threads selected by the execution mode.
+     * @param args Command line arguments
+     */
+    private static void runAsync(String[] args)
     {
-        // Getting project configuration
-        ProjectConfiguration config = Utils.getConfiguration("appsettings.json");
-        if (config == null)
+        String executionMode = null;
+        boolean useSimulator = false;
+        boolean streamConfig = false;
+        boolean plan = false;
+        boolean apply = false;
+        boolean prune = false;
+        boolean snapshotAll = false;
+        boolean retention = false;
+        String placement = null;
+        for (String arg : args)
+        {
+            if (arg.startsWith(EXECUTION_MODE_ARG))
+            {
+                executionMode = arg.substring(EXECUTION_MODE_ARG.length());
+            }
+            else if (arg.equals(SIMULATOR_ARG))
+            {
+                useSimulator = true;
+            }
+            else if (arg.equals(STREAM_CONFIG_ARG))
+            {
+                streamConfig = true;
+            }
+            else if (arg.equals(PLAN_ARG))
+            {
+                plan = true;
+            }
+            else if (arg.equals(APPLY_ARG))
+            {
+                apply = true;
+            }
+            else if (arg.equals(PRUNE_ARG))
+            {
+                prune = true;
+            }
+            else if (arg.equals(SNAPSHOT_ALL_ARG))
+            {
+                snapshotAll = true;
+            }
+            else if (arg.equals(RETENTION_ARG))
+            {
+                retention = true;
+            }
+            else if (arg.startsWith(PLACE_ARG))
+            {
+                placement = arg.substring(PLACE_ARG.length());
+            }
+        }
+
+        // Planning capacity pools needs neither appsettings.json nor Azure
+        if (placement != null)
+        {
+            PoolPlanner.planFile(placement);
             return;
+        }
 
-        // Instantiating a new ANF management client
-        AzureProfile profile = new AzureProfile(AzureEnvironment.AZURE);
-        TokenCredential credential = new DefaultAzureCredentialBuilder()
-                .authorityHost(profile.getEnvironment().getActiveDirectoryEndpoint())
-                .build();
-        Utils.writeConsoleMessage("Instantiating a new Azure NetApp Files management client...");
-        NetAppFilesManager manager = NetAppFilesManager
-                .authenticate(credential, profile);
+        // Acquiring the first ARM token while appsettings.json is read, so that no request waits for Azure Active Directory
+        AzureProfile defaultProfile = null;
+        TokenCredential azureCredential = null;
+        if (!useSimulator)
+        {
+            // The tenant and the default subscription are read from AZURE_TENANT_ID and AZURE_SUBSCRIPTION_ID
+            defaultProfile = new AzureProfile(AzureEnvironment.AZURE);
+            azureCredential = PrefetchingCredential.start(defaultProfile);
+        }
+
+        // Getting project configuration, when streaming only the sections preceding accounts are read at this point
+        ConfigurationStream stream = null;
+        ProjectConfiguration config;
+        if (streamConfig)
+        {
+            stream = ConfigurationStream.open("appsettings.json");
+            if (stream == null)
+                return;
+            try
+            {
+                ConfigurationStream.requireServiceLevels("appsettings.json");
+            }
+            catch (JsonParseException e)
+            {
+                Utils.writeErrorMessage(e.getMessage());
+                stream.close();
+                return;
+            }
+            config = stream.readHeader();
+        }
+        else
+        {
+            config = Utils.getConfiguration("appsettings.json");
+            if (config == null)
+                return;
+        }
+
+        // Command line arguments take precedence over appsettings.json
+        if (executionMode != null)
+        {
+            config.getExecutionSettings().setMode(executionMode);
+        }
+        if (snapshotAll)
+        {
+            config.getExecutionSettings().getSnapshots().setFanOut(true);
+        }
+        AsyncLogger.configure(config.getExecutionSettings().getLogging());
+        Utils.writeConsoleMessage("Execution mode: " + ExecutionMode.fromString(config.getExecutionSettings().getMode()));
+        CommonSdk.setCacheTtl(Duration.ofSeconds(config.getExecutionSettings().getCacheTtlSeconds()));
+
+        // Tracing the rest of the run, phases and resource operations are recorded as children of the run span
+        Tracing.init(config.getExecutionSettings().getTracing());
+        Span runSpan = Tracing.start("Sample run", Attributes.empty());
+        Scope runScope = runSpan.makeCurrent();
+
+        // Journaling long-running operations, resuming those left by an interrupted run
+        OperationJournal.open(config.getExecutionSettings().getJournal());
+        boolean succeeded = false;
+
+        // Instantiating one ANF management client per subscription, optionally served by a local simulator
+        AnfSimulator simulator = null;
+        try
+        {
+            TokenCredential credential;
+            Function<String, AzureProfile> profiles;
+            if (useSimulator)
+            {
+                Utils.writeConsoleMessage("Starting local Azure NetApp Files Resource Provider simulator...");
+                simulator = AnfSimulator.start(config.getSimulatorSettings());
+                Utils.writeConsoleMessage("Simulator listening on " + simulator.getEndpoint());
+                credential = simulator.credential();
+                profiles = simulator::profile;
+                defaultSubscriptionId = AnfSimulator.SUBSCRIPTION_ID;
+            }
+            else
+            {
+                String tenantId = defaultProfile.getTenantId();
+                credential = azureCredential;
+                profiles = subscriptionId -> new AzureProfile(tenantId, subscriptionId, AzureEnvironment.AZURE);
+                defaultSubscriptionId = defaultProfile.getSubscriptionId();
+            }
+
+            List<ModelScope> scopes = config.resolveScopes();
+            if (stream == null)
+            {
+                // Turning capacity and throughput targets into quotas, throughputs, pool sizes and service levels
+                for (ModelScope scope : scopes)
+                {
+                    VolumeSizing.apply(scope.getAccounts());
+                }
+            }
+            Map<String, NetAppFilesManager> managers = createManagers(scopes, simulator, credential, profiles, config.getExecutionSettings());
+            Map<String, NetAppManagementClient> anfClients = new LinkedHashMap<>();
+            managers.forEach((subscriptionId, manager) -> anfClients.put(subscriptionId, manager.serviceClient()));
+            OperationJournal.current().resume(anfClients, config.getExecutionSettings());
+
+            if (stream != null)
+            {
+                // Snapshots, Updates and Cleanup work on the whole resource tree, which is never held in memory when streaming
+                runStreamingPhase(config, stream, managers.get(scopes.get(0).getSubscriptionId()));
+            }
+            else if (scopes.size() == 1)
+            {
+                runScope(config.forScope(scopes.get(0), null), managers.get(scopes.get(0).getSubscriptionId()), plan, apply, prune, retention);
+            }
+            else
+            {
+                runScopes(config, scopes, managers, plan, apply, prune, retention);
+            }
+            succeeded = true;
+        }
+        catch (RuntimeException e)
+        {
+            runSpan.recordException(e);
+            runSpan.setStatus(StatusCode.ERROR, String.valueOf(e.getMessage()));
+            throw e;
+        }
+        finally
+        {
+            OperationJournal.finish(succeeded);
+            OperationMetrics.writeSummary();
+            ArmThrottlingPolicy throttlingPolicy = AnfClientFactory.getThrottlingPolicy();
+            if (throttlingPolicy != null)
+            {
+                throttlingPolicy.writeSummary();
+            }
+            if (stream != null)
+            {
+                stream.close();
+            }
+            if (simulator != null)
+            {
+                simulator.close();
+            }
+
+            runScope.close();
+            runSpan.end();
+            Tracing.shutdown();
+        }
+    }
+
+    /**
+     * Creates one manager per subscription of the scopes. Managers share the credential, the HTTP client and the
+     * throttling policy, which keeps a separate request budget for every subscription.
+     * @param scopes Scopes to provision, a scope without subscription id gets the default subscription
+     * @param simulator Local simulator serving every request, null to target Azure
+     * @param credential Credential shared by every manager
+     * @param profiles Azure profile of a subscription
+     * @param settings Execution settings
+     * @return Managers keyed by subscription id
+     */
+    private static Map<String, NetAppFilesManager> createManagers(List<ModelScope> scopes, AnfSimulator simulator, TokenCredential credential,
+                                                                  Function<String, AzureProfile> profiles, ModelExecutionSettings settings)
+    {
+        Map<String, NetAppFilesManager> managers = new LinkedHashMap<>();
+        for (ModelScope scope : scopes)
+        {
+            if (!isSet(scope.getSubscriptionId()))
+            {
+                scope.setSubscriptionId(defaultSubscriptionId);
+            }
+
+            managers.computeIfAbsent(scope.getSubscriptionId(), subscriptionId -> {
+                Utils.writeConsoleMessage("Instantiating a new Azure NetApp Files management client for subscription " + subscriptionId + "...");
+                AzureProfile profile = profiles.apply(subscriptionId);
+                return simulator != null
+                        ? AnfClientFactory.configure(simulator.configure(AnfClientFactory.getHttpClient(settings, false)), settings).authenticate(credential, profile)
+                        : AnfClientFactory.authenticate(credential, profile, settings);
+            });
+        }
+
+        return managers;
+    }
 
+    /**
+     * Checks whether a subscription id was given, appsettings.json ships with a placeholder
+     */
+    private static boolean isSet(String subscriptionId)
+    {
+        return subscriptionId != null && !subscriptionId.isBlank() && !subscriptionId.startsWith("<");
+    }
+
+    /**
+     * Runs every scope in parallel, each with the manager of its subscription and its own workers. A failed scope does
+     * not stop the others.
+     * @param config Project Configuration
+     * @param scopes Scopes to provision, with their subscription id resolved
+     * @param managers Managers keyed by subscription id
+     */
+    private static void runScopes(ProjectConfiguration config, List<ModelScope> scopes, Map<String, NetAppFilesManager> managers,
+                                  boolean plan, boolean apply, boolean prune, boolean retention)
+    {
+        Utils.writeConsoleMessage("Running " + scopes.size() + " scope(s) across " + managers.size() + " subscription(s) in parallel...");
+        AtomicInteger failed = new AtomicInteger();
+
+        // Scopes block their thread for their whole run, the engine gets one thread per scope
+        try (ProvisioningEngine engine = new ProvisioningEngine(scopes.size()))
+        {
+            for (ModelScope scope : scopes)
+            {
+                String label = scope.getSubscriptionId() + "-" + scope.getResourceGroup();
+                engine.submit(() -> {
+                    try
+                    {
+                        OperationMetrics.run("Scope", label, () -> runScope(config.forScope(scope, label), managers.get(scope.getSubscriptionId()), plan, apply, prune, retention));
+                        Utils.writeSuccessMessage("Scope " + label + " completed");
+                    }
+                    catch (RuntimeException e)
+                    {
+                        failed.incrementAndGet();
+                        Utils.writeErrorMessage("Scope " + label + " failed.\nError message: " + e.getMessage());
+                    }
+                });
+            }
+
+            engine.awaitCompletion();
+        }
+
+        if (failed.get() > 0)
+        {
+            throw new IllegalStateException(failed.get() + " of " + scopes.size() + " scope(s) failed");
+        }
+    }
+
+    /**
+     * Runs the phases selected on the command line for a single scope
+     * @param config Project Configuration of the scope
+     * @param manager Azure NetApp Files manager of the scope's subscription
+     */
+    private static void runScope(ProjectConfiguration config, NetAppFilesManager manager, boolean plan, boolean apply, boolean prune, boolean retention)
+    {
+        if (plan || apply)
+        {
+            runReconciliationPhase(config, manager, apply, prune);
+        }
+        else if (retention)
+        {
+            runRetentionPhase(config, manager);
+        }
+        else
+        {
+            runPhases(config, manager);
+        }
+    }
+
+    /**
+     * Runs the Creation phase while appsettings.json is being read
+     * @param config Project Configuration, without accounts
+     * @param stream Configuration stream positioned at the accounts array
+     * @param manager Azure NetApp Files manager
+     */
+    private static void runStreamingPhase(ProjectConfiguration config, ConfigurationStream stream, NetAppFilesManager manager)
+    {
+        OperationMetrics.run(PHASE, "Creation", () -> Creation.runStreamingCreationSample(config, stream, manager.serviceClient()));
+    }
+
+    /**
+     * Runs the Reconciliation phase, printing and optionally applying the changes needed to match appsettings.json
+     * @param config Project Configuration
+     * @param manager Azure NetApp Files manager
+     * @param apply False to only print the plan
+     * @param prune True to delete resources missing from appsettings.json
+     */
+    private static void runReconciliationPhase(ProjectConfiguration config, NetAppFilesManager manager, boolean apply, boolean prune)
+    {
+        OperationMetrics.run(PHASE, "Reconciliation", () -> Reconciliation.runReconciliationSample(config, manager.serviceClient(), apply, prune));
+    }
+
+    /**
+     * Runs the snapshot retention scheduler
+     * @param config Project Configuration
+     * @param manager Azure NetApp Files manager
+     */
+    private static void runRetentionPhase(ProjectConfiguration config, NetAppFilesManager manager)
+    {
+        OperationMetrics.run(PHASE, "Retention", () -> Retention.runRetentionSample(config, manager.serviceClient()));
+    }
+
+    /**
+     * Runs Creation, Snapshots, Updates and Cleanup phases
+     * @param config Project Configuration
+     * @param manager Azure NetApp Files manager
+     */
+    private static void runPhases(ProjectConfiguration config, NetAppFilesManager manager)
+    {
         // Creating ANF resources (Account, Pool, Volumes)
-        Creation.runCreationSample(config, manager.serviceClient());
+        OperationMetrics.run(PHASE, "Creation", () -> Creation.runCreationSample(config, manager.serviceClient()));
 
         // Creating and restoring snapshots
-        Snapshots.runSnapshotOperationsSample(config, manager.serviceClient());
+        OperationMetrics.run(PHASE, "Snapshots", () -> Snapshots.runSnapshotOperationsSample(config, manager.serviceClient()));
 
         // Performing updates on Capacity Pools and Volumes
-        Updates.runUpdateOperationsSample(config, manager.serviceClient());
+        OperationMetrics.run(PHASE, "Updates", () -> Updates.runUpdateOperationsSample(config, manager.serviceClient()));
 
         // WARNING: Destructive operations at this point. You can uncomment relevant lines to clean up all resources created in this example.
         // Deletion operations (snapshots, volumes, capacity pools and accounts)
-        Cleanup.runCleanupTasksSample(config, manager.serviceClient());
+        OperationMetrics.run(PHASE, "Cleanup", () -> Cleanup.runCleanupTasksSample(config, manager.serviceClient()));
     }
 }
@@ -24,10 +24,18 @@ public class ModelCapacityPool
 
     /*
       Service Level.
-      The service level of the file system. Possible values include: 'Standard', 'Premium','Ultra'
+      The service level of the file system. Possible values include: 'Standard', 'Premium','Ultra' and 'Auto' for the
+      cheapest one meeting the capacity and throughput targets of its volumes
      */
     private String serviceLevel;
 
+    /*
+      QoS type.
+      'Auto' (default) gives every volume throughput in proportion to its quota, 'Manual' allocates the throughput of
+      the pool explicitly to its volumes, from their throughputMibps
+     */
+    private String qosType;
+
 
     public List<ModelVolume> getVolumes() {
         return volumes;
@@ -60,4 +68,12 @@ public class ModelCapacityPool
     public void setServiceLevel(String serviceLevel) {
         this.serviceLevel = serviceLevel;
     }
+
+    public String getQosType() {
+        return qosType;
+    }
+
+    public void setQosType(String qosType) {
+        this.qosType = qosType;
+    }
 }
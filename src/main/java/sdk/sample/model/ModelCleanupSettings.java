@@ -0,0 +1,58 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.model;
+
+// Instantiates a ModelCleanupSettings object
+public class ModelCleanupSettings
+{
+    // Maximum number of snapshot deletions in progress at the same time
+    private int snapshots = 8;
+
+    /*
+      Maximum number of volume deletions in progress at the same time.
+      Volumes of the same capacity pool are always deleted one after the other
+     */
+    private int volumes = 4;
+
+    // Maximum number of capacity pool deletions in progress at the same time
+    private int capacityPools = 4;
+
+    // Maximum number of account deletions in progress at the same time
+    private int accounts = 2;
+
+
+    public int getSnapshots() {
+        return snapshots;
+    }
+
+    public void setSnapshots(int snapshots) {
+        this.snapshots = snapshots;
+    }
+
+    public int getVolumes() {
+        return volumes;
+    }
+
+    public void setVolumes(int volumes) {
+        this.volumes = volumes;
+    }
+
+    public int getCapacityPools() {
+        return capacityPools;
+    }
+
+    public void setCapacityPools(int capacityPools) {
+        this.capacityPools = capacityPools;
+    }
+
+    public int getAccounts() {
+        return accounts;
+    }
+
+    public void setAccounts(int accounts) {
+        this.accounts = accounts;
+    }
+}
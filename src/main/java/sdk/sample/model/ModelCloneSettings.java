@@ -0,0 +1,52 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.model;
+
+import java.util.List;
+
+// Instantiates a ModelCloneSettings object
+public class ModelCloneSettings
+{
+    // Number of volumes created from the snapshot
+    private int count = 1;
+
+    /*
+      Name of every clone, also used as its creation token. {volume}, {snapshot} and {index} (starting at 1) are
+      replaced, "-{index}" is appended when more than one clone is created and the template has no {index}
+     */
+    private String nameTemplate = "Vol-{snapshot}";
+
+    /*
+      Capacity pools of the snapshot's account the clones are spread over, in turn. Clones of the same pool are created
+      one after the other, pools are served concurrently. Defaults to the pool of the snapshot's volume
+     */
+    private List<String> capacityPools;
+
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+
+    public String getNameTemplate() {
+        return nameTemplate;
+    }
+
+    public void setNameTemplate(String nameTemplate) {
+        this.nameTemplate = nameTemplate;
+    }
+
+    public List<String> getCapacityPools() {
+        return capacityPools;
+    }
+
+    public void setCapacityPools(List<String> capacityPools) {
+        this.capacityPools = capacityPools;
+    }
+}
@@ -0,0 +1,152 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.model;
+
+// Instantiates a ModelExecutionSettings object
+public class ModelExecutionSettings
+{
+    /*
+      Maximum parallelism.
+      Number of worker threads used to provision independent resources (different accounts and capacity pools) concurrently
+     */
+    private int maxParallelism = 4;
+
+    /*
+      Execution mode.
+      Kind of threads used for per-resource operations. Possible values include: 'platform', 'virtual'
+     */
+    private String mode = "platform";
+
+    // Concurrency limits applied to each level of the resource hierarchy during cleanup
+    private ModelCleanupSettings cleanup = new ModelCleanupSettings();
+
+    /*
+      Cache time to live.
+      Time in seconds a resource looked up, created or updated by the sample is served from memory instead of ARM. 0 disables caching
+     */
+    private int cacheTtlSeconds = 60;
+
+    // Request rates per subscription the ARM requests of the sample are paced to
+    private ModelThrottlingSettings throttling = new ModelThrottlingSettings();
+
+    // Span tree exported to a local file for offline analysis of a run
+    private ModelTracingSettings tracing = new ModelTracingSettings();
+
+    // Format of the console messages written by the sample
+    private ModelLoggingSettings logging = new ModelLoggingSettings();
+
+    // Journal of submitted operations, used to resume a run interrupted by a crash
+    private ModelJournalSettings journal = new ModelJournalSettings();
+
+    // Snapshot operations: single snapshot or snapshot set of every volume
+    private ModelSnapshotSettings snapshots = new ModelSnapshotSettings();
+
+    // Volumes created from the snapshot of the Snapshots phase
+    private ModelCloneSettings clones = new ModelCloneSettings();
+
+    // Snapshot retention scheduler, run with --retention
+    private ModelRetentionSettings retention = new ModelRetentionSettings();
+
+    // Shared HTTP connection pool of the management clients
+    private ModelHttpSettings http = new ModelHttpSettings();
+
+
+    public int getMaxParallelism() {
+        return maxParallelism;
+    }
+
+    public void setMaxParallelism(int maxParallelism) {
+        this.maxParallelism = maxParallelism;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
+    public ModelCleanupSettings getCleanup() {
+        return cleanup;
+    }
+
+    public void setCleanup(ModelCleanupSettings cleanup) {
+        this.cleanup = cleanup;
+    }
+
+    public int getCacheTtlSeconds() {
+        return cacheTtlSeconds;
+    }
+
+    public void setCacheTtlSeconds(int cacheTtlSeconds) {
+        this.cacheTtlSeconds = cacheTtlSeconds;
+    }
+
+    public ModelThrottlingSettings getThrottling() {
+        return throttling;
+    }
+
+    public void setThrottling(ModelThrottlingSettings throttling) {
+        this.throttling = throttling;
+    }
+
+    public ModelTracingSettings getTracing() {
+        return tracing;
+    }
+
+    public void setTracing(ModelTracingSettings tracing) {
+        this.tracing = tracing;
+    }
+
+    public ModelLoggingSettings getLogging() {
+        return logging;
+    }
+
+    public void setLogging(ModelLoggingSettings logging) {
+        this.logging = logging;
+    }
+
+    public ModelJournalSettings getJournal() {
+        return journal;
+    }
+
+    public void setJournal(ModelJournalSettings journal) {
+        this.journal = journal;
+    }
+
+    public ModelSnapshotSettings getSnapshots() {
+        return snapshots;
+    }
+
+    public void setSnapshots(ModelSnapshotSettings snapshots) {
+        this.snapshots = snapshots;
+    }
+
+    public ModelCloneSettings getClones() {
+        return clones;
+    }
+
+    public void setClones(ModelCloneSettings clones) {
+        this.clones = clones;
+    }
+
+    public ModelRetentionSettings getRetention() {
+        return retention;
+    }
+
+    public void setRetention(ModelRetentionSettings retention) {
+        this.retention = retention;
+    }
+
+    public ModelHttpSettings getHttp() {
+        return http;
+    }
+
+    public void setHttp(ModelHttpSettings http) {
+        this.http = http;
+    }
+}
@@ -0,0 +1,100 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.model;
+
+// Instantiates a ModelHttpSettings object
+public class ModelHttpSettings
+{
+    // Maximum number of connections of the shared pool, 0 sizes the pool to twice maxParallelism
+    private int maxConnections = 0;
+
+    // Seconds an idle connection is kept in the pool before being closed
+    private int maxIdleTimeSeconds = 60;
+
+    // Seconds after which a connection is closed once released, so that requests follow DNS changes of ARM endpoints
+    private int maxLifeTimeSeconds = 300;
+
+    // Seconds a request waits for a free connection when all of them are in use
+    private int pendingAcquireTimeoutSeconds = 60;
+
+    // Keeps connections open between requests, with TCP keep-alive probes
+    private boolean keepAlive = true;
+
+    // Negotiates HTTP/2 through TLS ALPN, falling back to HTTP/1.1 when the endpoint does not offer it. Ignored with the
+    // simulator, whose endpoint is plain http
+    private boolean http2 = false;
+
+    // Number of event loop threads performing network I/O, 0 keeps the Netty default of one per core
+    private int ioThreads = 0;
+
+    // Milliseconds allowed to establish a connection
+    private int connectTimeoutMs = 10000;
+
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public int getMaxIdleTimeSeconds() {
+        return maxIdleTimeSeconds;
+    }
+
+    public void setMaxIdleTimeSeconds(int maxIdleTimeSeconds) {
+        this.maxIdleTimeSeconds = maxIdleTimeSeconds;
+    }
+
+    public int getMaxLifeTimeSeconds() {
+        return maxLifeTimeSeconds;
+    }
+
+    public void setMaxLifeTimeSeconds(int maxLifeTimeSeconds) {
+        this.maxLifeTimeSeconds = maxLifeTimeSeconds;
+    }
+
+    public int getPendingAcquireTimeoutSeconds() {
+        return pendingAcquireTimeoutSeconds;
+    }
+
+    public void setPendingAcquireTimeoutSeconds(int pendingAcquireTimeoutSeconds) {
+        this.pendingAcquireTimeoutSeconds = pendingAcquireTimeoutSeconds;
+    }
+
+    public boolean isKeepAlive() {
+        return keepAlive;
+    }
+
+    public void setKeepAlive(boolean keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    public boolean isHttp2() {
+        return http2;
+    }
+
+    public void setHttp2(boolean http2) {
+        this.http2 = http2;
+    }
+
+    public int getIoThreads() {
+        return ioThreads;
+    }
+
+    public void setIoThreads(int ioThreads) {
+        this.ioThreads = ioThreads;
+    }
+
+    public int getConnectTimeoutMs() {
+        return connectTimeoutMs;
+    }
+
+    public void setConnectTimeoutMs(int connectTimeoutMs) {
+        this.connectTimeoutMs = connectTimeoutMs;
+    }
+}
@@ -0,0 +1,47 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.model;
+
+// Instantiates a ModelJournalSettings object
+public class ModelJournalSettings
+{
+    // Records submitted operations so that a run interrupted by a crash resumes where it stopped
+    private boolean enabled = true;
+
+    // Append-only journal file, deleted once a run completes successfully
+    private String file = "operations.journal";
+
+    /*
+      Time in milliseconds records are buffered before being written and synced to disk together.
+      Records of the last interval may be lost in a crash, the affected operations are then checked again
+     */
+    private long fsyncIntervalMs = 100;
+
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public void setFile(String file) {
+        this.file = file;
+    }
+
+    public long getFsyncIntervalMs() {
+        return fsyncIntervalMs;
+    }
+
+    public void setFsyncIntervalMs(long fsyncIntervalMs) {
+        this.fsyncIntervalMs = fsyncIntervalMs;
+    }
+}
@@ -0,0 +1,39 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.model;
+
+// Instantiates a ModelLoggingSettings object
+public class ModelLoggingSettings
+{
+    /*
+      Output format of console messages.
+      Possible values include: 'text' (time followed by the message), 'json' (one JSON object per line)
+     */
+    private String format = "text";
+
+    /*
+      Coloring of text messages.
+      Possible values include: 'auto' (only when the output is a terminal), 'always', 'never'
+     */
+    private String color = "auto";
+
+
+    public String getFormat() {
+        return format;
+    }
+
+    public void setFormat(String format) {
+        this.format = format;
+    }
+
+    public String getColor() {
+        return color;
+    }
+
+    public void setColor(String color) {
+        this.color = color;
+    }
+}
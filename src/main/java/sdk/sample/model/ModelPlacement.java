@@ -0,0 +1,130 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.model;
+
+import java.util.List;
+import java.util.Map;
+
+// Instantiates a ModelPlacement object, the input of the capacity pool planner (--place)
+public class ModelPlacement
+{
+    // General section copied as is to the planned appsettings.json
+    private Map<String, String> general;
+
+    // Account the capacity pools are planned in, only its name and location are used
+    private ModelNetAppAccount account;
+
+    // Flat list of volumes to place, each with its usageThreshold, serviceLevel and throughputMibps
+    private List<ModelVolume> volumes;
+
+    // Service level of volumes without one, 'Auto' for the cheapest one meeting each volume's targets
+    private String defaultServiceLevel = "Auto";
+
+    /*
+      QoS type of the planned capacity pools. With 'Manual' volumes keep their capacity and get their throughput
+      explicitly, so that volumes needing much capacity and volumes needing much throughput share the same pools
+     */
+    private String qosType = "Auto";
+
+    // Capacity pools are named {poolNamePrefix}-{service level}-{n}
+    private String poolNamePrefix = "pool";
+
+    // Largest capacity pool the planner creates, in TiB
+    private int maxPoolSizeTiB = 2048;
+
+    // Largest number of volumes placed in a capacity pool
+    private int maxVolumesPerPool = 500;
+
+    /*
+      Bin-packing heuristic: 'bestFit' places every volume in the fullest pool it fits in, 'firstFit' in the first pool
+      it fits in. Both place the largest volumes first
+     */
+    private String heuristic = "bestFit";
+
+    // File the planned appsettings.json is written to
+    private String output = "appsettings.planned.json";
+
+
+    public Map<String, String> getGeneral() {
+        return general;
+    }
+
+    public void setGeneral(Map<String, String> general) {
+        this.general = general;
+    }
+
+    public ModelNetAppAccount getAccount() {
+        return account;
+    }
+
+    public void setAccount(ModelNetAppAccount account) {
+        this.account = account;
+    }
+
+    public List<ModelVolume> getVolumes() {
+        return volumes;
+    }
+
+    public void setVolumes(List<ModelVolume> volumes) {
+        this.volumes = volumes;
+    }
+
+    public String getDefaultServiceLevel() {
+        return defaultServiceLevel;
+    }
+
+    public void setDefaultServiceLevel(String defaultServiceLevel) {
+        this.defaultServiceLevel = defaultServiceLevel;
+    }
+
+    public String getPoolNamePrefix() {
+        return poolNamePrefix;
+    }
+
+    public void setPoolNamePrefix(String poolNamePrefix) {
+        this.poolNamePrefix = poolNamePrefix;
+    }
+
+    public int getMaxPoolSizeTiB() {
+        return maxPoolSizeTiB;
+    }
+
+    public void setMaxPoolSizeTiB(int maxPoolSizeTiB) {
+        this.maxPoolSizeTiB = maxPoolSizeTiB;
+    }
+
+    public int getMaxVolumesPerPool() {
+        return maxVolumesPerPool;
+    }
+
+    public void setMaxVolumesPerPool(int maxVolumesPerPool) {
+        this.maxVolumesPerPool = maxVolumesPerPool;
+    }
+
+    public String getHeuristic() {
+        return heuristic;
+    }
+
+    public void setHeuristic(String heuristic) {
+        this.heuristic = heuristic;
+    }
+
+    public String getOutput() {
+        return output;
+    }
+
+    public void setOutput(String output) {
+        this.output = output;
+    }
+
+    public String getQosType() {
+        return qosType;
+    }
+
+    public void setQosType(String qosType) {
+        this.qosType = qosType;
+    }
+}
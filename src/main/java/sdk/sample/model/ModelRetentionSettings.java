@@ -0,0 +1,80 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.model;
+
+// Instantiates a ModelRetentionSettings object
+public class ModelRetentionSettings
+{
+    // Number of most recent hours for which the newest snapshot of a volume is kept
+    private int hourly = 24;
+
+    // Number of most recent days for which the newest snapshot of a volume is kept
+    private int daily = 7;
+
+    /*
+      Only snapshots whose name starts with this prefix are pruned, and snapshots taken by the scheduler are named after it.
+      An empty prefix prunes every snapshot of the resource group
+     */
+    private String namePrefix = "retention-";
+
+    // Takes a snapshot of every volume of appsettings.json at the start of every cycle
+    private boolean takeSnapshots = true;
+
+    // Minutes between the start of two cycles, 0 or less runs a single cycle
+    private int intervalMinutes = 60;
+
+    // Maximum number of snapshot deletions in progress at the same time
+    private int maxConcurrentDeletes = 16;
+
+
+    public int getHourly() {
+        return hourly;
+    }
+
+    public void setHourly(int hourly) {
+        this.hourly = hourly;
+    }
+
+    public int getDaily() {
+        return daily;
+    }
+
+    public void setDaily(int daily) {
+        this.daily = daily;
+    }
+
+    public String getNamePrefix() {
+        return namePrefix;
+    }
+
+    public void setNamePrefix(String namePrefix) {
+        this.namePrefix = namePrefix;
+    }
+
+    public boolean isTakeSnapshots() {
+        return takeSnapshots;
+    }
+
+    public void setTakeSnapshots(boolean takeSnapshots) {
+        this.takeSnapshots = takeSnapshots;
+    }
+
+    public int getIntervalMinutes() {
+        return intervalMinutes;
+    }
+
+    public void setIntervalMinutes(int intervalMinutes) {
+        this.intervalMinutes = intervalMinutes;
+    }
+
+    public int getMaxConcurrentDeletes() {
+        return maxConcurrentDeletes;
+    }
+
+    public void setMaxConcurrentDeletes(int maxConcurrentDeletes) {
+        this.maxConcurrentDeletes = maxConcurrentDeletes;
+    }
+}
@@ -0,0 +1,46 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.model;
+
+import java.util.List;
+
+// Instantiates a ModelScope object
+public class ModelScope
+{
+    // Subscription Id where account(s) of the scope will be deployed
+    private String subscriptionId;
+
+    // Resource group where account(s) of the scope will be created
+    private String resourceGroup;
+
+    // List of Accounts to be created in the scope
+    private List<ModelNetAppAccount> accounts;
+
+
+    public String getSubscriptionId() {
+        return subscriptionId;
+    }
+
+    public void setSubscriptionId(String subscriptionId) {
+        this.subscriptionId = subscriptionId;
+    }
+
+    public String getResourceGroup() {
+        return resourceGroup;
+    }
+
+    public void setResourceGroup(String resourceGroup) {
+        this.resourceGroup = resourceGroup;
+    }
+
+    public List<ModelNetAppAccount> getAccounts() {
+        return accounts;
+    }
+
+    public void setAccounts(List<ModelNetAppAccount> accounts) {
+        this.accounts = accounts;
+    }
+}
@@ -0,0 +1,102 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.model;
+
+// Instantiates a ModelSimulatorSettings object
+public class ModelSimulatorSettings
+{
+    // Local port the simulator listens on, 0 picks any free port
+    private int port = 0;
+
+    // Time in milliseconds added to every request before it is answered
+    private long requestLatencyMs = 50;
+
+    /*
+      Time in milliseconds a long-running operation (create, update, delete) stays in progress.
+      0 completes operations within the request, without Azure-AsyncOperation polling
+     */
+    private long operationDurationMs = 2000;
+
+    // Value of the Retry-After header returned with long-running operations, drives the SDK polling interval
+    private int retryAfterSeconds = 1;
+
+    // Probability, between 0 and 1, of answering a request with a 500 Internal Server Error
+    private double errorRate = 0.0;
+
+    // Probability, between 0 and 1, of a long-running operation ending with status Failed
+    private double operationFailureRate = 0.0;
+
+    // Read requests allowed per minute before answering 429 Too Many Requests, 0 for no limit
+    private int readsPerMinute = 0;
+
+    // Write requests allowed per minute before answering 429 Too Many Requests, 0 for no limit
+    private int writesPerMinute = 0;
+
+
+    public int getPort() {
+        return port;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public long getRequestLatencyMs() {
+        return requestLatencyMs;
+    }
+
+    public void setRequestLatencyMs(long requestLatencyMs) {
+        this.requestLatencyMs = requestLatencyMs;
+    }
+
+    public long getOperationDurationMs() {
+        return operationDurationMs;
+    }
+
+    public void setOperationDurationMs(long operationDurationMs) {
+        this.operationDurationMs = operationDurationMs;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public void setRetryAfterSeconds(int retryAfterSeconds) {
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    public double getOperationFailureRate() {
+        return operationFailureRate;
+    }
+
+    public void setOperationFailureRate(double operationFailureRate) {
+        this.operationFailureRate = operationFailureRate;
+    }
+
+    public int getReadsPerMinute() {
+        return readsPerMinute;
+    }
+
+    public void setReadsPerMinute(int readsPerMinute) {
+        this.readsPerMinute = readsPerMinute;
+    }
+
+    public int getWritesPerMinute() {
+        return writesPerMinute;
+    }
+
+    public void setWritesPerMinute(int writesPerMinute) {
+        this.writesPerMinute = writesPerMinute;
+    }
+}
@@ -0,0 +1,47 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.model;
+
+// Instantiates a ModelSnapshotSettings object
+public class ModelSnapshotSettings
+{
+    /*
+      Snapshots every volume of appsettings.json at once instead of only the first one, producing a snapshot set
+      whose members share the same name. Also enabled by the --snapshot-all command line argument
+     */
+    private boolean fanOut = false;
+
+    // Maximum number of snapshot creations in progress at the same time in a single account, from request to completion
+    private int maxPerAccount = 8;
+
+    // File the manifest of the snapshot set is written to
+    private String manifest = "snapshot-set.json";
+
+
+    public boolean isFanOut() {
+        return fanOut;
+    }
+
+    public void setFanOut(boolean fanOut) {
+        this.fanOut = fanOut;
+    }
+
+    public int getMaxPerAccount() {
+        return maxPerAccount;
+    }
+
+    public void setMaxPerAccount(int maxPerAccount) {
+        this.maxPerAccount = maxPerAccount;
+    }
+
+    public String getManifest() {
+        return manifest;
+    }
+
+    public void setManifest(String manifest) {
+        this.manifest = manifest;
+    }
+}
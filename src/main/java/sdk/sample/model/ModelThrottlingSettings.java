@@ -0,0 +1,88 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.model;
+
+// Instantiates a ModelThrottlingSettings object
+public class ModelThrottlingSettings
+{
+    // Paces requests to stay within the ARM request limits of every subscription, false sends requests as soon as possible
+    private boolean enabled = true;
+
+    // Read (GET) requests that can be sent at once per subscription
+    private int readBurst = 250;
+
+    // Read (GET) requests per second sustained per subscription
+    private double readsPerSecond = 25;
+
+    // Write (PUT, PATCH, POST) requests that can be sent at once per subscription
+    private int writeBurst = 200;
+
+    // Write (PUT, PATCH, POST) requests per second sustained per subscription
+    private double writesPerSecond = 10;
+
+    // Delete requests that can be sent at once per subscription
+    private int deleteBurst = 200;
+
+    // Delete requests per second sustained per subscription
+    private double deletesPerSecond = 10;
+
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getReadBurst() {
+        return readBurst;
+    }
+
+    public void setReadBurst(int readBurst) {
+        this.readBurst = readBurst;
+    }
+
+    public double getReadsPerSecond() {
+        return readsPerSecond;
+    }
+
+    public void setReadsPerSecond(double readsPerSecond) {
+        this.readsPerSecond = readsPerSecond;
+    }
+
+    public int getWriteBurst() {
+        return writeBurst;
+    }
+
+    public void setWriteBurst(int writeBurst) {
+        this.writeBurst = writeBurst;
+    }
+
+    public double getWritesPerSecond() {
+        return writesPerSecond;
+    }
+
+    public void setWritesPerSecond(double writesPerSecond) {
+        this.writesPerSecond = writesPerSecond;
+    }
+
+    public int getDeleteBurst() {
+        return deleteBurst;
+    }
+
+    public void setDeleteBurst(int deleteBurst) {
+        this.deleteBurst = deleteBurst;
+    }
+
+    public double getDeletesPerSecond() {
+        return deletesPerSecond;
+    }
+
+    public void setDeletesPerSecond(double deletesPerSecond) {
+        this.deletesPerSecond = deletesPerSecond;
+    }
+}
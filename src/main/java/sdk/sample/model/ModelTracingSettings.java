@@ -0,0 +1,33 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.model;
+
+// Instantiates a ModelTracingSettings object
+public class ModelTracingSettings
+{
+    // Records a span tree of the run: phases, resource operations and deletion polls
+    private boolean enabled = true;
+
+    // File the spans are appended to, one OTLP/JSON trace export request per line
+    private String file = "traces.jsonl";
+
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public void setFile(String file) {
+        this.file = file;
+    }
+}
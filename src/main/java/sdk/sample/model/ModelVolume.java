@@ -35,6 +35,20 @@ public class ModelVolume
     // The Azure Resource URI for a delegated subnet. Must have the delegation Microsoft.NetApp/volumes
     private String subnetId;
 
+    /*
+      Service level of the capacity pool the volume is placed in by the pool planner (--place).
+      Possible values include: 'Standard', 'Premium','Ultra' and 'Auto' for the cheapest one meeting the volume's
+      capacity and throughput targets. Not used once the volume belongs to a capacity pool
+     */
+    private String serviceLevel;
+
+    /*
+      Throughput the volume must sustain, in MiB/s. 0 when the volume has no throughput requirement.
+      In a capacity pool with automatic QoS the usageThreshold is raised until the quota sustains it, in a pool with
+      manual QoS it is allocated to the volume explicitly
+     */
+    private double throughputMibps;
+
 
     public List<ModelExportPolicyRule> getExportPolicies() {
         return exportPolicies;
@@ -83,4 +97,20 @@ public class ModelVolume
     public void setSubnetId(String subnetId) {
         this.subnetId = subnetId;
     }
+
+    public String getServiceLevel() {
+        return serviceLevel;
+    }
+
+    public void setServiceLevel(String serviceLevel) {
+        this.serviceLevel = serviceLevel;
+    }
+
+    public double getThroughputMibps() {
+        return throughputMibps;
+    }
+
+    public void setThroughputMibps(double throughputMibps) {
+        this.throughputMibps = throughputMibps;
+    }
 }
@@ -0,0 +1,705 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.simulator;
+
+import com.azure.core.credential.AccessToken;
+import com.azure.core.credential.TokenCredential;
+import com.azure.core.http.HttpClient;
+import com.azure.core.management.AzureEnvironment;
+import com.azure.core.management.profile.AzureProfile;
+import com.azure.resourcemanager.netapp.NetAppFilesManager;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import reactor.core.publisher.Mono;
+import sdk.sample.model.ModelSimulatorSettings;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Local HTTP stand-in for the Microsoft.NetApp endpoints of Azure Resource Manager. It keeps accounts, capacity pools,
+// volumes and snapshots in memory and answers create, update and delete requests as long-running operations polled
+// through Azure-AsyncOperation, with configurable latency, error injection and throttling.
+public class AnfSimulator implements AutoCloseable
+{
+    public static final String SUBSCRIPTION_ID = "00000000-0000-0000-0000-000000000000";
+
+    private static final String TENANT_ID = "00000000-0000-0000-0000-000000000000";
+
+    // Host the SDK believes it is talking to, also used to build polling URLs
+    private static final String PUBLIC_ENDPOINT = "https://management.azure.com";
+
+    private static final String PROVIDER = "/providers/Microsoft.NetApp";
+
+    // Resource types, in hierarchy order
+    private static final String[] TYPE_SEGMENTS = {"netAppAccounts", "capacityPools", "volumes", "snapshots"};
+
+    private static final long TIB = 1024L * 1024L * 1024L * 1024L;
+
+    private final ModelSimulatorSettings settings;
+    private final HttpServer server;
+    private final ExecutorService requestExecutor;
+    private final ScheduledExecutorService operationScheduler;
+    private final RequestThrottle readThrottle;
+    private final RequestThrottle writeThrottle;
+
+    // Resources and asynchronous operations, keyed by lower case resource id
+    private final Map<String, JsonObject> resources = new ConcurrentHashMap<>();
+    private final Map<String, JsonObject> operations = new ConcurrentHashMap<>();
+
+    private AnfSimulator(ModelSimulatorSettings settings) throws IOException
+    {
+        this.settings = settings;
+        this.readThrottle = new RequestThrottle(settings.getReadsPerMinute());
+        this.writeThrottle = new RequestThrottle(settings.getWritesPerMinute());
+        this.requestExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        this.operationScheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("anf-simulator-operations").daemon(true).factory());
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), settings.getPort()), 0);
+        this.server.setExecutor(requestExecutor);
+        this.server.createContext("/", this::handle);
+    }
+
+    /**
+     * Starts a simulator listening on the loopback interface
+     * @param settings Latency, error injection and throttling settings, populated with data from appsettings.json
+     * @return Running simulator, to be closed once done
+     */
+    public static AnfSimulator start(ModelSimulatorSettings settings)
+    {
+        try
+        {
+            AnfSimulator simulator = new AnfSimulator(settings);
+            simulator.server.start();
+            return simulator;
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Unable to start the Azure NetApp Files simulator", e);
+        }
+    }
+
+    /**
+     * Creates a management client whose requests are all served by this simulator
+     * @return Azure NetApp Files manager connected to the simulator
+     */
+    public NetAppFilesManager connect()
+    {
+        return configure().authenticate(credential(), profile());
+    }
+
+    /**
+     * Returns the manager configuration pointing to this simulator, so callers can add their own policies before
+     * authenticating
+     * @return Manager configuration with the loopback HTTP client already set
+     */
+    public NetAppFilesManager.Configurable configure()
+    {
+        return configure(HttpClient.createDefault());
+    }
+
+    /**
+     * Returns the manager configuration pointing to this simulator, sending requests through the given HTTP client
+     * @param httpClient HTTP client the loopback client delegates to, e.g. the shared client of AnfClientFactory
+     * @return Manager configuration with the loopback HTTP client already set
+     */
+    public NetAppFilesManager.Configurable configure(HttpClient httpClient)
+    {
+        return NetAppFilesManager.configure()
+                .withHttpClient(new LoopbackHttpClient(httpClient, getEndpoint()));
+    }
+
+    /**
+     * Credential accepted by the simulator, no call to Azure Active Directory is made
+     * @return Credential returning a static token
+     */
+    public TokenCredential credential()
+    {
+        return request -> Mono.just(new AccessToken("simulator", OffsetDateTime.now().plusHours(1)));
+    }
+
+    /**
+     * Profile of the simulated subscription
+     * @return Azure profile targeting the public cloud endpoints, which the loopback client redirects
+     */
+    public AzureProfile profile()
+    {
+        return profile(SUBSCRIPTION_ID);
+    }
+
+    /**
+     * Profile of a simulated subscription, the simulator serves any subscription id
+     * @param subscriptionId Subscription id of the requests
+     * @return Azure profile targeting the public cloud endpoints, which the loopback client redirects
+     */
+    public AzureProfile profile(String subscriptionId)
+    {
+        return new AzureProfile(TENANT_ID, subscriptionId, AzureEnvironment.AZURE);
+    }
+
+    /**
+     * Gets the local address of the simulator
+     * @return Scheme, host and port, e.g. http://127.0.0.1:52100
+     */
+    public String getEndpoint()
+    {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    @Override
+    public void close()
+    {
+        server.stop(0);
+        requestExecutor.shutdownNow();
+        operationScheduler.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException
+    {
+        try
+        {
+            if (settings.getRequestLatencyMs() > 0)
+            {
+                Thread.sleep(settings.getRequestLatencyMs());
+            }
+
+            String method = exchange.getRequestMethod().toUpperCase(Locale.ROOT);
+            String path = exchange.getRequestURI().getPath();
+
+            RequestThrottle throttle = method.equals("GET") ? readThrottle : writeThrottle;
+            boolean allowed = throttle.tryAcquire();
+            if (readThrottle.isLimited())
+            {
+                exchange.getResponseHeaders().set("x-ms-ratelimit-remaining-subscription-reads", String.valueOf(readThrottle.remaining()));
+            }
+            if (writeThrottle.isLimited())
+            {
+                exchange.getResponseHeaders().set("x-ms-ratelimit-remaining-subscription-writes", String.valueOf(writeThrottle.remaining()));
+            }
+            exchange.getResponseHeaders().set("x-ms-request-id", UUID.randomUUID().toString());
+            if (!allowed)
+            {
+                exchange.getResponseHeaders().set("Retry-After", String.valueOf(throttle.secondsUntilReset()));
+                respond(exchange, 429, error("TooManyRequests", "The request is being throttled."));
+                return;
+            }
+
+            if (ThreadLocalRandom.current().nextDouble() < settings.getErrorRate())
+            {
+                respond(exchange, 500, error("InternalServerError", "Injected error."));
+                return;
+            }
+
+            if (path.toLowerCase(Locale.ROOT).contains("/operationresults/"))
+            {
+                handleOperation(exchange, path);
+                return;
+            }
+
+            Route route = Route.parse(path);
+            if (route == null)
+            {
+                respond(exchange, 404, error("InvalidResourceType", "The resource type could not be found in the namespace 'Microsoft.NetApp'."));
+                return;
+            }
+
+            if (route.collection)
+            {
+                if (method.equals("GET"))
+                {
+                    handleList(exchange, route);
+                }
+                else
+                {
+                    respond(exchange, 405, error("MethodNotAllowed", "Method " + method + " is not allowed on a collection."));
+                }
+                return;
+            }
+
+            switch (method)
+            {
+                case "GET":
+                    handleGet(exchange, route);
+                    break;
+                case "PUT":
+                    handlePut(exchange, route, readBody(exchange));
+                    break;
+                case "PATCH":
+                    handlePatch(exchange, route, readBody(exchange));
+                    break;
+                case "DELETE":
+                    handleDelete(exchange, route);
+                    break;
+                default:
+                    respond(exchange, 405, error("MethodNotAllowed", "Method " + method + " is not allowed."));
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            exchange.close();
+        }
+        catch (RuntimeException e)
+        {
+            respond(exchange, 500, error("InternalServerError", e.toString()));
+        }
+    }
+
+    private void handleGet(HttpExchange exchange, Route route) throws IOException
+    {
+        JsonObject resource = resources.get(key(route.id));
+        if (resource == null)
+        {
+            respond(exchange, 404, error("ResourceNotFound", "The Resource '" + route.id + "' was not found."));
+            return;
+        }
+
+        respond(exchange, 200, resource);
+    }
+
+    private void handleList(HttpExchange exchange, Route route) throws IOException
+    {
+        String prefix = key(route.id) + "/";
+        JsonArray value = new JsonArray();
+        resources.forEach((key, resource) -> {
+            if (key.startsWith(prefix) && key.indexOf('/', prefix.length()) == -1)
+            {
+                value.add(resource);
+            }
+        });
+
+        JsonObject page = new JsonObject();
+        page.add("value", value);
+        respond(exchange, 200, page);
+    }
+
+    private void handlePut(HttpExchange exchange, Route route, JsonObject body) throws IOException
+    {
+        String parentId = route.parentId();
+        if (parentId != null && !resources.containsKey(key(parentId)))
+        {
+            respond(exchange, 404, error("ParentResourceNotFound", "Can not perform requested operation on nested resource. Parent resource '" + parentId + "' not found."));
+            return;
+        }
+
+        JsonObject existing = resources.get(key(route.id));
+        JsonObject resource = existing != null ? existing.deepCopy() : new JsonObject();
+        resource.addProperty("id", route.id);
+        resource.addProperty("name", route.name);
+        resource.addProperty("type", "Microsoft.NetApp/" + String.join("/", Arrays.copyOf(TYPE_SEGMENTS, route.level + 1)));
+        if (body.has("location"))
+        {
+            resource.add("location", body.get("location"));
+        }
+        if (body.has("tags"))
+        {
+            resource.add("tags", body.get("tags"));
+        }
+
+        JsonObject properties = mergeProperties(resource, body);
+        fillComputedProperties(route.level, properties);
+        properties.addProperty("provisioningState", isSynchronous() ? "Succeeded" : existing != null ? "Updating" : "Creating");
+
+        resources.put(key(route.id), resource);
+        if (!isSynchronous())
+        {
+            startOperation(exchange, resource, false);
+        }
+        respond(exchange, existing != null ? 200 : 201, resource);
+    }
+
+    private void handlePatch(HttpExchange exchange, Route route, JsonObject body) throws IOException
+    {
+        JsonObject existing = resources.get(key(route.id));
+        if (existing == null)
+        {
+            respond(exchange, 404, error("ResourceNotFound", "The Resource '" + route.id + "' was not found."));
+            return;
+        }
+
+        JsonObject resource = existing.deepCopy();
+        JsonObject properties = mergeProperties(resource, body);
+        fillComputedProperties(route.level, properties);
+        properties.addProperty("provisioningState", isSynchronous() ? "Succeeded" : "Patching");
+
+        resources.put(key(route.id), resource);
+        if (!isSynchronous())
+        {
+            startOperation(exchange, resource, false);
+        }
+        respond(exchange, 200, resource);
+    }
+
+    private void handleDelete(HttpExchange exchange, Route route) throws IOException
+    {
+        JsonObject existing = resources.get(key(route.id));
+        if (existing == null)
+        {
+            respond(exchange, 204, null);
+            return;
+        }
+
+        // Like the Resource Provider, accounts and capacity pools can only be deleted once empty
+        String prefix = key(route.id) + "/";
+        if (route.level < 2 && resources.keySet().stream().anyMatch(key -> key.startsWith(prefix)))
+        {
+            respond(exchange, 409, error("CannotDeleteResource", "Can not delete resource before nested resources are deleted."));
+            return;
+        }
+
+        if (isSynchronous())
+        {
+            resources.keySet().removeIf(key -> key.equals(key(route.id)) || key.startsWith(prefix));
+            respond(exchange, 200, null);
+            return;
+        }
+
+        JsonObject resource = existing.deepCopy();
+        resource.getAsJsonObject("properties").addProperty("provisioningState", "Deleting");
+        resources.put(key(route.id), resource);
+
+        String operationUrl = startOperation(exchange, resource, true);
+        exchange.getResponseHeaders().set("Location", operationUrl);
+        respond(exchange, 202, null);
+    }
+
+    private void handleOperation(HttpExchange exchange, String path) throws IOException
+    {
+        JsonObject operation = operations.get(path.substring(path.lastIndexOf('/') + 1).toLowerCase(Locale.ROOT));
+        if (operation == null)
+        {
+            respond(exchange, 404, error("OperationNotFound", "The operation was not found."));
+            return;
+        }
+
+        synchronized (operation)
+        {
+            respond(exchange, 200, operation.deepCopy());
+        }
+    }
+
+    /**
+     * Operations complete within the request when no duration is configured, which removes polling from benchmarks
+     */
+    private boolean isSynchronous()
+    {
+        return settings.getOperationDurationMs() <= 0;
+    }
+
+    /**
+     * Registers a long-running operation on a resource, completing it once the configured duration elapsed
+     * @return Polling URL returned in the Azure-AsyncOperation header
+     */
+    private String startOperation(HttpExchange exchange, JsonObject resource, boolean delete)
+    {
+        String resourceId = resource.get("id").getAsString();
+        String operationName = UUID.randomUUID().toString();
+        String location = resource.has("location") ? resource.get("location").getAsString() : "simulator";
+        String subscriptionId = resourceId.split("/")[2];
+        String operationId = "/subscriptions/" + subscriptionId + PROVIDER + "/locations/" + location + "/operationResults/" + operationName;
+
+        JsonObject operation = new JsonObject();
+        operation.addProperty("id", operationId);
+        operation.addProperty("name", operationName);
+        operation.addProperty("status", "InProgress");
+        operation.addProperty("startTime", OffsetDateTime.now().toString());
+        operations.put(operationName, operation);
+
+        operationScheduler.schedule(() -> completeOperation(operation, resourceId, delete), settings.getOperationDurationMs(), TimeUnit.MILLISECONDS);
+
+        String query = exchange.getRequestURI().getRawQuery();
+        String operationUrl = PUBLIC_ENDPOINT + operationId + (query != null ? "?" + query : "");
+        exchange.getResponseHeaders().set("Azure-AsyncOperation", operationUrl);
+        exchange.getResponseHeaders().set("Retry-After", String.valueOf(settings.getRetryAfterSeconds()));
+        return operationUrl;
+    }
+
+    private void completeOperation(JsonObject operation, String resourceId, boolean delete)
+    {
+        boolean failed = ThreadLocalRandom.current().nextDouble() < settings.getOperationFailureRate();
+        String key = key(resourceId);
+
+        if (delete && !failed)
+        {
+            resources.keySet().removeIf(k -> k.equals(key) || k.startsWith(key + "/"));
+        }
+        else
+        {
+            resources.computeIfPresent(key, (k, resource) -> {
+                JsonObject updated = resource.deepCopy();
+                updated.getAsJsonObject("properties").addProperty("provisioningState", failed ? "Failed" : "Succeeded");
+                return updated;
+            });
+        }
+
+        synchronized (operation)
+        {
+            operation.addProperty("status", failed ? "Failed" : "Succeeded");
+            operation.addProperty("endTime", OffsetDateTime.now().toString());
+            if (failed)
+            {
+                operation.add("error", error("InternalServerError", "Injected operation failure.").get("error"));
+            }
+        }
+    }
+
+    private static JsonObject mergeProperties(JsonObject resource, JsonObject body)
+    {
+        JsonObject properties = resource.has("properties") ? resource.getAsJsonObject("properties") : new JsonObject();
+        if (body.has("properties") && body.get("properties").isJsonObject())
+        {
+            body.getAsJsonObject("properties").entrySet().forEach(e -> properties.add(e.getKey(), e.getValue()));
+        }
+
+        resource.add("properties", properties);
+        return properties;
+    }
+
+    /**
+     * Adds the read-only properties the Resource Provider computes for each resource type
+     */
+    private static void fillComputedProperties(int level, JsonObject properties)
+    {
+        switch (level)
+        {
+            case 1:
+                addIfMissing(properties, "poolId", UUID.randomUUID().toString());
+                addIfMissing(properties, "qosType", "Auto");
+                if (properties.has("size") && properties.has("serviceLevel"))
+                {
+                    properties.addProperty("totalThroughputMibps", throughput(properties.get("size").getAsLong(), properties.get("serviceLevel").getAsString()));
+                }
+                break;
+            case 2:
+                addIfMissing(properties, "fileSystemId", UUID.randomUUID().toString());
+                if (!properties.has("throughputMibps") && properties.has("usageThreshold") && properties.has("serviceLevel"))
+                {
+                    properties.addProperty("throughputMibps", throughput(properties.get("usageThreshold").getAsLong(), properties.get("serviceLevel").getAsString()));
+                }
+                break;
+            case 3:
+                addIfMissing(properties, "snapshotId", UUID.randomUUID().toString());
+                addIfMissing(properties, "created", OffsetDateTime.now().toString());
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static void addIfMissing(JsonObject properties, String name, String value)
+    {
+        if (!properties.has(name))
+        {
+            properties.addProperty(name, value);
+        }
+    }
+
+    /**
+     * Throughput granted by the automatic QoS of a service level to the given quota
+     */
+    private static double throughput(long bytes, String serviceLevel)
+    {
+        double mibpsPerTib;
+        switch (serviceLevel.toLowerCase(Locale.ROOT))
+        {
+            case "ultra":
+                mibpsPerTib = 128;
+                break;
+            case "premium":
+                mibpsPerTib = 64;
+                break;
+            default:
+                mibpsPerTib = 16;
+        }
+        return (double) bytes / TIB * mibpsPerTib;
+    }
+
+    private static JsonObject readBody(HttpExchange exchange) throws IOException
+    {
+        try (InputStream stream = exchange.getRequestBody())
+        {
+            String body = new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+            JsonElement element = body.isBlank() ? new JsonObject() : JsonParser.parseString(body);
+            return element.isJsonObject() ? element.getAsJsonObject() : new JsonObject();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, JsonObject body) throws IOException
+    {
+        byte[] bytes = body == null ? new byte[0] : body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0)
+        {
+            try (OutputStream stream = exchange.getResponseBody())
+            {
+                stream.write(bytes);
+            }
+        }
+        exchange.close();
+    }
+
+    private static JsonObject error(String code, String message)
+    {
+        JsonObject details = new JsonObject();
+        details.addProperty("code", code);
+        details.addProperty("message", message);
+
+        JsonObject error = new JsonObject();
+        error.add("error", details);
+        return error;
+    }
+
+    private static String key(String resourceId)
+    {
+        return resourceId.toLowerCase(Locale.ROOT);
+    }
+
+    // Microsoft.NetApp resource or collection addressed by a request path
+    private static final class Route
+    {
+        // Resource id, or collection path for list requests
+        private final String id;
+
+        // Nested name as returned by the Resource Provider, e.g. "account/pool/volume"
+        private final String name;
+
+        // Index of the resource type in TYPE_SEGMENTS
+        private final int level;
+
+        private final boolean collection;
+
+        private Route(String id, String name, int level, boolean collection)
+        {
+            this.id = id;
+            this.name = name;
+            this.level = level;
+            this.collection = collection;
+        }
+
+        /**
+         * Parses a path such as /subscriptions/{s}/resourceGroups/{rg}/providers/Microsoft.NetApp/netAppAccounts/{a}/capacityPools
+         * @return Matching route or null if the path does not address an ANF resource or collection
+         */
+        static Route parse(String path)
+        {
+            int providerIndex = path.toLowerCase(Locale.ROOT).indexOf(PROVIDER.toLowerCase(Locale.ROOT) + "/");
+            if (providerIndex == -1)
+            {
+                return null;
+            }
+
+            StringBuilder id = new StringBuilder(path.substring(0, providerIndex)).append(PROVIDER);
+            StringBuilder name = new StringBuilder();
+            String[] segments = path.substring(providerIndex + PROVIDER.length() + 1).split("/");
+            for (int i = 0, level = 0; i < segments.length; i += 2, level++)
+            {
+                if (level >= TYPE_SEGMENTS.length || !segments[i].equalsIgnoreCase(TYPE_SEGMENTS[level]))
+                {
+                    return null;
+                }
+
+                id.append('/').append(TYPE_SEGMENTS[level]);
+                if (i + 1 == segments.length)
+                {
+                    return new Route(id.toString(), null, level, true);
+                }
+
+                id.append('/').append(segments[i + 1]);
+                name.append(name.length() > 0 ? "/" : "").append(segments[i + 1]);
+                if (i + 2 == segments.length)
+                {
+                    return new Route(id.toString(), name.toString(), level, false);
+                }
+            }
+
+            return null;
+        }
+
+        /**
+         * @return Id of the parent ANF resource, null for accounts whose parent is the resource group
+         */
+        String parentId()
+        {
+            if (level == 0)
+            {
+                return null;
+            }
+
+            int typeIndex = id.lastIndexOf('/', id.lastIndexOf('/') - 1);
+            return id.substring(0, typeIndex);
+        }
+    }
+
+    // Fixed one minute window request counter, mimicking the per subscription quotas of Azure Resource Manager
+    private static final class RequestThrottle
+    {
+        private final int limitPerMinute;
+        private long windowStart = System.currentTimeMillis();
+        private int used;
+
+        RequestThrottle(int limitPerMinute)
+        {
+            this.limitPerMinute = limitPerMinute;
+        }
+
+        synchronized boolean tryAcquire()
+        {
+            roll();
+            if (limitPerMinute > 0 && used >= limitPerMinute)
+            {
+                return false;
+            }
+
+            used++;
+            return true;
+        }
+
+        boolean isLimited()
+        {
+            return limitPerMinute > 0;
+        }
+
+        synchronized int remaining()
+        {
+            roll();
+            return limitPerMinute - used;
+        }
+
+        synchronized long secondsUntilReset()
+        {
+            return Math.max(1, TimeUnit.MILLISECONDS.toSeconds(windowStart + 60_000 - System.currentTimeMillis()));
+        }
+
+        private void roll()
+        {
+            long now = System.currentTimeMillis();
+            if (now - windowStart >= 60_000)
+            {
+                windowStart = now;
+                used = 0;
+            }
+        }
+    }
+}
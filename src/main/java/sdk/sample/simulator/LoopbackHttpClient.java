@@ -0,0 +1,51 @@
+// Copyright (c) Microsoft and contributors.  All rights reserved.
+//
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package sdk.sample.simulator;
+
+import com.azure.core.http.HttpClient;
+import com.azure.core.http.HttpRequest;
+import com.azure.core.http.HttpResponse;
+import reactor.core.publisher.Mono;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+
+// HttpClient that sends every request to the local simulator, keeping path and query of the original ARM URL.
+// The pipeline still sees the public https endpoint, so authentication policies and polling URLs behave as in Azure.
+class LoopbackHttpClient implements HttpClient
+{
+    private final HttpClient delegate;
+    private final String target;
+
+    /**
+     * Creates a client that redirects requests to the given local endpoint
+     * @param delegate Client that performs the actual HTTP exchange
+     * @param target Scheme, host and port of the simulator, e.g. http://127.0.0.1:8080
+     */
+    LoopbackHttpClient(HttpClient delegate, String target)
+    {
+        this.delegate = delegate;
+        this.target = target;
+    }
+
+    @Override
+    public Mono<HttpResponse> send(HttpRequest request)
+    {
+        URL url;
+        try
+        {
+            url = URI.create(target + request.getUrl().getFile()).toURL();
+        }
+        catch (MalformedURLException | IllegalArgumentException e)
+        {
+            return Mono.error(e);
+        }
+
+        // The original request is left untouched, retry policies copy it for every attempt
+        return delegate.send(new HttpRequest(request.getHttpMethod(), url, request.getHeaders(), request.getBody()));
+    }
+}